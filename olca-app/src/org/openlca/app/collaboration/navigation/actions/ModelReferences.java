@@ -1,69 +1,167 @@
 package org.openlca.app.collaboration.navigation.actions;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.openlca.app.db.Repository;
 import org.openlca.core.database.IDatabase;
+import org.openlca.core.database.IDatabaseListener;
 import org.openlca.core.database.NativeSql;
 import org.openlca.core.model.ModelType;
-import org.openlca.git.util.TypeRefIdMap;
+import org.openlca.core.model.descriptors.Descriptor;
+import org.openlca.core.model.descriptors.RootDescriptor;
 import org.openlca.git.util.TypedRefId;
 import org.openlca.util.Strings;
-
-class ModelReferences {
-
-	private IDatabase database;
-	private TypeRefIdMap<Long> refIdToId = new TypeRefIdMap<>();
-	private EnumMap<ModelType, Map<Long, String>> idToRefId = new EnumMap<>(ModelType.class);
-	private ReferenceMap references = new ReferenceMap();
-	private ReferenceMap usages = new ReferenceMap();
-	private Map<String, Long> nameToParameter = new HashMap<>();
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import gnu.trove.map.hash.TLongLongHashMap;
+import gnu.trove.set.hash.TLongHashSet;
+
+/**
+ * An index of the references between the models of a database. The index is
+ * built once with a full scan of the database tables and is then stored in
+ * the Git directory of the repository. After this, only the models that were
+ * changed are scanned again: while the application is running, the changed
+ * models are tracked with the insert, update, and delete events of the
+ * database; when the index is loaded from its file, the stored versions and
+ * last-change dates of the models are compared with the current ones.
+ * <p>
+ * Native SQL updates bypass both mechanisms; code that modifies models with
+ * native SQL must therefore call {@link #invalidate(IDatabase)}.
+ */
+public class ModelReferences implements IDatabaseListener {
+
+	private static final Logger log = LoggerFactory.getLogger(ModelReferences.class);
+	private static final String FILE_NAME = "references.index";
+	private static final int FORMAT_VERSION = 1;
+	private static final int MAX_IN_SIZE = 500;
+	private static final EnumMap<ModelType, String> TABLES = new EnumMap<>(ModelType.class);
+	private static ModelReferences instance;
+
+	static {
+		TABLES.put(ModelType.LOCATION, "tbl_locations");
+		TABLES.put(ModelType.SOURCE, "tbl_sources");
+		TABLES.put(ModelType.ACTOR, "tbl_actors");
+		TABLES.put(ModelType.CURRENCY, "tbl_currencies");
+		TABLES.put(ModelType.UNIT_GROUP, "tbl_unit_groups");
+		TABLES.put(ModelType.FLOW_PROPERTY, "tbl_flow_properties");
+		TABLES.put(ModelType.DQ_SYSTEM, "tbl_dq_systems");
+		TABLES.put(ModelType.PARAMETER, "tbl_parameters");
+		TABLES.put(ModelType.SOCIAL_INDICATOR, "tbl_social_indicators");
+		TABLES.put(ModelType.IMPACT_CATEGORY, "tbl_impact_categories");
+		TABLES.put(ModelType.IMPACT_METHOD, "tbl_impact_methods");
+		TABLES.put(ModelType.RESULT, "tbl_results");
+		TABLES.put(ModelType.EPD, "tbl_epds");
+		TABLES.put(ModelType.FLOW, "tbl_flows");
+		TABLES.put(ModelType.PROCESS, "tbl_processes");
+		TABLES.put(ModelType.PRODUCT_SYSTEM, "tbl_product_systems");
+		TABLES.put(ModelType.PROJECT, "tbl_projects");
+	}
+
+	private final IDatabase database;
+	private final EnumMap<ModelType, Map<String, Long>> refIdToId = new EnumMap<>(ModelType.class);
+	private final EnumMap<ModelType, Map<Long, String>> idToRefId = new EnumMap<>(ModelType.class);
+	private final EnumMap<ModelType, TLongLongHashMap> stamps = new EnumMap<>(ModelType.class);
+	private final EnumMap<ModelType, TLongHashSet> changed = new EnumMap<>(ModelType.class);
+	private final ReferenceMap references = new ReferenceMap();
+	private final ReferenceMap usages = new ReferenceMap();
+	private final Map<String, Long> nameToParameter = new HashMap<>();
+	private boolean initialized;
 
 	private ModelReferences(IDatabase database) {
 		this.database = database;
 	}
 
-	public static ModelReferences scan(IDatabase database) {
-		var refs = new ModelReferences(database);
-		refs.init();
-		refs.scan();
-		return refs;
+	/**
+	 * Returns the up-to-date reference index of the given database. There is
+	 * only one index instance for the currently active database.
+	 */
+	static synchronized ModelReferences of(IDatabase database) {
+		if (instance == null || instance.database != database) {
+			if (instance != null) {
+				instance.database.removeListener(instance);
+			}
+			instance = new ModelReferences(database);
+			database.addListener(instance);
+		}
+		instance.update();
+		return instance;
+	}
+
+	/**
+	 * Discards the stored reference index of the given database, so that the
+	 * database is scanned completely on the next reference check. This must
+	 * be called after models were modified with native SQL statements, as
+	 * such updates are not reported to the database listeners and do not
+	 * necessarily change the versions of the models.
+	 */
+	public static synchronized void invalidate(IDatabase database) {
+		if (database == null)
+			return;
+		if (instance != null && instance.database == database) {
+			synchronized (instance) {
+				instance.initialized = false;
+				instance.changed.clear();
+			}
+		}
+		var file = fileOf(database);
+		if (file == null || !file.exists())
+			return;
+		try {
+			Files.delete(file.toPath());
+		} catch (IOException e) {
+			log.error("Failed to delete reference index " + file, e);
+		}
 	}
 
-	public Set<ModelReference> get(TypedRefId pair) {
+	public synchronized Set<ModelReference> get(TypedRefId pair) {
 		var refs = new HashSet<ModelReference>();
 		refs.addAll(getReferences(pair));
 		refs.addAll(getUsages(pair));
 		return refs;
 	}
 
-	public Set<ModelReference> getReferences(TypedRefId pair) {
+	public synchronized Set<ModelReference> getReferences(TypedRefId pair) {
 		return get(references, pair);
 	}
 
-	public Set<ModelReference> getUsages(TypedRefId pair) {
+	public synchronized Set<ModelReference> getUsages(TypedRefId pair) {
 		return get(usages, pair);
 	}
 
 	private Set<ModelReference> get(ReferenceMap map, TypedRefId pair) {
 		var refs = new HashSet<ModelReference>();
 		var typeMap = map.get(pair.type);
-		if (typeMap == null)
+		var ids = refIdToId.get(pair.type);
+		if (typeMap == null || ids == null)
 			return refs;
-		var id = refIdToId.get(pair);
+		var id = ids.get(pair.refId);
 		var idMap = typeMap.get(id);
 		if (idMap == null)
 			return refs;
 		idMap.keySet().forEach(targetType -> idMap.get(targetType)
 				.forEach(targetId -> {
-					var refId = idToRefId.get(targetType).get(targetId);
+					var refIds = idToRefId.get(targetType);
+					var refId = refIds != null ? refIds.get(targetId) : null;
 					if (!Strings.nullOrEmpty(refId)) {
 						refs.add(new ModelReference(targetType, targetId, refId));
 					}
@@ -71,7 +169,155 @@ class ModelReferences {
 		return refs;
 	}
 
-	private void init() {
+	@Override
+	public synchronized void modelInserted(Descriptor d) {
+		markChanged(d);
+	}
+
+	@Override
+	public synchronized void modelUpdated(Descriptor d) {
+		markChanged(d);
+	}
+
+	@Override
+	public synchronized void modelDeleted(Descriptor d) {
+		markChanged(d);
+	}
+
+	private void markChanged(Descriptor d) {
+		if (!(d instanceof RootDescriptor) || d.type == null || !TABLES.containsKey(d.type))
+			return;
+		markChanged(d.type, d.id);
+	}
+
+	private void markChanged(ModelType type, long id) {
+		changed.computeIfAbsent(type, t -> new TLongHashSet()).add(id);
+	}
+
+	/**
+	 * Loads the index from its file, or scans the complete database if this
+	 * is not possible, and scans the models again that were changed since
+	 * the last update. The names of global parameters are used to resolve
+	 * parameter redefinitions, thus, when a global parameter was changed,
+	 * the complete database is scanned again.
+	 */
+	private synchronized void update() {
+		if (!initialized) {
+			initialized = true;
+			if (!read()) {
+				changed.clear();
+				scanAll();
+				write();
+				return;
+			}
+			findChangesSinceWrite();
+		}
+		if (changed.isEmpty())
+			return;
+		if (changed.containsKey(ModelType.PARAMETER)) {
+			changed.clear();
+			scanAll();
+			write();
+			return;
+		}
+		initParameters();
+		for (var e : changed.entrySet()) {
+			var type = e.getKey();
+			var ids = e.getValue().toArray();
+			for (var id : ids) {
+				remove(type, id);
+			}
+			scan(type, ids);
+		}
+		changed.clear();
+		write();
+	}
+
+	private void scanAll() {
+		refIdToId.clear();
+		idToRefId.clear();
+		stamps.clear();
+		references.clear();
+		usages.clear();
+		initParameters();
+		for (var type : TABLES.keySet()) {
+			scan(type, null);
+		}
+	}
+
+	/**
+	 * Marks the models as changed that were inserted, updated, or deleted
+	 * since the index was written, e.g. when the database was modified in a
+	 * former session after the last reference check.
+	 */
+	private void findChangesSinceWrite() {
+		for (var e : TABLES.entrySet()) {
+			var type = e.getKey();
+			var stored = stamps.get(type);
+			var current = new TLongHashSet();
+			var query = "SELECT id, version, last_change FROM " + e.getValue()
+					+ (type == ModelType.PARAMETER ? " WHERE scope = 'GLOBAL'" : "");
+			NativeSql.on(database).query(query, rs -> {
+				var id = rs.getLong(1);
+				var stamp = stampOf(rs.getLong(2), rs.getLong(3));
+				current.add(id);
+				if (stored == null || !stored.containsKey(id) || stored.get(id) != stamp) {
+					markChanged(type, id);
+				}
+				return true;
+			});
+			if (stored == null)
+				continue;
+			for (var id : stored.keys()) {
+				if (!current.contains(id)) {
+					markChanged(type, id);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the reference IDs, the version stamp, and the outgoing
+	 * references of the given model from the index.
+	 */
+	private void remove(ModelType type, long id) {
+		var refIds = idToRefId.get(type);
+		var refId = refIds != null ? refIds.remove(id) : null;
+		if (refId != null) {
+			refIdToId.get(type).remove(refId);
+		}
+		var typeStamps = stamps.get(type);
+		if (typeStamps != null) {
+			typeStamps.remove(id);
+		}
+		var typeRefs = references.get(type);
+		var targets = typeRefs != null ? typeRefs.remove(id) : null;
+		if (targets == null)
+			return;
+		for (var target : targets.entrySet()) {
+			var targetUsages = usages.get(target.getKey());
+			if (targetUsages == null)
+				continue;
+			for (var targetId : target.getValue()) {
+				var sources = targetUsages.get(targetId);
+				if (sources == null)
+					continue;
+				var ids = sources.get(type);
+				if (ids != null) {
+					ids.remove(id);
+					if (ids.isEmpty()) {
+						sources.remove(type);
+					}
+				}
+				if (sources.isEmpty()) {
+					targetUsages.remove(targetId);
+				}
+			}
+		}
+	}
+
+	private void initParameters() {
+		nameToParameter.clear();
 		var query = "SELECT id, name FROM tbl_parameters WHERE scope = 'GLOBAL'";
 		NativeSql.on(database).query(query, rs -> {
 			nameToParameter.put(rs.getString(2), rs.getLong(1));
@@ -79,129 +325,150 @@ class ModelReferences {
 		});
 	}
 
-	private void scan() {
-		scanLocations();
-		scanSources();
-		scanActors();
-		scanCurrencies();
-		scanUnitGroups();
-		scanFlowProperties();
-		scanDQSystems();
-		scanGlobalParameters();
-		scanSocialIndicators();
-		scanImpactCategories();
-		scanImpactMethods();
-		scanResults();
-		scanEpds();
-		scanFlows();
-		scanProcesses();
-		scanProductSystems();
-		scanProjects();
-	}
-
-	private void scanLocations() {
-		scanTable("tbl_locations", true,
+	/**
+	 * Scans the models of the given type with the given IDs or all models of
+	 * that type when the IDs are {@code null}.
+	 */
+	private void scan(ModelType type, long[] ids) {
+		switch (type) {
+			case LOCATION -> scanLocations(ids);
+			case SOURCE -> scanSources(ids);
+			case ACTOR -> scanActors(ids);
+			case CURRENCY -> scanCurrencies(ids);
+			case UNIT_GROUP -> scanUnitGroups(ids);
+			case FLOW_PROPERTY -> scanFlowProperties(ids);
+			case DQ_SYSTEM -> scanDQSystems(ids);
+			case PARAMETER -> scanGlobalParameters(ids);
+			case SOCIAL_INDICATOR -> scanSocialIndicators(ids);
+			case IMPACT_CATEGORY -> scanImpactCategories(ids);
+			case IMPACT_METHOD -> scanImpactMethods(ids);
+			case RESULT -> scanResults(ids);
+			case EPD -> scanEpds(ids);
+			case FLOW -> scanFlows(ids);
+			case PROCESS -> scanProcesses(ids);
+			case PRODUCT_SYSTEM -> scanProductSystems(ids);
+			case PROJECT -> scanProjects(ids);
+			default -> {
+			}
+		}
+	}
+
+	private void scanLocations(long[] ids) {
+		scanTable("tbl_locations", true, where("id", ids),
 				new ModelField(ModelType.LOCATION, "id"));
 	}
 
-	private void scanSources() {
-		scanTable("tbl_sources", true,
+	private void scanSources(long[] ids) {
+		scanTable("tbl_sources", true, where("id", ids),
 				new ModelField(ModelType.SOURCE, "id"));
 	}
 
-	private void scanActors() {
-		scanTable("tbl_actors", true,
+	private void scanActors(long[] ids) {
+		scanTable("tbl_actors", true, where("id", ids),
 				new ModelField(ModelType.ACTOR, "id"));
 	}
 
-	private void scanCurrencies() {
-		scanTable("tbl_currencies", true,
+	private void scanCurrencies(long[] ids) {
+		scanTable("tbl_currencies", true, where("id", ids),
 				new ModelField(ModelType.CURRENCY, "id"),
 				new ModelField(ModelType.CURRENCY, "f_reference_currency"));
 	}
 
-	private void scanUnitGroups() {
-		scanTable("tbl_unit_groups", true,
+	private void scanUnitGroups(long[] ids) {
+		scanTable("tbl_unit_groups", true, where("id", ids),
 				new ModelField(ModelType.UNIT_GROUP, "id"),
 				new ModelField(ModelType.FLOW_PROPERTY, "f_default_flow_property"));
 	}
 
-	private void scanFlowProperties() {
-		scanTable("tbl_flow_properties", true,
+	private void scanFlowProperties(long[] ids) {
+		scanTable("tbl_flow_properties", true, where("id", ids),
 				new ModelField(ModelType.FLOW_PROPERTY, "id"),
 				new ModelField(ModelType.UNIT_GROUP, "f_unit_group"));
 	}
 
-	private void scanDQSystems() {
-		scanTable("tbl_dq_systems", true,
+	private void scanDQSystems(long[] ids) {
+		scanTable("tbl_dq_systems", true, where("id", ids),
 				new ModelField(ModelType.DQ_SYSTEM, "id"));
 	}
 
-	private void scanGlobalParameters() {
-		var query = "SELECT id, ref_id FROM tbl_parameters WHERE scope = 'GLOBAL'";
-		NativeSql.on(database).query(query, rs -> {
-			var id = rs.getLong(1);
-			var refId = rs.getString(2);
-			putRefId(ModelType.PARAMETER, id, refId);
-			return true;
-		});
+	private void scanGlobalParameters(long[] ids) {
+		var query = "SELECT id, ref_id, version, last_change FROM tbl_parameters"
+				+ " WHERE scope = 'GLOBAL'";
+		for (var q : queriesOf(query, where("id", ids))) {
+			NativeSql.on(database).query(q, rs -> {
+				var id = rs.getLong(1);
+				var refId = rs.getString(2);
+				putRefId(ModelType.PARAMETER, id, refId);
+				putStamp(ModelType.PARAMETER, id, rs.getLong(3), rs.getLong(4));
+				return true;
+			});
+		}
 	}
 
-	private void scanSocialIndicators() {
-		scanTable("tbl_social_indicators", true,
+	private void scanSocialIndicators(long[] ids) {
+		scanTable("tbl_social_indicators", true, where("id", ids),
 				new ModelField(ModelType.SOCIAL_INDICATOR, "id"),
 				new ModelField(ModelType.FLOW_PROPERTY, "f_activity_quantity"));
 	}
 
-	private void scanImpactCategories() {
-		scanTable("tbl_impact_categories", true,
+	private void scanImpactCategories(long[] ids) {
+		scanTable("tbl_impact_categories", true, where("id", ids),
 				new ModelField(ModelType.IMPACT_CATEGORY, "id"),
 				new ModelField(ModelType.IMPACT_METHOD, "id"),
 				new ModelField(ModelType.SOURCE, "f_source"));
-		scanTable("tbl_impact_factors", false,
+		scanTable("tbl_impact_factors", false, where("f_impact_category", ids),
 				new ModelField(ModelType.IMPACT_CATEGORY, "f_impact_category"),
 				new ModelField(ModelType.FLOW, "f_flow"),
 				new ModelField(ModelType.LOCATION, "f_location"));
 	}
 
-	private void scanImpactMethods() {
-		scanTable("tbl_impact_methods", true,
+	private void scanImpactMethods(long[] ids) {
+		scanTable("tbl_impact_methods", true, where("id", ids),
 				new ModelField(ModelType.IMPACT_METHOD, "id"),
 				new ModelField(ModelType.SOURCE, "f_source"));
-		scanTable("tbl_source_links", false,
-				new ModelField(ModelType.IMPACT_METHOD, "f_owner"),
+		var methods = new TLongHashSet();
+		if (ids == null) {
+			methods.addAll(idToRefId.getOrDefault(ModelType.IMPACT_METHOD, Map.of()).keySet());
+		} else {
+			methods.addAll(ids);
+		}
+		// source links are also owned by process documentations
+		scanTable("tbl_source_links", false, where("f_owner", ids),
+				new ModelField(ModelType.IMPACT_METHOD, "f_owner",
+						owner -> methods.contains(owner) ? owner : null),
 				new ModelField(ModelType.SOURCE, "f_source"));
-		scanTable("tbl_impact_links", false,
+		scanTable("tbl_impact_links", false, where("f_impact_method", ids),
 				new ModelField(ModelType.IMPACT_METHOD, "f_impact_method"),
 				new ModelField(ModelType.IMPACT_CATEGORY, "f_impact_category"));
 	}
 
-	private void scanFlows() {
-		scanTable("tbl_flows", true,
+	private void scanFlows(long[] ids) {
+		scanTable("tbl_flows", true, where("id", ids),
 				new ModelField(ModelType.FLOW, "id"));
-		scanTable("tbl_flow_property_factors", false,
+		scanTable("tbl_flow_property_factors", false, where("f_flow", ids),
 				new ModelField(ModelType.FLOW, "f_flow"),
 				new ModelField(ModelType.FLOW_PROPERTY, "f_flow_property"));
 	}
 
-	private void scanProcesses() {
-		var docsToProcess = scanTable("tbl_processes", true, "f_process_doc",
+	private void scanProcesses(long[] ids) {
+		var docsToProcess = scanTable("tbl_processes", true, "f_process_doc", where("id", ids),
 				new ModelField(ModelType.PROCESS, "id"),
 				new ModelField(ModelType.LOCATION, "f_location"),
 				new ModelField(ModelType.DQ_SYSTEM, "f_dq_system"),
 				new ModelField(ModelType.DQ_SYSTEM, "f_exchange_dq_system"),
 				new ModelField(ModelType.DQ_SYSTEM, "f_social_dq_system"));
-		scanTable("tbl_process_docs", false,
+		var docIds = ids != null ? keysOf(docsToProcess) : null;
+		scanTable("tbl_process_docs", false, where("id", docIds),
 				new ModelField(ModelType.PROCESS, "id", docsToProcess::get),
 				new ModelField(ModelType.ACTOR, "f_reviewer"),
 				new ModelField(ModelType.ACTOR, "f_data_documentor"),
 				new ModelField(ModelType.ACTOR, "f_data_generator"),
 				new ModelField(ModelType.ACTOR, "f_dataset_owner"),
 				new ModelField(ModelType.SOURCE, "f_publication"));
-		scanTable("tbl_source_links", false,
+		scanTable("tbl_source_links", false, where("f_owner", docIds),
 				new ModelField(ModelType.PROCESS, "f_owner", docsToProcess::get),
 				new ModelField(ModelType.SOURCE, "f_source"));
-		scanTable("tbl_exchanges", false,
+		scanTable("tbl_exchanges", false, where("f_owner", ids),
 				new ModelField(ModelType.PROCESS, "f_owner"),
 				new ModelField(ModelType.PROCESS, "f_default_provider"),
 				new ModelField(ModelType.FLOW, "f_flow"),
@@ -209,72 +476,81 @@ class ModelReferences {
 				new ModelField(ModelType.FLOW, "f_currency"));
 	}
 
-	private void scanProductSystems() {
-		scanTable("tbl_product_systems", true,
+	private void scanProductSystems(long[] ids) {
+		scanTable("tbl_product_systems", true, where("id", ids),
 				new ModelField(ModelType.PRODUCT_SYSTEM, "id"),
 				new ModelField(ModelType.PROCESS, "f_reference_process"));
-		scanTable("tbl_process_links", false,
+		scanTable("tbl_process_links", false, where("f_product_system", ids),
 				new ModelField(ModelType.PRODUCT_SYSTEM, "f_product_system"),
 				new ModelField(ModelType.PROCESS, "f_process"),
 				new ModelField(ModelType.PROCESS, "f_provider"));
 		var setToSystem = scanTable("tbl_parameter_redef_sets", false, "id",
+				where("f_product_system", ids),
 				new ModelField(ModelType.PRODUCT_SYSTEM, "f_product_system"));
-		scanParameterRedefs(ModelType.PRODUCT_SYSTEM, setToSystem::get);
+		scanParameterRedefs(ModelType.PRODUCT_SYSTEM, setToSystem,
+				ids != null ? keysOf(setToSystem) : null);
 	}
 
-	private void scanProjects() {
-		scanTable("tbl_projects", true,
+	private void scanProjects(long[] ids) {
+		scanTable("tbl_projects", true, where("id", ids),
 				new ModelField(ModelType.PROJECT, "id"),
 				new ModelField(ModelType.IMPACT_METHOD, "f_impact_method"));
 		var variantToProject = scanTable("tbl_project_variants", false, "id",
+				where("f_project", ids),
 				new ModelField(ModelType.PROJECT, "f_project"),
 				new ModelField(ModelType.PRODUCT_SYSTEM, "f_product_system"));
-		scanParameterRedefs(ModelType.PROJECT, variantToProject::get);
+		scanParameterRedefs(ModelType.PROJECT, variantToProject,
+				ids != null ? keysOf(variantToProject) : null);
 	}
 
-	private void scanEpds() {
-		scanTable("tbl_epds", true,
+	private void scanEpds(long[] ids) {
+		scanTable("tbl_epds", true, where("id", ids),
 				new ModelField(ModelType.EPD, "id"),
 				new ModelField(ModelType.ACTOR, "f_manufacturer"),
 				new ModelField(ModelType.ACTOR, "f_verifier"),
 				new ModelField(ModelType.ACTOR, "f_program_operator"),
 				new ModelField(ModelType.SOURCE, "f_pcr"),
 				new ModelField(ModelType.FLOW, "f_flow"));
-		scanTable("tbl_epd_modules", false,
+		scanTable("tbl_epd_modules", false, where("f_epd", ids),
 				new ModelField(ModelType.EPD, "f_epd"),
 				new ModelField(ModelType.RESULT, "f_result"));
 	}
 
-	private void scanResults() {
-		scanTable("tbl_results", true,
+	private void scanResults(long[] ids) {
+		scanTable("tbl_results", true, where("id", ids),
 				new ModelField(ModelType.RESULT, "id"),
 				new ModelField(ModelType.PRODUCT_SYSTEM, "f_product_system"),
 				new ModelField(ModelType.IMPACT_METHOD, "f_impact_method"));
-		scanTable("tbl_flow_results", false,
+		scanTable("tbl_flow_results", false, where("f_result", ids),
 				new ModelField(ModelType.RESULT, "f_result"),
 				new ModelField(ModelType.FLOW, "f_flow"),
 				new ModelField(ModelType.LOCATION, "f_location"));
-		scanTable("tbl_impact_results", false,
+		scanTable("tbl_impact_results", false, where("f_result", ids),
 				new ModelField(ModelType.RESULT, "f_result"),
 				new ModelField(ModelType.IMPACT_CATEGORY, "f_impact_category"));
 	}
 
-	private void scanParameterRedefs(ModelType ownerType, Function<Long, Long> mediator) {
+	private void scanParameterRedefs(ModelType ownerType, Map<Long, Long> owners, long[] ownerIds) {
 		var query = "SELECT f_owner,name FROM tbl_parameter_redefs WHERE context_type IS NULL";
-		NativeSql.on(database).query(query, rs -> {
-			var ownerId = rs.getLong(1);
-			var actualOwnerId = mediator.apply(ownerId);
-			if (actualOwnerId == null)
+		for (var q : queriesOf(query, where("f_owner", ownerIds))) {
+			NativeSql.on(database).query(q, rs -> {
+				var ownerId = rs.getLong(1);
+				var actualOwnerId = owners.get(ownerId);
+				if (actualOwnerId == null)
+					return true;
+				var name = rs.getString(2);
+				var parameterId = nameToParameter.get(name);
+				if (parameterId != null) {
+					putRef(ownerType, actualOwnerId, ModelType.PARAMETER, parameterId);
+				}
 				return true;
-			var name = rs.getString(2);
-			var parameterId = nameToParameter.get(name);
-			putRef(ownerType, ownerId, ModelType.PARAMETER, parameterId);
-			return true;
-		});
+			});
+		}
 	}
 
-	private void scanTable(String table, boolean isRootEntity, ModelField source, ModelField... targets) {
-		scanTable(table, isRootEntity, null, source, targets);
+	private void scanTable(String table, boolean isRootEntity, Filter filter, ModelField source,
+			ModelField... targets) {
+		scanTable(table, isRootEntity, null, filter, source, targets);
 	}
 
 	/**
@@ -282,38 +558,40 @@ class ModelReferences {
 	 * the value of source.field and value of idField is returned, otherwise an
 	 * empty map
 	 */
-	private Map<Long, Long> scanTable(String table, boolean isRootEntity, String idField, ModelField source,
-			ModelField... targets) {
+	private Map<Long, Long> scanTable(String table, boolean isRootEntity, String idField, Filter filter,
+			ModelField source, ModelField... targets) {
 		var targetFields = targets != null
 				? Arrays.stream(targets).map(t -> t.field).toArray(n -> new String[n])
 				: new String[0];
 		var map = new HashMap<Long, Long>();
-		query(table, isRootEntity, source, idField, targetFields, ids -> {
+		query(table, isRootEntity, source, idField, targetFields, filter, ids -> {
 			var col = 0;
-			var sourceId = ids[col++];
+			Long sourceId = ids[col++];
 			if (idField != null) {
 				map.put(ids[col++], sourceId);
 			}
 			if (source.mediator != null) {
 				sourceId = source.mediator.apply(sourceId);
 			}
-			if (targets == null)
+			if (sourceId == null || targets == null)
 				return;
 			for (var target : targets) {
-				var targetId = ids[col++];
+				Long targetId = ids[col++];
 				if (targetId == 0l)
 					continue;
 				if (target.mediator != null) {
 					targetId = target.mediator.apply(targetId);
 				}
-				putRef(source.type, sourceId, target.type, targetId);
+				if (targetId != null) {
+					putRef(source.type, sourceId, target.type, targetId);
+				}
 			}
 		});
 		return map;
 	}
 
 	private void query(String table, boolean isRootEntity, ModelField sourceField, String idField, String[] targets,
-			ResultHandler handler) {
+			Filter filter, ResultHandler handler) {
 		var fields = new ArrayList<String>();
 		fields.add(sourceField.field);
 		if (idField != null) {
@@ -321,21 +599,55 @@ class ModelReferences {
 		}
 		fields.addAll(Arrays.asList(targets));
 		var query = "SELECT " + fields.stream().collect(Collectors.joining(","))
-				+ (isRootEntity ? ",ref_id " : "")
+				+ (isRootEntity ? ",ref_id,version,last_change " : "")
 				+ " FROM " + table;
-		NativeSql.on(database).query(query, rs -> {
-			var ids = new long[fields.size()];
-			for (var i = 0; i < fields.size(); i++) {
-				ids[i] += rs.getLong(i + 1);
-			}
-			var id = ids[0];
-			if (isRootEntity) {
-				var refId = rs.getString(fields.size() + 1);
-				putRefId(sourceField.type, id, refId);
-			}
-			handler.handle(ids);
-			return true;
-		});
+		for (var q : queriesOf(query, filter)) {
+			NativeSql.on(database).query(q, rs -> {
+				var ids = new long[fields.size()];
+				for (var i = 0; i < fields.size(); i++) {
+					ids[i] += rs.getLong(i + 1);
+				}
+				var id = ids[0];
+				if (isRootEntity) {
+					var refId = rs.getString(fields.size() + 1);
+					putRefId(sourceField.type, id, refId);
+					putStamp(sourceField.type, id,
+							rs.getLong(fields.size() + 2), rs.getLong(fields.size() + 3));
+				}
+				handler.handle(ids);
+				return true;
+			});
+		}
+	}
+
+	private Filter where(String field, long[] ids) {
+		return ids != null ? new Filter(field, ids) : null;
+	}
+
+	/**
+	 * Returns the queries for the given filter: the query itself if there is
+	 * no filter, otherwise one query for each chunk of the filter IDs.
+	 */
+	private List<String> queriesOf(String query, Filter filter) {
+		if (filter == null)
+			return List.of(query);
+		var queries = new ArrayList<String>();
+		var op = query.contains(" WHERE ") ? " AND " : " WHERE ";
+		for (var i = 0; i < filter.ids.length; i += MAX_IN_SIZE) {
+			var end = Math.min(i + MAX_IN_SIZE, filter.ids.length);
+			var ids = Arrays.stream(filter.ids, i, end)
+					.mapToObj(Long::toString)
+					.collect(Collectors.joining(","));
+			queries.add(query + op + filter.field + " IN (" + ids + ")");
+		}
+		return queries;
+	}
+
+	private long[] keysOf(Map<Long, Long> map) {
+		return map.keySet().stream()
+				.mapToLong(Long::longValue)
+				.filter(id -> id != 0)
+				.toArray();
 	}
 
 	private void putRef(ModelType sourceType, long sourceId, ModelType targetType, long targetId) {
@@ -350,10 +662,130 @@ class ModelReferences {
 	}
 
 	private void putRefId(ModelType type, long id, String refId) {
-		refIdToId.put(new TypedRefId(type, refId), id);
+		if (refId == null)
+			return;
+		refIdToId.computeIfAbsent(type, t -> new HashMap<>()).put(refId, id);
 		idToRefId.computeIfAbsent(type, t -> new HashMap<>()).put(id, refId);
 	}
 
+	private void putStamp(ModelType type, long id, long version, long lastChange) {
+		stamps.computeIfAbsent(type, t -> new TLongLongHashMap())
+				.put(id, stampOf(version, lastChange));
+	}
+
+	private static long stampOf(long version, long lastChange) {
+		return version * 31 + lastChange * 0x9E3779B97F4A7C15L;
+	}
+
+	private File file() {
+		return fileOf(database);
+	}
+
+	private static File fileOf(IDatabase database) {
+		var dir = Repository.gitDir(database.getName());
+		return dir.isDirectory() ? new File(dir, FILE_NAME) : null;
+	}
+
+	/**
+	 * Reads the index from its file. Returns false if there is no such file
+	 * or if it could not be read; the index is then empty.
+	 */
+	private boolean read() {
+		var file = file();
+		if (file == null || !file.exists())
+			return false;
+		try (var in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != FORMAT_VERSION)
+				return false;
+			var typeCount = in.readInt();
+			for (var i = 0; i < typeCount; i++) {
+				var type = ModelType.valueOf(in.readUTF());
+				var count = in.readInt();
+				for (var j = 0; j < count; j++) {
+					var id = in.readLong();
+					putRefId(type, id, in.readUTF());
+					stamps.computeIfAbsent(type, t -> new TLongLongHashMap())
+							.put(id, in.readLong());
+				}
+			}
+			var sourceCount = in.readInt();
+			for (var i = 0; i < sourceCount; i++) {
+				var sourceType = ModelType.valueOf(in.readUTF());
+				var sourceId = in.readLong();
+				var targetTypeCount = in.readInt();
+				for (var j = 0; j < targetTypeCount; j++) {
+					var targetType = ModelType.valueOf(in.readUTF());
+					var count = in.readInt();
+					for (var k = 0; k < count; k++) {
+						putRef(sourceType, sourceId, targetType, in.readLong());
+					}
+				}
+			}
+			return true;
+		} catch (IOException | IllegalArgumentException e) {
+			log.warn("Could not read reference index " + file + ", scanning database", e);
+			refIdToId.clear();
+			idToRefId.clear();
+			stamps.clear();
+			references.clear();
+			usages.clear();
+			return false;
+		}
+	}
+
+	private void write() {
+		var file = file();
+		if (file == null)
+			return;
+		var tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+		try (var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(idToRefId.size());
+			for (var e : idToRefId.entrySet()) {
+				var type = e.getKey();
+				var typeStamps = stamps.get(type);
+				out.writeUTF(type.name());
+				out.writeInt(e.getValue().size());
+				for (var ref : e.getValue().entrySet()) {
+					out.writeLong(ref.getKey());
+					out.writeUTF(ref.getValue());
+					out.writeLong(typeStamps != null ? typeStamps.get(ref.getKey()) : 0);
+				}
+			}
+			var sourceCount = 0;
+			for (var typeRefs : references.values()) {
+				sourceCount += typeRefs.size();
+			}
+			out.writeInt(sourceCount);
+			for (var typeRefs : references.entrySet()) {
+				for (var sourceRefs : typeRefs.getValue().entrySet()) {
+					out.writeUTF(typeRefs.getKey().name());
+					out.writeLong(sourceRefs.getKey());
+					out.writeInt(sourceRefs.getValue().size());
+					for (var targets : sourceRefs.getValue().entrySet()) {
+						out.writeUTF(targets.getKey().name());
+						out.writeInt(targets.getValue().size());
+						for (var targetId : targets.getValue()) {
+							out.writeLong(targetId);
+						}
+					}
+				}
+			}
+		} catch (IOException e) {
+			log.error("Failed to write reference index " + file, e);
+			tmp.delete();
+			return;
+		}
+		try {
+			Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			log.error("Failed to write reference index " + file, e);
+		}
+	}
+
+	private record Filter(String field, long[] ids) {
+	}
+
 	private class ModelField {
 
 		private final ModelType type;
@@ -36,7 +36,7 @@ class ReferenceCheck {
 		this.diffs = TypeRefIdMap.of(all);
 		this.input = input;
 		this.selection = new TypeRefIdSet(input);
-		this.references = App.exec("Collecting references", () -> ModelReferences.scan(Database.get()));
+		this.references = App.exec("Collecting references", () -> ModelReferences.of(Database.get()));
 	}
 
 	static Set<TriDiff> forRemote(IDatabase database, List<Diff> all, Set<TriDiff> input) {
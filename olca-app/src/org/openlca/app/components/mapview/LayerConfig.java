@@ -1,5 +1,8 @@
 package org.openlca.app.components.mapview;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.eclipse.swt.graphics.Color;
 import org.openlca.app.util.Colors;
 import org.openlca.geo.geojson.Feature;
@@ -16,6 +19,18 @@ public class LayerConfig {
 
 	private String fillParameter;
 
+	/**
+	 * The projections of the layer for the most recently used zoom levels.
+	 */
+	private final Map<Integer, ProjectedLayer> projections =
+			new LinkedHashMap<>(8, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(
+						Map.Entry<Integer, ProjectedLayer> eldest) {
+					return size() > 4;
+				}
+			};
+
 	LayerConfig(FeatureCollection layer) {
 		this.layer = layer;
 	}
@@ -90,6 +105,16 @@ public class LayerConfig {
 		return center;
 	}
 
+	/**
+	 * Returns the projection of the layer for the given zoom level. The
+	 * projection is cached so that zooming back and forth does not project
+	 * the layer again.
+	 */
+	ProjectedLayer projection(int zoom) {
+		return projections.computeIfAbsent(
+				zoom, z -> ProjectedLayer.of(this, z));
+	}
+
 	private static class ColorScale {
 
 		private final double refVal;
@@ -2,7 +2,9 @@ package org.openlca.app.components.mapview;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 
 import org.eclipse.swt.SWT;
@@ -10,6 +12,7 @@ import org.eclipse.swt.events.MouseAdapter;
 import org.eclipse.swt.events.MouseEvent;
 import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.GC;
+import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.graphics.Rectangle;
 import org.eclipse.swt.widgets.Canvas;
 import org.eclipse.swt.widgets.Composite;
@@ -17,28 +20,42 @@ import org.eclipse.swt.widgets.Display;
 import org.openlca.app.util.Colors;
 import org.openlca.geo.calc.Bounds;
 import org.openlca.geo.calc.WebMercator;
-import org.openlca.geo.geojson.Feature;
 import org.openlca.geo.geojson.FeatureCollection;
 import org.openlca.geo.geojson.GeoJSON;
-import org.openlca.geo.geojson.Geometry;
-import org.openlca.geo.geojson.GeometryCollection;
-import org.openlca.geo.geojson.LineString;
-import org.openlca.geo.geojson.MultiLineString;
-import org.openlca.geo.geojson.MultiPoint;
-import org.openlca.geo.geojson.MultiPolygon;
 import org.openlca.geo.geojson.Point;
-import org.openlca.geo.geojson.Polygon;
 import org.openlca.util.BinUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class MapView {
 
+	/** The width and height of a rendered map tile in pixels. */
+	private static final int TILE_SIZE = 256;
+
+	/** The maximum number of cached map tiles. */
+	private static final int MAX_TILES = 256;
+
 	private final Canvas canvas;
 	private final Color white;
 
 	private List<LayerConfig> layers = new ArrayList<>();
-	private List<FeatureCollection> projections = new ArrayList<>();
+	private List<ProjectedLayer> projections = new ArrayList<>();
+
+	/**
+	 * The rendered map tiles of the most recently used zoom levels and
+	 * positions. The tiles are cleared when the layers of the map change.
+	 */
+	private final Map<TileKey, Image> tiles =
+			new LinkedHashMap<>(64, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(
+						Map.Entry<TileKey, Image> eldest) {
+					if (size() <= MAX_TILES)
+						return false;
+					eldest.getValue().dispose();
+					return true;
+				}
+			};
 
 	private final Translation translation = new Translation();
 	private int zoom = 0;
@@ -47,6 +64,7 @@ public class MapView {
 		this.canvas = new Canvas(parent, SWT.NONE);
 		this.white = canvas.getDisplay().getSystemColor(SWT.COLOR_WHITE);
 		canvas.addPaintListener(e -> render(e.gc));
+		canvas.addDisposeListener(e -> clearTiles());
 
 		// add mouse listeners
 		canvas.addMouseWheelListener(e -> {
@@ -61,6 +79,7 @@ public class MapView {
 	}
 
 	public void update() {
+		clearTiles();
 		canvas.redraw();
 		canvas.update();
 	}
@@ -84,15 +103,14 @@ public class MapView {
 	private void projectLayers() {
 		projections.clear();
 		for (LayerConfig config : layers) {
-			FeatureCollection projection = WebMercator.project(
-					config.layer, zoom);
-			projections.add(projection);
+			projections.add(config.projection(zoom));
 		}
 	}
 
 	public LayerConfig addLayer(FeatureCollection layer) {
 		LayerConfig config = new LayerConfig(layer);
 		layers.add(config);
+		clearTiles();
 		return config;
 	}
 
@@ -101,6 +119,7 @@ public class MapView {
 			return;
 		layers.remove(config);
 		projections.clear();
+		clearTiles();
 	}
 
 	public void addBaseLayers() {
@@ -192,100 +211,115 @@ public class MapView {
 		if (projections.isEmpty())
 			return;
 
-		for (int i = 0; i < projections.size(); i++) {
-			LayerConfig config = layers.get(i);
-			gc.setForeground(config.getBorderColor());
-			FeatureCollection projection = projections.get(i);
-			for (Feature f : projection.features) {
-				if (!translation.visible(f)) {
-					continue;
-				}
-				render(gc, config, f, f.geometry);
+		// draw the visible tiles of the map; the tiles are rendered
+		// off-screen and cached so that they can be reused when the
+		// map is moved or zoomed back to a previous level
+		int dx = (int) Math.floor(translation.x);
+		int dy = (int) Math.floor(translation.y);
+		int max = (1 << zoom) - 1;
+		int minTx = Math.max(0, Math.floorDiv(-dx, TILE_SIZE));
+		int maxTx = Math.min(max,
+				Math.floorDiv(canvasSize.width - dx - 1, TILE_SIZE));
+		int minTy = Math.max(0, Math.floorDiv(-dy, TILE_SIZE));
+		int maxTy = Math.min(max,
+				Math.floorDiv(canvasSize.height - dy - 1, TILE_SIZE));
+		for (int ty = minTy; ty <= maxTy; ty++) {
+			for (int tx = minTx; tx <= maxTx; tx++) {
+				Image tile = tileOf(tx, ty);
+				gc.drawImage(tile, tx * TILE_SIZE + dx, ty * TILE_SIZE + dy);
 			}
 		}
 	}
 
-	private void render(GC gc, LayerConfig conf, Feature f, Geometry g) {
-		if (g == null)
-			return;
-
-		// points
-		if (g instanceof Point) {
-			renderPoint(gc, conf, f, (Point) g);
-			return;
-		}
-		if (g instanceof MultiPoint) {
-			MultiPoint mp = (MultiPoint) g;
-			for (Point p : mp.points) {
-				renderPoint(gc, conf, f, p);
+	private Image tileOf(int tx, int ty) {
+		var key = new TileKey(zoom, tx, ty);
+		var tile = tiles.get(key);
+		if (tile != null && !tile.isDisposed())
+			return tile;
+		tile = new Image(canvas.getDisplay(), TILE_SIZE, TILE_SIZE);
+		var gc = new GC(tile);
+		try {
+			gc.setBackground(white);
+			gc.fillRectangle(0, 0, TILE_SIZE, TILE_SIZE);
+			int x = tx * TILE_SIZE;
+			int y = ty * TILE_SIZE;
+
+			// points and lines are drawn with a size that depends on the
+			// zoom level, thus their bounds are extended by this size
+			int margin = 6 + zoom;
+			for (ProjectedLayer projection : projections) {
+				LayerConfig config = projection.config;
+				gc.setForeground(config.getBorderColor());
+				for (ProjectedLayer.Item item : projection.items) {
+					if (!item.intersects(x, y, TILE_SIZE, TILE_SIZE, margin))
+						continue;
+					render(gc, config, item, -x, -y);
+				}
 			}
-			return;
+		} finally {
+			gc.dispose();
 		}
+		tiles.put(key, tile);
+		return tile;
+	}
 
-		// lines
-		if (g instanceof LineString) {
-			renderLine(gc, conf, f, (LineString) g);
-			return;
-		}
-		if (g instanceof MultiLineString) {
-			MultiLineString ml = (MultiLineString) g;
-			for (LineString line : ml.lineStrings) {
-				renderLine(gc, conf, f, line);
+	private void clearTiles() {
+		for (Image tile : tiles.values()) {
+			if (!tile.isDisposed()) {
+				tile.dispose();
 			}
-			return;
 		}
+		tiles.clear();
+	}
 
-		// polygons
-		if (g instanceof Polygon) {
-			renderPolygon(gc, conf, f, (Polygon) g);
-			return;
+	private void render(GC gc, LayerConfig conf,
+			ProjectedLayer.Item item, int dx, int dy) {
+		Color fillColor = conf.getFillColor(item.feature);
+		for (int[] polygon : item.polygons) {
+			renderPolygon(gc, fillColor, translate(polygon, dx, dy));
 		}
-		if (f.geometry instanceof MultiPolygon) {
-			MultiPolygon mp = (MultiPolygon) f.geometry;
-			for (Polygon polygon : mp.polygons) {
-				renderPolygon(gc, conf, f, polygon);
-			}
-			return;
+		for (int[] line : item.lines) {
+			renderLine(gc, translate(line, dx, dy));
+		}
+		for (int[] point : item.points) {
+			if (point.length < 2)
+				continue;
+			renderPoint(gc, fillColor, point[0] + dx, point[1] + dy);
 		}
+	}
 
-		if (g instanceof GeometryCollection) {
-			GeometryCollection coll = (GeometryCollection) g;
-			for (Geometry gg : coll.geometries) {
-				render(gc, conf, f, gg);
-			}
+	private int[] translate(int[] seq, int dx, int dy) {
+		int[] translated = new int[seq.length];
+		for (int i = 0; i < seq.length; i += 2) {
+			translated[i] = seq[i] + dx;
+			translated[i + 1] = seq[i + 1] + dy;
 		}
+		return translated;
 	}
 
-	private void renderPolygon(GC gc, LayerConfig conf, Feature f, Polygon polygon) {
-		int[] points = translation.translate(polygon);
-		Color fillColor = conf.getFillColor(f);
+	private void renderPolygon(GC gc, Color fillColor, int[] points) {
 		if (fillColor != null) {
 			gc.setBackground(fillColor);
 			gc.setAlpha(fillColor.getAlpha());
 			gc.fillPolygon(points);
 			gc.setAlpha(255);
 		}
-		// TODO: fill inner rings as white polygons
-		// overlapping features can anyhow cause problems
 		gc.drawPolygon(points);
 	}
 
-	private void renderLine(GC gc, LayerConfig conf, Feature f, LineString line) {
-		int[] points = translation.translate(line);
+	private void renderLine(GC gc, int[] points) {
 		gc.setLineWidth(5 + zoom);
 		gc.drawPolyline(points);
 		gc.setLineWidth(1);
 	}
 
-	private void renderPoint(GC gc, LayerConfig conf, Feature f, Point point) {
-		int[] p = translation.translate(point);
-		Color fillColor = conf.getFillColor(f);
+	private void renderPoint(GC gc, Color fillColor, int x, int y) {
 		int r = 5 + zoom;
 		if (fillColor != null) {
 			gc.setBackground(fillColor);
-			gc.fillOval(p[0], p[1], r, r);
+			gc.fillOval(x, y, r, r);
 		} else {
-			gc.drawOval(p[0], p[1], r, r);
+			gc.drawOval(x, y, r, r);
 		}
 	}
 
@@ -309,11 +343,6 @@ public class MapView {
 		 */
 		final Point center = new Point();
 
-		/**
-		 * The projected pixel area that is visible on the canvas.
-		 */
-		final Bounds view = new Bounds();
-
 		void update(Rectangle canvasSize, int zoom) {
 			Point t = center.copy();
 			WebMercator.apply(t, zoom);
@@ -321,11 +350,6 @@ public class MapView {
 			double cHeight = canvasSize.height / 2.0;
 			x = cWidth - t.x;
 			y = cHeight - t.y;
-			view.minX = t.x - cWidth;
-			view.maxX = t.x + cWidth;
-			view.minY = t.y - cHeight;
-			view.maxY = t.y + cHeight;
-			view.isNil = false;
 		}
 
 		void updateCenter(int canvasX, int canvasY, int zoom) {
@@ -336,40 +360,6 @@ public class MapView {
 			center.x = c.x;
 			center.y = c.y;
 		}
-
-		boolean visible(Feature f) {
-			if (f == null || f.geometry == null)
-				return false;
-			Bounds bounds = Bounds.of(f.geometry);
-			return bounds.intersects(view);
-		}
-
-		int[] translate(Polygon polygon) {
-			if (polygon == null || polygon.rings.size() < 1)
-				return new int[0];
-			LineString ring = polygon.rings.get(0);
-			return translate(ring);
-		}
-
-		int[] translate(LineString line) {
-			if (line == null)
-				return new int[0];
-			int[] seq = new int[line.points.size() * 2];
-			for (int i = 0; i < line.points.size(); i++) {
-				Point p = line.points.get(i);
-				seq[2 * i] = (int) (p.x + x);
-				seq[2 * i + 1] = (int) (p.y + y);
-			}
-			return seq;
-		}
-
-		int[] translate(Point point) {
-			if (point == null)
-				return new int[] { 0, 0 };
-			return new int[] {
-					(int) (point.x + x),
-					(int) (point.y + y) };
-		}
 	}
 
 	private class DragSupport extends MouseAdapter {
@@ -403,4 +393,7 @@ public class MapView {
 			canvas.setCursor(display.getSystemCursor(c));
 		}
 	}
+
+	private record TileKey(int zoom, int x, int y) {
+	}
 }
@@ -0,0 +1,172 @@
+package org.openlca.app.components.mapview;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openlca.geo.calc.WebMercator;
+import org.openlca.geo.geojson.Feature;
+import org.openlca.geo.geojson.FeatureCollection;
+import org.openlca.geo.geojson.Geometry;
+import org.openlca.geo.geojson.GeometryCollection;
+import org.openlca.geo.geojson.LineString;
+import org.openlca.geo.geojson.MultiLineString;
+import org.openlca.geo.geojson.MultiPoint;
+import org.openlca.geo.geojson.MultiPolygon;
+import org.openlca.geo.geojson.Point;
+import org.openlca.geo.geojson.Polygon;
+
+/**
+ * The features of a layer projected to the pixel space of a zoom level. The
+ * coordinates are rounded to pixels and consecutive points that fall into
+ * the same pixel are dropped, which simplifies the geometries to the detail
+ * that can be displayed on that zoom level. Each projected feature carries
+ * its pixel bounds so that features outside of a drawing area can be skipped
+ * without looking at their coordinates.
+ */
+class ProjectedLayer {
+
+	final LayerConfig config;
+	final int zoom;
+	final List<Item> items;
+
+	private ProjectedLayer(LayerConfig config, int zoom, int size) {
+		this.config = config;
+		this.zoom = zoom;
+		this.items = new ArrayList<>(size);
+	}
+
+	static ProjectedLayer of(LayerConfig config, int zoom) {
+		FeatureCollection layer = config.layer;
+		int size = layer != null ? layer.features.size() : 0;
+		var projected = new ProjectedLayer(config, zoom, size);
+		if (layer == null)
+			return projected;
+		var projector = new Projector(zoom);
+		for (Feature f : layer.features) {
+			if (f == null || f.geometry == null)
+				continue;
+			var item = new Item(f);
+			projector.project(item, f.geometry);
+			if (!item.isEmpty()) {
+				projected.items.add(item);
+			}
+		}
+		return projected;
+	}
+
+	/**
+	 * A projected feature. The polygons (outer rings) and lines are stored as
+	 * point sequences {@code [x1, y1, x2, y2, ...]} in projected pixels.
+	 */
+	static class Item {
+
+		final Feature feature;
+		final List<int[]> polygons = new ArrayList<>(1);
+		final List<int[]> lines = new ArrayList<>(0);
+		final List<int[]> points = new ArrayList<>(0);
+
+		int minX = Integer.MAX_VALUE;
+		int minY = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE;
+		int maxY = Integer.MIN_VALUE;
+
+		private Item(Feature feature) {
+			this.feature = feature;
+		}
+
+		boolean isEmpty() {
+			return polygons.isEmpty() && lines.isEmpty() && points.isEmpty();
+		}
+
+		/**
+		 * Returns true when the bounds of this item, extended by the given
+		 * margin, intersect with the given rectangle.
+		 */
+		boolean intersects(int x, int y, int width, int height, int margin) {
+			return maxX + margin >= x
+					&& minX - margin <= x + width
+					&& maxY + margin >= y
+					&& minY - margin <= y + height;
+		}
+
+		private void extend(int x, int y) {
+			minX = Math.min(minX, x);
+			minY = Math.min(minY, y);
+			maxX = Math.max(maxX, x);
+			maxY = Math.max(maxY, y);
+		}
+	}
+
+	private static class Projector {
+
+		private final int zoom;
+		private final Point p = new Point();
+
+		Projector(int zoom) {
+			this.zoom = zoom;
+		}
+
+		void project(Item item, Geometry g) {
+			if (g == null)
+				return;
+			if (g instanceof Point point) {
+				item.points.add(sequence(item, List.of(point)));
+			} else if (g instanceof MultiPoint mp) {
+				for (Point point : mp.points) {
+					item.points.add(sequence(item, List.of(point)));
+				}
+			} else if (g instanceof LineString line) {
+				item.lines.add(sequence(item, line.points));
+			} else if (g instanceof MultiLineString ml) {
+				for (LineString line : ml.lineStrings) {
+					item.lines.add(sequence(item, line.points));
+				}
+			} else if (g instanceof Polygon polygon) {
+				addPolygon(item, polygon);
+			} else if (g instanceof MultiPolygon mp) {
+				for (Polygon polygon : mp.polygons) {
+					addPolygon(item, polygon);
+				}
+			} else if (g instanceof GeometryCollection coll) {
+				for (Geometry gg : coll.geometries) {
+					project(item, gg);
+				}
+			}
+		}
+
+		private void addPolygon(Item item, Polygon polygon) {
+			// TODO: fill inner rings as white polygons
+			// overlapping features can anyhow cause problems
+			if (polygon == null || polygon.rings.size() < 1)
+				return;
+			LineString ring = polygon.rings.get(0);
+			if (ring != null) {
+				item.polygons.add(sequence(item, ring.points));
+			}
+		}
+
+		private int[] sequence(Item item, List<Point> points) {
+			int[] seq = new int[points.size() * 2];
+			int n = 0;
+			for (Point point : points) {
+				if (point == null)
+					continue;
+				p.x = point.x;
+				p.y = point.y;
+				WebMercator.apply(p, zoom);
+				int x = (int) p.x;
+				int y = (int) p.y;
+				if (n > 0 && seq[n - 2] == x && seq[n - 1] == y)
+					continue;
+				seq[n++] = x;
+				seq[n++] = y;
+				item.extend(x, y);
+			}
+			if (n == seq.length)
+				return seq;
+			int[] simplified = new int[n];
+			System.arraycopy(seq, 0, simplified, 0, n);
+			return simplified;
+		}
+	}
+}
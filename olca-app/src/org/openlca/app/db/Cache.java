@@ -2,6 +2,7 @@ package org.openlca.app.db;
 
 import java.util.Objects;
 
+import org.openlca.app.navigation.DescriptorCache;
 import org.openlca.core.database.EntityCache;
 import org.openlca.core.database.IDatabase;
 import org.openlca.core.matrix.cache.MatrixCache;
@@ -71,6 +72,7 @@ public final class Cache {
 		if (d == null)
 			return;
 		log.trace("evict {} with ID {}", d.getClass(), d.id);
+		DescriptorCache.reload(d);
 		if (d.type == null)
 			evictAll(); // to be on the save side
 		else if (shouldEvictAll(d.type)) {
@@ -98,6 +100,7 @@ public final class Cache {
 		if (matrixCache != null) {
 			matrixCache.evictAll();
 		}
+		DescriptorCache.clear();
 		pathCache = null;
 	}
 
@@ -125,6 +128,7 @@ public final class Cache {
 	}
 
 	public static void registerNew(Descriptor descriptor) {
+		DescriptorCache.reload(descriptor);
 		if (matrixCache == null)
 			return;
 		log.trace("register new model {}", descriptor);
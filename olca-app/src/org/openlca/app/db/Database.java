@@ -3,6 +3,7 @@ package org.openlca.app.db;
 import java.io.File;
 import java.util.Objects;
 
+import org.openlca.app.editors.lcia.geo.GeometryCache;
 import org.openlca.app.navigation.CopyPaste;
 import org.openlca.app.rcp.Workspace;
 import org.openlca.app.util.ErrorReporter;
@@ -64,8 +65,10 @@ public class Database {
 	public static void close() throws Exception {
 		if (database == null)
 			return;
+		listener.getWorkspaceIdUpdater().flush();
 		Cache.close();
 		CopyPaste.clearCache();
+		GeometryCache.clear();
 		database.close();
 		database = null;
 		listener = null;
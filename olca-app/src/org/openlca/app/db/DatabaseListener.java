@@ -1,6 +1,7 @@
 package org.openlca.app.db;
 
 import org.eclipse.jgit.lib.ObjectId;
+import org.openlca.app.navigation.DescriptorCache;
 import org.openlca.core.database.IDatabaseListener;
 import org.openlca.core.model.descriptors.Descriptor;
 import org.openlca.core.model.descriptors.RootDescriptor;
@@ -15,12 +16,14 @@ class DatabaseListener implements IDatabaseListener {
 
 	@Override
 	public void modelInserted(Descriptor descriptor) {
+		DescriptorCache.put(descriptor);
 		if (descriptor instanceof RootDescriptor d)
 			workspaceIdsUpdater.remove(d);
 	}
 
 	@Override
 	public void modelUpdated(Descriptor descriptor) {
+		DescriptorCache.put(descriptor);
 		if (descriptor instanceof RootDescriptor d) {
 			workspaceIdsUpdater.remove(d);
 		}
@@ -28,6 +31,7 @@ class DatabaseListener implements IDatabaseListener {
 
 	@Override
 	public void modelDeleted(Descriptor descriptor) {
+		DescriptorCache.remove(descriptor);
 		if (descriptor instanceof RootDescriptor d) {
 			var previousId = getPreviousId(d);
 			workspaceIdsUpdater.remove(d);
@@ -1,90 +1,112 @@
 package org.openlca.app.db;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
+import org.eclipse.core.runtime.jobs.Job;
 import org.openlca.core.model.ModelType;
 import org.openlca.core.model.descriptors.RootDescriptor;
 import org.openlca.git.util.Diffs;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Invalidates the workspace object IDs of changed models. The invalidation
+ * itself is done directly in memory, but writing the object ID store and
+ * restoring the IDs of parent categories is expensive. Thus, this is done
+ * with a short delay (or at the end of a transaction) for all changes that
+ * were collected until then, so that bulk operations on a connected database
+ * do not write the store or compute the diffs for every single model.
+ */
 public class WorkspaceIdUpdater {
 
+	private static final long FLUSH_DELAY = 1000;
+
+	private final Job flushJob = Job.createSystem(
+			"Flush workspace ids", monitor -> flush());
+	private final Set<String> restorePaths = new LinkedHashSet<>();
 	private boolean disabled;
 	private boolean inTransaction;
+	private boolean dirty;
 
-	public void beginTransaction() {
+	public synchronized void beginTransaction() {
 		// no multitransaction support implemented
 		if (inTransaction)
 			throw new IllegalStateException("A transaction is already running");
 		inTransaction = true;
 	}
 
-	public void endTransaction() {
+	public synchronized void endTransaction() {
 		if (!inTransaction)
 			throw new IllegalStateException("No transaction running");
-		flushObjectIdStore();
 		inTransaction = false;
+		flush();
 	}
 
-	public void disable() {
+	/**
+	 * Disables the updater, e.g. while the repository is updating the
+	 * workspace IDs itself. Pending changes are flushed before.
+	 */
+	public synchronized void disable() {
+		flush();
 		disabled = true;
 	}
 
-	public void enable() {
+	public synchronized void enable() {
 		disabled = false;
 	}
 
-	public void remove(RootDescriptor descriptor) {
+	public synchronized void remove(RootDescriptor descriptor) {
 		if (disabled || !Repository.isConnected())
 			return;
 		var workspaceIds = Repository.get().workspaceIds;
 		var path = workspaceIds.getPath(Cache.getPathCache(), descriptor);
 		workspaceIds.invalidate(path);
-		if (inTransaction)
-			return;
-		flushObjectIdStore();
+		dirty = true;
+		scheduleFlush();
 	}
 
 	/**
 	 * if a new model is created, the parent categories will be invalidated, if
 	 * the new model is deleted the parent categories will still be invalidated,
-	 * so we need to restore the previous object id
+	 * so we need to restore the previous object id. The paths are collected
+	 * and restored when the changes are flushed.
 	 */
-	public void restoreParents(ModelType type, Long id) {
+	public synchronized void restoreParents(ModelType type, Long id) {
 		if (disabled || !Repository.isConnected())
 			return;
-		var repo = Repository.get();
-		var commit = repo.commits.head();
-		var workspaceIds = repo.workspaceIds;
 		var path = type.name();
 		if (id != null) {
 			path += "/" + Cache.getPathCache().pathOf(id);
 		}
-		while (true) {
-			var diffs = Diffs.of(repo.git).filter(Collections.singletonList(path)).with(Database.get(), workspaceIds);
-			if (!diffs.isEmpty())
-				break;
-			if (path.equals("")) {
-				workspaceIds.put("", workspaceIds.getHead(""));
-				break;
-			}
-			if (commit != null) {
-				var entry = repo.entries.get(path, commit.id);
-				if (entry != null) {
-					workspaceIds.put(path, entry.objectId);
-				}
-			}
-			path = path.contains("/") ? path.substring(0, path.lastIndexOf("/")) : "";
-		}
+		restorePaths.add(path);
+		dirty = true;
+		scheduleFlush();
+	}
+
+	private void scheduleFlush() {
 		if (inTransaction)
 			return;
-		flushObjectIdStore();
+		flushJob.schedule(FLUSH_DELAY);
 	}
 
-	private void flushObjectIdStore() {
-		if (!Repository.isConnected())
+	/**
+	 * Restores the collected parent paths and writes the object ID store if
+	 * there are pending changes.
+	 */
+	public synchronized void flush() {
+		if (!dirty)
+			return;
+		dirty = false;
+		if (!Repository.isConnected()) {
+			restorePaths.clear();
 			return;
+		}
+		restoreCollectedParents();
 		try {
 			Repository.get().workspaceIds.save();
 		} catch (IOException e) {
@@ -93,4 +115,42 @@ public class WorkspaceIdUpdater {
 		}
 	}
 
+	/**
+	 * Walks up from each collected path until a path with local changes is
+	 * found and restores the object IDs of the head commit on the way. The
+	 * deepest paths are restored first, and a path is only checked once, as
+	 * the diffs of a path do not depend on the restored IDs of its children.
+	 */
+	private void restoreCollectedParents() {
+		if (restorePaths.isEmpty())
+			return;
+		var paths = new ArrayList<>(restorePaths);
+		restorePaths.clear();
+		paths.sort(Comparator.comparingInt(
+				(String path) -> path.split("/").length).reversed());
+		var repo = Repository.get();
+		var commit = repo.commits.head();
+		var workspaceIds = repo.workspaceIds;
+		var visited = new HashSet<String>();
+		for (var restorePath : paths) {
+			var path = restorePath;
+			while (visited.add(path)) {
+				var diffs = Diffs.of(repo.git).filter(Collections.singletonList(path)).with(Database.get(), workspaceIds);
+				if (!diffs.isEmpty())
+					break;
+				if (path.equals("")) {
+					workspaceIds.put("", workspaceIds.getHead(""));
+					break;
+				}
+				if (commit != null) {
+					var entry = repo.entries.get(path, commit.id);
+					if (entry != null) {
+						workspaceIds.put(path, entry.objectId);
+					}
+				}
+				path = path.contains("/") ? path.substring(0, path.lastIndexOf("/")) : "";
+			}
+		}
+	}
+
 }
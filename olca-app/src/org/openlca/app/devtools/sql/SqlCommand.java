@@ -8,6 +8,8 @@ import java.sql.ResultSetMetaData;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.openlca.app.collaboration.navigation.actions.ModelReferences;
+import org.openlca.app.db.Cache;
 import org.openlca.core.database.IDatabase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -66,6 +68,8 @@ class SqlCommand {
 			con.commit();
 			log.info("{} rows updated", count);
 			database.getEntityFactory().getCache().evictAll();
+			Cache.evictAll();
+			ModelReferences.invalidate(database);
 			return count + " rows updated";
 		} catch (Exception e) {
 			return handleException(e);
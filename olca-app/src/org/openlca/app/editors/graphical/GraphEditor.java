@@ -22,7 +22,6 @@ import org.openlca.app.util.UI;
 import org.openlca.core.model.ProductSystem;
 import org.openlca.core.model.RootEntity;
 import org.openlca.core.model.Version;
-import org.openlca.jsonld.Json;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.Calendar;
@@ -30,8 +29,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
-import static org.openlca.app.editors.graphical.GraphFile.KEY_NODES;
-import static org.openlca.app.editors.graphical.GraphFile.KEY_STICKY_NOTES;
 import static org.openlca.app.editors.graphical.actions.MassExpansionAction.COLLAPSE;
 import static org.openlca.app.editors.graphical.actions.MassExpansionAction.EXPAND;
 import static org.openlca.app.editors.graphical.actions.SearchConnectorsAction.PROVIDER;
@@ -300,11 +297,8 @@ public class GraphEditor extends GraphicalEditorWithFrame {
 		systemEditor.updateModel();
 
 		// Create new nodes with the new config.
-		var rootObj = GraphFile.createJsonArray(this, getModel());
-		var nodeArray = Json.getArray(rootObj, KEY_NODES);
-		var stickyNoteArray = Json.getArray(rootObj, KEY_STICKY_NOTES);
-		var newGraph = getGraphFactory().createGraph(this, nodeArray,
-				stickyNoteArray);
+		var layout = GraphFile.contentOf(this, getModel());
+		var newGraph = getGraphFactory().createGraph(this, layout);
 
 		setModel(newGraph);
 		getGraphicalViewer().setContents(newGraph);
@@ -313,9 +307,8 @@ public class GraphEditor extends GraphicalEditorWithFrame {
 	}
 
 	public void onFirstActivation() {
-		var nodeArray = GraphFile.getLayout(this, KEY_NODES);
-		var stickyNoteArray = GraphFile.getLayout(this, KEY_STICKY_NOTES);
-		var graph = getGraphFactory().createGraph(this, nodeArray, stickyNoteArray);
+		var layout = GraphFile.read(this);
+		var graph = getGraphFactory().createGraph(this, layout);
 		setModel(graph);
 		getGraphicalViewer().setContents(graph);
 		getZoomManager().setZoom(config.zoom(), false);
@@ -1,9 +1,21 @@
 package org.openlca.app.editors.graphical;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import org.apache.commons.io.FileUtils;
 import org.eclipse.draw2d.geometry.Dimension;
 import org.eclipse.draw2d.geometry.Point;
@@ -13,9 +25,7 @@ import org.openlca.app.editors.graphical.layouts.StickyNoteLayoutInfo;
 import org.openlca.app.editors.graphical.model.Graph;
 import org.openlca.app.editors.graphical.model.MinMaxComponent;
 import org.openlca.app.editors.graphical.model.Node;
-import org.openlca.app.editors.graphical.model.StickyNote;
 import org.openlca.core.model.ProductSystem;
-import org.openlca.jsonld.Json;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,13 +36,30 @@ import static org.openlca.app.tools.graphics.model.Side.OUTPUT;
 
 /**
  * We save the current layout and some settings in an external file of the
- * database folder.
+ * database folder. The file is written and read as a stream, without creating
+ * a JSON tree of the whole layout, as it can contain tens of thousands of
+ * nodes.
  */
 public final class GraphFile {
 
 	static final String KEY_NODES = "nodes";
 	static final String KEY_STICKY_NOTES = "sticky-notes";
 
+	/**
+	 * The content of a layout file.
+	 *
+	 * @param config      the saved graph configuration, may be {@code null}
+	 * @param nodes       the layout information of the nodes, indexed by the
+	 *                    reference IDs of the processes or product systems in
+	 *                    the order of the file
+	 * @param stickyNotes the layout information of the sticky notes
+	 */
+	public record Content(
+			GraphConfig config,
+			Map<String, NodeLayoutInfo> nodes,
+			List<StickyNoteLayoutInfo> stickyNotes) {
+	}
+
 	private GraphFile() {
 	}
 
@@ -46,9 +73,15 @@ public final class GraphFile {
 		editor.config.setZoom(editor.getZoomManager().getZoom());
 		var viewLocation = editor.getZoomManager().getViewport().getViewLocation();
 		editor.config.setViewLocation(viewLocation);
-		var rootObj = createJsonArray(editor, graph);
 		try {
-			Json.write(rootObj, file(editor.getProductSystem()));
+			var file = file(editor.getProductSystem());
+			var tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+			try (var writer = new JsonWriter(Files.newBufferedWriter(
+					tmp.toPath(), StandardCharsets.UTF_8))) {
+				write(editor, graph, writer);
+			}
+			Files.move(tmp.toPath(), file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING);
 		} catch (Exception e) {
 			Logger log = LoggerFactory.getLogger(GraphFile.class);
 			log.error("Failed to save layout", e);
@@ -64,83 +97,122 @@ public final class GraphFile {
 		}
 	}
 
-	public static JsonObject createJsonArray(GraphEditor editor, Graph graph) {
+	private static void write(GraphEditor editor, Graph graph, JsonWriter w)
+			throws IOException {
+		w.beginObject();
+
 		// add config
-		var rootObj = new JsonObject();
-		rootObj.add(CONFIG_PROP, editor.config.toJson());
+		w.name(CONFIG_PROP);
+		new Gson().toJson(editor.config.toJson(), w);
 
 		// add component info's
-		var nodeArray = new JsonArray();
+		w.name(KEY_NODES).beginArray();
 		for (var node : graph.getNodes()) {
-			var nodeObj = toJson(node);
-			if (nodeObj != null)
-				nodeArray.add(nodeObj);
+			if (node == null || node.descriptor == null)
+				continue;
+			w.beginObject();
+			w.name("id").value(node.descriptor.refId);
+			writeLayoutProperties(w, node);
+			w.name("expandedLeft").value(node.isExpanded(INPUT));
+			w.name("expandedRight").value(node.isExpanded(OUTPUT));
+			w.endObject();
 		}
-		var stickyNoteArray = new JsonArray();
+		w.endArray();
+
+		w.name(KEY_STICKY_NOTES).beginArray();
 		for (var note : graph.getStickyNotes()) {
-			var noteObj = toJson(note);
-			if (noteObj != null)
-				stickyNoteArray.add(noteObj);
+			if (note == null)
+				continue;
+			w.beginObject();
+			w.name("title").value(note.title);
+			w.name("content").value(note.content);
+			writeLayoutProperties(w, note);
+			w.endObject();
 		}
-		rootObj.add(KEY_NODES, nodeArray);
-		rootObj.add(KEY_STICKY_NOTES, stickyNoteArray);
-		return rootObj;
-	}
+		w.endArray();
 
-	private static JsonObject toJson(Node node) {
-		if (node == null || node.descriptor == null)
-			return null;
-		var json = new JsonObject();
-		json.addProperty("id", node.descriptor.refId);
-
-		setLayoutProperties(json, node);
-		json.addProperty("expandedLeft", node.isExpanded(INPUT));
-		json.addProperty("expandedRight", node.isExpanded(OUTPUT));
-
-		return json;
+		w.endObject();
 	}
 
-	private static void setLayoutProperties(JsonObject json,
-		MinMaxComponent component) {
+	private static void writeLayoutProperties(JsonWriter w,
+		MinMaxComponent component) throws IOException {
 		var size = component.getSize();
 		if (size != null) {
-			json.addProperty("width",  size.width);
-			json.addProperty("height",  size.height);
+			w.name("width").value(size.width);
+			w.name("height").value(size.height);
 		}
 		var location = component.getLocation();
 		if (location != null) {
-			json.addProperty("x", location.x);
-			json.addProperty("y",  location.y);
+			w.name("x").value(location.x);
+			w.name("y").value(location.y);
 		}
-
-		json.addProperty("minimized", component.isMinimized());
+		w.name("minimized").value(component.isMinimized());
 	}
 
-	private static JsonObject toJson(StickyNote note) {
-		if (note == null)
-			return null;
-		var json = new JsonObject();
-		json.addProperty("title", note.title);
-		json.addProperty("content", note.content);
+	/**
+	 * Creates the layout content of the given graph directly, without writing
+	 * it to a file.
+	 */
+	public static Content contentOf(GraphEditor editor, Graph graph) {
+		var nodes = new LinkedHashMap<String, NodeLayoutInfo>();
+		for (var node : graph.getNodes()) {
+			if (node == null || node.descriptor == null)
+				continue;
+			var info = new NodeLayoutInfo();
+			info.id = node.descriptor.refId;
+			info.minimized = node.isMinimized();
+			info.location = locationOf(node);
+			info.size = sizeOf(node);
+			info.expandedLeft = node.isExpanded(INPUT);
+			info.expandedRight = node.isExpanded(OUTPUT);
+			nodes.put(info.id, info);
+		}
+		var notes = new ArrayList<StickyNoteLayoutInfo>();
+		for (var note : graph.getStickyNotes()) {
+			if (note == null)
+				continue;
+			var info = new StickyNoteLayoutInfo();
+			info.minimized = note.isMinimized();
+			info.location = locationOf(note);
+			info.size = sizeOf(note);
+			info.title = note.title;
+			info.content = note.content;
+			notes.add(info);
+		}
+		return new Content(editor.config, nodes, notes);
+	}
 
-		setLayoutProperties(json, note);
+	private static Point locationOf(MinMaxComponent component) {
+		var location = component.getLocation();
+		return location != null
+				? new Point(location.x, location.y)
+				: new Point(Integer.MAX_VALUE, Integer.MAX_VALUE);
+	}
 
-		return json;
+	private static Dimension sizeOf(MinMaxComponent component) {
+		var size = component.getSize();
+		return size != null
+				? new Dimension(size.width, size.height)
+				: new Dimension(Node.DEFAULT_SIZE.width, Node.DEFAULT_SIZE.height);
 	}
 
 	public static GraphConfig getGraphConfig(GraphEditor editor) {
-		try {
-			var file = GraphFile.file(editor.getProductSystem());
-			if (!file.exists())
-				return null;
-			var rootObj = Json.readObject(file)
-				.orElse(null);
-			if (rootObj == null)
+		var file = GraphFile.file(editor.getProductSystem());
+		if (!file.exists())
+			return null;
+		try (var reader = new JsonReader(Files.newBufferedReader(
+				file.toPath(), StandardCharsets.UTF_8))) {
+			if (reader.peek() != JsonToken.BEGIN_OBJECT)
 				return null;
-
-			// apply graph config
-			return GraphConfig.fromJson(
-				Json.getObject(rootObj, CONFIG_PROP));
+			reader.beginObject();
+			// the config is written first, so we can stop there
+			while (reader.hasNext()) {
+				var name = reader.nextName();
+				if (CONFIG_PROP.equals(name))
+					return readConfig(reader);
+				reader.skipValue();
+			}
+			return GraphConfig.fromJson(null);
 		} catch (Exception e) {
 			var log = LoggerFactory.getLogger(GraphFile.class);
 			log.error("Failed to load config", e);
@@ -148,18 +220,17 @@ public final class GraphFile {
 		}
 	}
 
-	public static JsonArray getLayout(GraphEditor editor, String element) {
-		try {
-			// read JSON object from file
-			var file = file(editor.getProductSystem());
-			if (!file.exists())
-				return null;
-			var rootObj = Json.readObject(file).orElse(null);
-			if (rootObj == null)
-				return null;
-
-			// apply node info's
-			return Json.getArray(rootObj, element);
+	/**
+	 * Reads the saved layout of the product system of the given editor. Returns
+	 * {@code null} if there is no saved layout or if it is incomplete.
+	 */
+	public static Content read(GraphEditor editor) {
+		var file = file(editor.getProductSystem());
+		if (!file.exists())
+			return null;
+		try (var reader = new JsonReader(Files.newBufferedReader(
+				file.toPath(), StandardCharsets.UTF_8))) {
+			return read(reader);
 		} catch (Exception e) {
 			var log = LoggerFactory.getLogger(GraphFile.class);
 			log.error("Failed to load layout", e);
@@ -167,40 +238,140 @@ public final class GraphFile {
 		}
 	}
 
-	public static NodeLayoutInfo toNodeLayoutInfo(JsonObject obj) {
-		if (obj == null)
+	private static Content read(JsonReader reader) throws IOException {
+		if (reader.peek() != JsonToken.BEGIN_OBJECT)
+			return null;
+		GraphConfig config = null;
+		Map<String, NodeLayoutInfo> nodes = null;
+		List<StickyNoteLayoutInfo> notes = null;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			var name = reader.nextName();
+			var token = reader.peek();
+			if (CONFIG_PROP.equals(name) && token == JsonToken.BEGIN_OBJECT) {
+				config = readConfig(reader);
+			} else if (KEY_NODES.equals(name) && token == JsonToken.BEGIN_ARRAY) {
+				nodes = new LinkedHashMap<>();
+				reader.beginArray();
+				while (reader.hasNext()) {
+					var info = readNodeInfo(reader);
+					if (info != null && info.id != null) {
+						nodes.put(info.id, info);
+					}
+				}
+				reader.endArray();
+			} else if (KEY_STICKY_NOTES.equals(name)
+					&& token == JsonToken.BEGIN_ARRAY) {
+				notes = new ArrayList<>();
+				reader.beginArray();
+				while (reader.hasNext()) {
+					var info = readStickyNoteInfo(reader);
+					if (info != null) {
+						notes.add(info);
+					}
+				}
+				reader.endArray();
+			} else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		if (nodes == null || notes == null)
+			return null;
+		return new Content(config,
+				Collections.unmodifiableMap(nodes),
+				Collections.unmodifiableList(notes));
+	}
+
+	private static GraphConfig readConfig(JsonReader reader) {
+		var elem = JsonParser.parseReader(reader);
+		return GraphConfig.fromJson(elem.isJsonObject()
+				? elem.getAsJsonObject()
+				: null);
+	}
+
+	private static NodeLayoutInfo readNodeInfo(JsonReader reader)
+			throws IOException {
+		if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+			reader.skipValue();
 			return null;
+		}
 		var info = new NodeLayoutInfo();
-		info.id = Json.getString(obj, "id");
-		info.minimized = Json.getBool(obj, "minimized", false);
-		info.location = new Point(
-			Json.getInt(obj, "x", Integer.MAX_VALUE),
-			Json.getInt(obj, "y", Integer.MAX_VALUE));
-		info.size = new Dimension(
-			Json.getInt(obj, "width", Node.DEFAULT_SIZE.width),
-			Json.getInt(obj, "height", Node.DEFAULT_SIZE.height));
-		info.expandedLeft = Json.getBool(obj, "expandedLeft", false);
-		info.expandedRight = Json.getBool(obj, "expandedRight", false);
+		int x = Integer.MAX_VALUE, y = Integer.MAX_VALUE;
+		int width = Node.DEFAULT_SIZE.width, height = Node.DEFAULT_SIZE.height;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			switch (reader.nextName()) {
+				case "id" -> info.id = nextString(reader);
+				case "x" -> x = nextInt(reader, x);
+				case "y" -> y = nextInt(reader, y);
+				case "width" -> width = nextInt(reader, width);
+				case "height" -> height = nextInt(reader, height);
+				case "minimized" -> info.minimized = nextBool(reader);
+				case "expandedLeft" -> info.expandedLeft = nextBool(reader);
+				case "expandedRight" -> info.expandedRight = nextBool(reader);
+				default -> reader.skipValue();
+			}
+		}
+		reader.endObject();
+		info.location = new Point(x, y);
+		info.size = new Dimension(width, height);
 		return info;
 	}
 
-	public static StickyNoteLayoutInfo toStickyNoteLayoutInfo(JsonObject obj) {
-		if (obj == null)
+	private static StickyNoteLayoutInfo readStickyNoteInfo(JsonReader reader)
+			throws IOException {
+		if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+			reader.skipValue();
 			return null;
+		}
 		var info = new StickyNoteLayoutInfo();
-		info.minimized = Json.getBool(obj, "minimized", false);
-		info.location = new Point(
-				Json.getInt(obj, "x", Integer.MAX_VALUE),
-				Json.getInt(obj, "y", Integer.MAX_VALUE));
-		info.size = new Dimension(
-				Json.getInt(obj, "width", Node.DEFAULT_SIZE.width),
-				Json.getInt(obj, "height", Node.DEFAULT_SIZE.height));
-		info.title = Json.getString(obj, "title");
-		info.content = Json.getString(obj, "content");
-
+		int x = Integer.MAX_VALUE, y = Integer.MAX_VALUE;
+		int width = Node.DEFAULT_SIZE.width, height = Node.DEFAULT_SIZE.height;
+		reader.beginObject();
+		while (reader.hasNext()) {
+			switch (reader.nextName()) {
+				case "title" -> info.title = nextString(reader);
+				case "content" -> info.content = nextString(reader);
+				case "x" -> x = nextInt(reader, x);
+				case "y" -> y = nextInt(reader, y);
+				case "width" -> width = nextInt(reader, width);
+				case "height" -> height = nextInt(reader, height);
+				case "minimized" -> info.minimized = nextBool(reader);
+				default -> reader.skipValue();
+			}
+		}
+		reader.endObject();
+		info.location = new Point(x, y);
+		info.size = new Dimension(width, height);
 		return info;
 	}
 
+	private static String nextString(JsonReader reader) throws IOException {
+		var token = reader.peek();
+		if (token == JsonToken.STRING || token == JsonToken.NUMBER)
+			return reader.nextString();
+		reader.skipValue();
+		return null;
+	}
+
+	private static int nextInt(JsonReader reader, int defaultValue)
+			throws IOException {
+		if (reader.peek() != JsonToken.NUMBER) {
+			reader.skipValue();
+			return defaultValue;
+		}
+		return (int) reader.nextDouble();
+	}
+
+	private static boolean nextBool(JsonReader reader) throws IOException {
+		if (reader.peek() != JsonToken.BOOLEAN) {
+			reader.skipValue();
+			return false;
+		}
+		return reader.nextBoolean();
+	}
+
 	public static File file(ProductSystem system) {
 		File dir = DatabaseDir.getDir(system);
 		if (!dir.exists()) {
@@ -28,6 +28,13 @@ import static org.openlca.app.tools.graphics.model.Side.OUTPUT;
  */
 public class MassExpansionAction extends StackAction {
 
+	/**
+	 * Expanding more nodes than this requires a confirmation. Zoomed-out
+	 * graphs are painted with less detail, but an edit part and a figure is
+	 * still created for each node and each link; the limit can only be
+	 * removed when nodes outside of the viewport are not materialized and the
+	 * links are painted in a single layer.
+	 */
 	static final int NODE_LIMITATION = 250;
 	public static final int EXPAND = 1;
 	public static final int COLLAPSE = 2;
@@ -95,7 +102,8 @@ public class MassExpansionAction extends StackAction {
 	@Override
 	public void run() {
 		var graph = editor.getModel();
-		// Ask if the model is very large.
+		// Ask if the model is very large: an edit part and a figure is
+		// created for each node.
 		int count = graph.getChildren().size();
 		var doIt = type == COLLAPSE || count < NODE_LIMITATION || Question.ask(
 			M.ExpandAll, M.ExpandAll + ": " + count + " " + M.Processes);
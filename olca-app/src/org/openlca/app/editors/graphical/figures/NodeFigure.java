@@ -3,6 +3,7 @@ package org.openlca.app.editors.graphical.figures;
 import org.eclipse.draw2d.*;
 import org.eclipse.draw2d.geometry.Dimension;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Color;
 import org.openlca.app.editors.graphical.model.Node;
 import org.openlca.app.tools.graphics.themes.Theme;
 import org.openlca.app.rcp.images.Images;
@@ -18,6 +19,8 @@ public class NodeFigure extends ComponentFigure {
 	public final static Dimension HEADER_ARC_SIZE = new Dimension(15, 15);
 	public final PlusMinusButton inputExpandButton;
 	public final PlusMinusButton outputExpandButton;
+	private final Color glyphBackground;
+	private final Color glyphBorder;
 
 	public NodeFigure(Node node) {
 		super(node);
@@ -28,6 +31,28 @@ public class NodeFigure extends ComponentFigure {
 		var name = Labels.name(node.descriptor);
 
 		setToolTip(new Label(name));
+
+		var theme = node.getGraph().getConfig().getTheme();
+		var box = Theme.Box.of(node.descriptor, node.isOfReferenceProcess());
+		glyphBackground = theme.boxBackgroundColor(box);
+		glyphBorder = theme.boxBorderColor(box);
+	}
+
+	/**
+	 * Paints the node as a plain box when the graph is zoomed out below the
+	 * detail level. The header and the exchanges are then not painted.
+	 */
+	@Override
+	public void paint(Graphics g) {
+		if (g.getAbsoluteScale() >= DETAIL_ZOOM) {
+			super.paint(g);
+			return;
+		}
+		var r = getBounds();
+		g.setBackgroundColor(glyphBackground);
+		g.fillRectangle(r);
+		g.setForegroundColor(glyphBorder);
+		g.drawRectangle(r.x, r.y, r.width - 1, r.height - 1);
 	}
 
 	class NodeHeader extends Figure {
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import org.openlca.app.db.Database;
 import org.openlca.app.editors.graphical.GraphConfig;
@@ -16,6 +17,8 @@ import org.openlca.core.model.Process;
 import org.openlca.core.model.ProcessLink;
 import org.openlca.core.model.ProductSystem;
 
+import gnu.trove.map.hash.TLongObjectHashMap;
+
 import static org.eclipse.draw2d.PositionConstants.EAST;
 
 
@@ -23,6 +26,11 @@ import static org.eclipse.draw2d.PositionConstants.EAST;
  * A {@link Graph} renders a system of unit processes, library
  * processes, results and/or product systems (represented by a
  * {@link Node}).
+ * <p>
+ * The graph maintains an index of its nodes by process ID and an index of
+ * its links by the exchange IDs of the respective process links. The node
+ * index is updated when children are added or removed, the link index via
+ * {@link #putLink(GraphLink)} and {@link #removeGraphLink(ProcessLink)}.
  */
 public class Graph extends BaseComponent {
 
@@ -30,7 +38,13 @@ public class Graph extends BaseComponent {
 
 	public final GraphEditor editor;
 	public final LinkSearchMap linkSearch;
-	public Map<ProcessLink, GraphLink> mapProcessLinkToGraphLink = new HashMap<>();
+	private final TLongObjectHashMap<Node> nodeIndex = new TLongObjectHashMap<>();
+	private final TLongObjectHashMap<GraphLink> linkIndex = new TLongObjectHashMap<>();
+	/**
+	 * Links with an exchange ID that is already indexed for another process
+	 * link, e.g. links of new exchanges that were not saved yet.
+	 */
+	private final Map<ProcessLink, GraphLink> otherLinks = new HashMap<>();
 	public final FlowTable flows = FlowTable.create(Database.get());
 	private final Process referenceProcess;
 	private Node referenceNode;
@@ -43,25 +57,112 @@ public class Graph extends BaseComponent {
 	}
 
 	public Node getNode(long id) {
-		for (var node : getNodes()) {
-			if (node.descriptor != null && node.descriptor.id == id)
-				return node;
-		}
-		return null;
+		return nodeIndex.get(id);
 	}
 
 	public GraphLink getLink(ProcessLink processLink) {
-		return mapProcessLinkToGraphLink.get(processLink);
+		if (processLink == null)
+			return null;
+		var link = linkIndex.get(processLink.exchangeId);
+		if (link != null && Objects.equals(link.processLink, processLink))
+			return link;
+		return otherLinks.isEmpty()
+				? null
+				: otherLinks.get(processLink);
+	}
+
+	/**
+	 * Adds the given link to the link index of this graph.
+	 */
+	public void putLink(GraphLink link) {
+		if (link == null || link.processLink == null)
+			return;
+		var pLink = link.processLink;
+		var current = linkIndex.get(pLink.exchangeId);
+		if (current == null || Objects.equals(current.processLink, pLink)) {
+			linkIndex.put(pLink.exchangeId, link);
+		} else {
+			otherLinks.put(pLink, link);
+		}
+	}
+
+	/**
+	 * Removes the graph link of the given process link from the link index
+	 * of this graph. Note that the returned link is not disconnected.
+	 */
+	public GraphLink removeGraphLink(ProcessLink processLink) {
+		if (processLink == null)
+			return null;
+		var link = linkIndex.get(processLink.exchangeId);
+		if (link != null && Objects.equals(link.processLink, processLink)) {
+			linkIndex.remove(processLink.exchangeId);
+			return link;
+		}
+		return otherLinks.remove(processLink);
 	}
 
 	public void removeLink(ProcessLink link) {
 		getProductSystem().processLinks.remove(link);
 		linkSearch.remove(link);
-		var graphLink = mapProcessLinkToGraphLink.remove(link);
+		var graphLink = removeGraphLink(link);
 		if (graphLink != null)
 			graphLink.disconnect();
 	}
 
+	@Override
+	public void addChild(Component child, int index) {
+		super.addChild(child, index);
+		index(child);
+	}
+
+	@Override
+	public void addChildQuietly(Component child) {
+		super.addChildQuietly(child);
+		index(child);
+	}
+
+	@Override
+	public void addChildren(List<Node> children) {
+		for (var child : children) {
+			index(child);
+		}
+		super.addChildren(children);
+	}
+
+	@Override
+	public boolean removeChild(Component child) {
+		if (!super.removeChild(child))
+			return false;
+		unindex(child);
+		return true;
+	}
+
+	@Override
+	public boolean removeChildQuietly(Component child) {
+		if (!super.removeChildQuietly(child))
+			return false;
+		unindex(child);
+		return true;
+	}
+
+	private void index(Component child) {
+		if (child instanceof Node node && node.descriptor != null) {
+			nodeIndex.put(node.descriptor.id, node);
+		}
+	}
+
+	private void unindex(Component child) {
+		if (!(child instanceof Node node) || node.descriptor == null)
+			return;
+		long id = node.descriptor.id;
+		if (nodeIndex.get(id) == node) {
+			nodeIndex.remove(id);
+		}
+		if (node == referenceNode) {
+			referenceNode = null;
+		}
+	}
+
 	public Node getReferenceNode() {
 		if (referenceNode == null) {
 			referenceNode = getNode(referenceProcess.id);
@@ -122,7 +223,7 @@ public class Graph extends BaseComponent {
 	}
 
 	public List<Long> getChildrenIds() {
-		var ids = new ArrayList<Long>();
+		var ids = new ArrayList<Long>(nodeIndex.size());
 		for (var node : getNodes()) {
 			ids.add(node.descriptor.id);
 		}
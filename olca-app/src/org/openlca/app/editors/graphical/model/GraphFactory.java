@@ -2,7 +2,6 @@ package org.openlca.app.editors.graphical.model;
 
 import java.util.*;
 
-import com.google.gson.JsonArray;
 import org.eclipse.draw2d.geometry.Point;
 import org.openlca.app.db.Database;
 import org.openlca.app.editors.graphical.GraphEditor;
@@ -10,11 +9,15 @@ import org.openlca.app.editors.graphical.GraphFile;
 import org.openlca.app.editors.graphical.layouts.NodeLayoutInfo;
 import org.openlca.app.editors.graphical.layouts.StickyNoteLayoutInfo;
 import org.openlca.app.editors.graphical.model.commands.ExpandCommand;
+import org.openlca.core.database.Daos;
 import org.openlca.core.model.*;
 import org.openlca.core.model.Process;
 import org.openlca.core.model.descriptors.Descriptor;
 import org.openlca.core.model.descriptors.RootDescriptor;
 
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.hash.TLongObjectHashMap;
+
 import static org.openlca.app.editors.graphical.model.Node.INPUT_PROP;
 import static org.openlca.app.editors.graphical.model.Node.OUTPUT_PROP;
 import static org.openlca.app.tools.graphics.model.Side.INPUT;
@@ -30,15 +33,52 @@ public class GraphFactory {
 
 	private final GraphEditor editor;
 
+	/**
+	 * The prepared projections of processes for which nodes will be created;
+	 * a projection is removed from this map when its node is created.
+	 */
+	private final TLongObjectHashMap<ProcessProjection> projections =
+			new TLongObjectHashMap<>();
+
 	public GraphFactory(GraphEditor editor) {
 		this.editor = editor;
 	}
 
+	/**
+	 * Loads the descriptors of the given IDs and the projections of the
+	 * respective processes in batches before the nodes of these IDs are
+	 * created. The projections contain only the reference flows; the
+	 * exchanges are loaded when the nodes are maximized. Returns the loaded
+	 * descriptors mapped by their IDs.
+	 */
+	public TLongObjectHashMap<RootDescriptor> prepareNodes(long[] ids) {
+		projections.clear();
+		var descriptors = getDescriptors(ids);
+		var processIds = new TLongArrayList();
+		for (var d : descriptors.valueCollection()) {
+			if (d.type == ModelType.PROCESS) {
+				processIds.add(d.id);
+			}
+		}
+		prepareProjections(processIds.toArray(), false);
+		return descriptors;
+	}
+
+	private void prepareProjections(long[] processIds, boolean withExchanges) {
+		if (processIds.length == 0)
+			return;
+		projections.putAll(ProcessProjection.load(
+				Database.get(), processIds, withExchanges));
+	}
+
 	public Node createNode(RootDescriptor descriptor, NodeLayoutInfo info) {
 		if (descriptor == null || descriptor.type == null)
 			return null;
 
 		var node = applyInfo(new Node(descriptor), info);
+		if (descriptor.type == ModelType.PROCESS) {
+			node.projection = projections.remove(descriptor.id);
+		}
 
 		// A Node (MinMaxGraphComponent) `minimized` attribute is by default true.
 		if (!node.isMinimized()) {
@@ -121,6 +161,19 @@ public class GraphFactory {
 	private List<Exchange> getExchanges(Node node) {
 		return switch (node.descriptor.type) {
 			case PROCESS -> {
+				// use the projection when the node cannot be edited so that
+				// the full process does not need to be loaded
+				if (!editor.config.isNodeEditingEnabled()) {
+					var p = node.projection;
+					if (p == null || p.exchanges == null) {
+						p = ProcessProjection.load(Database.get(),
+								new long[]{node.descriptor.id}, true)
+								.get(node.descriptor.id);
+						node.projection = p;
+					}
+					if (p != null)
+						yield p.exchanges;
+				}
 				var process = (Process) node.getEntity();
 				yield process == null
 						? Collections.emptyList()
@@ -165,12 +218,11 @@ public class GraphFactory {
 		if (target == null)
 			return;
 		var link = new GraphLink(pLink, source, target);
-		graph.mapProcessLinkToGraphLink.put(pLink, link);
+		graph.putLink(link);
 	}
 
-	public Graph createGraph(GraphEditor editor, JsonArray nodeArray,
-													 JsonArray stickyNoteArray) {
-		if ((nodeArray == null) || (stickyNoteArray == null))
+	public Graph createGraph(GraphEditor editor, GraphFile.Content layout) {
+		if (layout == null)
 			return createGraph(editor);
 
 		var graph = new Graph(editor);
@@ -178,10 +230,40 @@ public class GraphFactory {
 		var system = editor.getProductSystem();
 		var referenceProcess = system.referenceProcess;
 
+		// Load the descriptors of the system and the projections of the
+		// processes in batches; the exchanges are only loaded for the
+		// processes that are displayed as maximized nodes.
+		var ids = new long[system.processes.size()];
+		int pos = 0;
+		for (var id : system.processes) {
+			ids[pos++] = id;
+		}
+		var descriptors = new HashMap<String, RootDescriptor>();
+		for (var d : getDescriptors(ids).valueCollection()) {
+			descriptors.put(d.refId, d);
+		}
+		var maximized = new TLongArrayList();
+		var minimized = new TLongArrayList();
+		for (var info : layout.nodes().values()) {
+			var d = descriptors.get(info.id);
+			if (d == null || d.type != ModelType.PROCESS)
+				continue;
+			if (info.minimized) {
+				minimized.add(d.id);
+			} else {
+				maximized.add(d.id);
+			}
+		}
+		prepareProjections(maximized.toArray(), true);
+		prepareProjections(minimized.toArray(), false);
+
 		// Create the reference node.
 		if (referenceProcess != null) {
-			var refNodeInfo = getNodeInfo(nodeArray, referenceProcess.refId);
-			var descriptor = getDescriptor(referenceProcess.id);
+			var refNodeInfo = layout.nodes().get(referenceProcess.refId);
+			var descriptor = descriptors.get(referenceProcess.refId);
+			if (descriptor == null) {
+				descriptor = getDescriptor(referenceProcess.id);
+			}
 			var refNode = createNode(descriptor, refNodeInfo);
 			if (refNode != null) {
 				graph.addChild(refNode);
@@ -189,25 +271,22 @@ public class GraphFactory {
 		}
 
 		// Create other nodes.
-		for (var elem : nodeArray) {
-			if (!elem.isJsonObject())
-				continue;
-			var obj = elem.getAsJsonObject();
-			var info = GraphFile.toNodeLayoutInfo(obj);
-			if (info == null)
-				continue;
-
+		for (var info : layout.nodes().values()) {
 			// The reference should not be created again.
 			if (referenceProcess != null
 					&& Objects.equals(info.id, referenceProcess.refId))
 				continue;
 
-			var descriptor = getDescriptor(info.id);
+			var descriptor = descriptors.get(info.id);
+			if (descriptor == null) {
+				descriptor = getDescriptor(info.id);
+			}
 			var node = createNode(descriptor, info);
 			if (node == null)
 				continue;
 			graph.addChild(node);
 		}
+		projections.clear();
 
 		var pLinks = graph.linkSearch.getLinks(graph.getChildrenIds());
 		for (var pLink : pLinks) {
@@ -215,13 +294,7 @@ public class GraphFactory {
 		}
 
 		// Create the sticky notes
-		for (var elem : stickyNoteArray) {
-			if (!elem.isJsonObject())
-				continue;
-			var obj = elem.getAsJsonObject();
-			var info = GraphFile.toStickyNoteLayoutInfo(obj);
-			if (info == null)
-				continue;
+		for (var info : layout.stickyNotes()) {
 			var note = createStickyNote(info);
 			if (note == null)
 				continue;
@@ -262,21 +335,6 @@ public class GraphFactory {
 		return graph;
 	}
 
-	private static NodeLayoutInfo getNodeInfo(JsonArray array, String id) {
-		var descriptor = getDescriptor(id);
-		if (descriptor != null) {
-			for (var elem : array) {
-				if (!elem.isJsonObject())
-					continue;
-				var obj = elem.getAsJsonObject();
-				var info = GraphFile.toNodeLayoutInfo(obj);
-				if (Objects.equals(info.id, descriptor.refId))
-					return info;
-			}
-		}
-		return null;
-	}
-
 	public static RootDescriptor getDescriptor(long id) {
 		var db = Database.get();
 		if (db == null)
@@ -289,6 +347,36 @@ public class GraphFactory {
 		return null;
 	}
 
+	/**
+	 * Returns the descriptors of the processes, product systems, and results
+	 * with the given IDs mapped by their IDs. The descriptors of each type are
+	 * loaded with a single query.
+	 */
+	public static TLongObjectHashMap<RootDescriptor> getDescriptors(long[] ids) {
+		var map = new TLongObjectHashMap<RootDescriptor>();
+		var db = Database.get();
+		if (db == null || ids == null || ids.length == 0)
+			return map;
+		var remaining = new HashSet<Long>(ids.length);
+		for (long id : ids) {
+			remaining.add(id);
+		}
+		var types = List.of(
+				ModelType.PROCESS, ModelType.PRODUCT_SYSTEM, ModelType.RESULT);
+		for (var type : types) {
+			if (remaining.isEmpty())
+				break;
+			var dao = Daos.root(db, type);
+			if (dao == null)
+				continue;
+			for (RootDescriptor d : dao.getDescriptors(remaining)) {
+				map.put(d.id, d);
+			}
+			remaining.removeIf(map::containsKey);
+		}
+		return map;
+	}
+
 	static RootDescriptor getDescriptor(String refId) {
 		var db = Database.get();
 		if (db == null)
@@ -43,6 +43,12 @@ public class Node extends MinMaxComponent {
 	public RootDescriptor descriptor;
 	private RootEntity entity;
 
+	/**
+	 * The light-weight data of a process node that are used for rendering it
+	 * without loading the full process, see {@link GraphFactory}.
+	 */
+	ProcessProjection projection;
+
 	/**
 	 * Define if the input or this output side is expanded.
 	 * 0: not expanded, 1: input expanded, 2: output expanded, 3: both
@@ -69,7 +75,9 @@ public class Node extends MinMaxComponent {
 
 	/**
 	 * The RootEntity of this is not instantiate in the constructor for
-	 * computational reasons.
+	 * computational reasons. Note that nodes that cannot be edited are
+	 * rendered from a {@link ProcessProjection}; the entity is then only
+	 * loaded when it is requested here.
 	 */
 	public RootEntity getEntity() {
 		if (entity == null)
@@ -423,6 +431,8 @@ public class Node extends MinMaxComponent {
 
 	Flow getRefFlow() {
 		if (descriptor instanceof ProcessDescriptor) {
+			if (entity == null && projection != null)
+				return projection.refFlow;
 			var process = (Process) getEntity();
 			if (process.quantitativeReference != null)
 				return process.quantitativeReference.flow;
@@ -0,0 +1,209 @@
+package org.openlca.app.editors.graphical.model;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.openlca.app.db.Cache;
+import org.openlca.core.database.Daos;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.database.NativeSql;
+import org.openlca.core.model.AbstractEntity;
+import org.openlca.core.model.Exchange;
+import org.openlca.core.model.Flow;
+import org.openlca.core.model.FlowPropertyFactor;
+import org.openlca.core.model.Unit;
+import org.slf4j.LoggerFactory;
+
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.hash.TLongLongHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+/**
+ * The data of a process node that are needed to render it in the graph: the
+ * reference flow and detached copies of the exchanges of the process. The
+ * projections of multiple processes are loaded in a few native SQL queries
+ * instead of loading the full process entities. The flows, units, and flow
+ * property factors of the exchanges are loaded in batches, from the entity
+ * cache if it is available.
+ * <p>
+ * The exchanges of a projection are not attached to a process entity, thus,
+ * they are only used when the nodes cannot be edited. The full entity of a
+ * node is still loaded when it is requested via {@link Node#getEntity()}.
+ */
+class ProcessProjection {
+
+	/**
+	 * The maximum number of IDs in an IN-clause of a query.
+	 */
+	private static final int CHUNK_SIZE = 1000;
+
+	Flow refFlow;
+
+	/**
+	 * The exchanges of the process or {@code null} if they were not loaded.
+	 */
+	List<Exchange> exchanges;
+
+	/**
+	 * Loads the projections of the processes with the given IDs. The
+	 * exchanges are only loaded when the respective flag is set; otherwise
+	 * the projections just contain the reference flows.
+	 */
+	static TLongObjectHashMap<ProcessProjection> load(
+			IDatabase db, long[] processIds, boolean withExchanges) {
+		var map = new TLongObjectHashMap<ProcessProjection>();
+		if (db == null || processIds == null || processIds.length == 0)
+			return map;
+		for (long id : processIds) {
+			var p = new ProcessProjection();
+			if (withExchanges) {
+				p.exchanges = new ArrayList<>();
+			}
+			map.put(id, p);
+		}
+		for (int start = 0; start < processIds.length; start += CHUNK_SIZE) {
+			int end = Math.min(start + CHUNK_SIZE, processIds.length);
+			var ids = idList(processIds, start, end);
+			loadRefFlows(db, ids, map);
+			if (withExchanges) {
+				loadExchanges(db, ids, map);
+			}
+		}
+		return map;
+	}
+
+	private static String idList(long[] ids, int start, int end) {
+		var b = new StringBuilder();
+		for (int i = start; i < end; i++) {
+			if (i > start) {
+				b.append(',');
+			}
+			b.append(ids[i]);
+		}
+		return b.toString();
+	}
+
+	private static void loadRefFlows(IDatabase db, String ids,
+			TLongObjectHashMap<ProcessProjection> map) {
+		var sql = "select p.id, e.f_flow from tbl_processes p "
+				+ "inner join tbl_exchanges e on "
+				+ "p.f_quantitative_reference = e.id "
+				+ "where p.id in (" + ids + ")";
+		var refFlows = new TLongLongHashMap();
+		try {
+			NativeSql.on(db).query(sql, r -> {
+				refFlows.put(r.getLong(1), r.getLong(2));
+				return true;
+			});
+		} catch (Exception e) {
+			LoggerFactory.getLogger(ProcessProjection.class)
+					.error("failed to load reference flows: " + sql, e);
+			return;
+		}
+		var flows = loadAll(
+				db, Flow.class, idSet(new TLongArrayList(refFlows.values())));
+		refFlows.forEachEntry((processId, flowId) -> {
+			var p = map.get(processId);
+			if (p != null) {
+				p.refFlow = flows.get(flowId);
+			}
+			return true;
+		});
+	}
+
+	private static void loadExchanges(IDatabase db, String ids,
+			TLongObjectHashMap<ProcessProjection> map) {
+		var sql = "select " +
+		/* 1 */ "id, " +
+		/* 2 */ "f_owner, " +
+		/* 3 */ "f_flow, " +
+		/* 4 */ "f_unit, " +
+		/* 5 */ "f_flow_property_factor, " +
+		/* 6 */ "is_input, " +
+		/* 7 */ "resulting_amount_value, " +
+		/* 8 */ "resulting_amount_formula, " +
+		/* 9 */ "f_default_provider, " +
+		/* 10 */ "is_avoided " +
+		"from tbl_exchanges where f_owner in (" + ids + ")";
+
+		// collect the exchanges and the IDs of their flows, units, and flow
+		// property factors first, so that these can be loaded in batches
+		var exchanges = new ArrayList<Exchange>();
+		var owners = new TLongArrayList();
+		var flowIds = new TLongArrayList();
+		var unitIds = new TLongArrayList();
+		var factorIds = new TLongArrayList();
+		try {
+			NativeSql.on(db).query(sql, r -> {
+				long owner = r.getLong(2);
+				if (!map.containsKey(owner))
+					return true;
+				var e = new Exchange();
+				e.id = r.getLong(1);
+				e.isInput = r.getBoolean(6);
+				e.amount = r.getDouble(7);
+				e.formula = r.getString(8);
+				e.defaultProviderId = r.getLong(9);
+				e.isAvoided = r.getBoolean(10);
+				exchanges.add(e);
+				owners.add(owner);
+				flowIds.add(r.getLong(3));
+				unitIds.add(r.getLong(4));
+				factorIds.add(r.getLong(5));
+				return true;
+			});
+		} catch (Exception e) {
+			LoggerFactory.getLogger(ProcessProjection.class)
+					.error("failed to load exchanges: " + sql, e);
+			return;
+		}
+
+		var flows = loadAll(db, Flow.class, idSet(flowIds));
+		var units = loadAll(db, Unit.class, idSet(unitIds));
+		var factors = loadAll(db, FlowPropertyFactor.class, idSet(factorIds));
+		for (int i = 0; i < exchanges.size(); i++) {
+			var e = exchanges.get(i);
+			e.flow = flows.get(flowIds.get(i));
+			e.unit = units.get(unitIds.get(i));
+			e.flowPropertyFactor = factors.get(factorIds.get(i));
+			map.get(owners.get(i)).exchanges.add(e);
+		}
+	}
+
+	private static Set<Long> idSet(TLongArrayList ids) {
+		var set = new HashSet<Long>();
+		ids.forEach(id -> {
+			if (id != 0) {
+				set.add(id);
+			}
+			return true;
+		});
+		return set;
+	}
+
+	/**
+	 * Loads the entities with the given IDs in a batch, from the entity cache
+	 * if it is available and directly from the database otherwise.
+	 */
+	private static <T extends AbstractEntity> TLongObjectHashMap<T> loadAll(
+			IDatabase db, Class<T> type, Set<Long> ids) {
+		var map = new TLongObjectHashMap<T>();
+		if (ids.isEmpty())
+			return map;
+		var cache = Cache.getEntityCache();
+		if (cache != null) {
+			cache.getAll(type, ids).forEach((id, e) -> {
+				if (id != null && e != null) {
+					map.put(id, e);
+				}
+			});
+			return map;
+		}
+		for (var e : Daos.base(db, type).getForIds(ids)) {
+			map.put(e.id, e);
+		}
+		return map;
+	}
+}
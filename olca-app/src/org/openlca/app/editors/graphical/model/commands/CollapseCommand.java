@@ -84,7 +84,7 @@ public class CollapseCommand extends Command {
 					|| otherNode == graph.getReferenceNode()))
 					continue;
 
-				graph.mapProcessLinkToGraphLink.remove(link.processLink);
+				graph.removeGraphLink(link.processLink);
 				link.disconnect();
 				collapse(root, otherNode, INPUT);
 				collapse(root, otherNode, OUTPUT);
@@ -40,7 +40,7 @@ public class CreateLinkCommand extends Command {
 		system.processLinks.add(processLink);
 		graph.linkSearch.put(processLink);
 		link = new GraphLink(processLink, source, target);
-		graph.mapProcessLinkToGraphLink.put(processLink, link);
+		graph.putLink(link);
 
 		graph.editor.setDirty();
 	}
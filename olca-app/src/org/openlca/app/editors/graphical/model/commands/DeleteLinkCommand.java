@@ -65,7 +65,7 @@ public class DeleteLinkCommand extends Command {
 		for (GraphLink link : links) {
 			graph.getProductSystem().processLinks.add(link.processLink);
 			graph.linkSearch.put(link.processLink);
-			graph.mapProcessLinkToGraphLink.put(link.processLink, link);
+			graph.putLink(link);
 			link.reconnect();
 		}
 		graph.editor.setDirty();
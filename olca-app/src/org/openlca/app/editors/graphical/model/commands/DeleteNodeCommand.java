@@ -88,7 +88,7 @@ public class DeleteNodeCommand extends Command {
 		for (GraphLink link : links) {
 			parent.linkSearch.put(link.processLink);
 			parent.getProductSystem().processLinks.add(link.processLink);
-			parent.mapProcessLinkToGraphLink.put(link.processLink, link);
+			parent.putLink(link);
 			link.reconnect();
 		}
 	}
@@ -9,7 +9,12 @@ import org.openlca.app.editors.graphical.model.GraphLink;
 import org.openlca.app.editors.graphical.model.Node;
 import org.openlca.core.model.FlowType;
 import org.openlca.core.model.ProcessLink;
+import org.openlca.core.model.descriptors.RootDescriptor;
 
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.hash.TLongHashSet;
+
+import java.util.HashSet;
 import java.util.List;
 
 import static org.openlca.app.editors.graphical.model.Node.isInput;
@@ -25,6 +30,7 @@ public class ExpandCommand extends Command {
 	private final GraphEditor editor;
 	private final Graph graph;
 	private final boolean quiet;
+	private TLongObjectHashMap<RootDescriptor> descriptors;
 
 	public ExpandCommand(Node host, int side, boolean quiet) {
 		this.host = host;
@@ -58,10 +64,29 @@ public class ExpandCommand extends Command {
 		var oldLinks = side == INPUT
 			? host.getAllTargetConnections()
 			: host.getAllSourceConnections();
-		var oldPLinks = oldLinks.stream()
-				.map(GraphLink.class::cast)
-				.map(l -> l.processLink)
-				.toList();
+		var oldPLinks = new HashSet<ProcessLink>(oldLinks.size());
+		for (var link : oldLinks) {
+			oldPLinks.add(((GraphLink) link).processLink);
+		}
+
+		// load the descriptors of the new nodes in a batch
+		var newIds = new TLongHashSet();
+		for (ProcessLink pLink : links) {
+			FlowType type = graph.flows.type(pLink.flowId);
+			if (type == null || type == FlowType.ELEMENTARY_FLOW)
+				continue;
+			boolean isProvider = processID == pLink.providerId;
+			long otherID = isProvider ? pLink.processId : pLink.providerId;
+			boolean onSide = side == INPUT
+					? isInput(type, isProvider)
+					: isOutput(type, isProvider);
+			if (onSide && graph.getNode(otherID) == null) {
+				newIds.add(otherID);
+			}
+		}
+		descriptors = newIds.isEmpty()
+				? new TLongObjectHashMap<>()
+				: editor.getGraphFactory().prepareNodes(newIds.toArray());
 
 		for (ProcessLink pLink : links) {
 			FlowType type = graph.flows.type(pLink.flowId);
@@ -86,7 +111,7 @@ public class ExpandCommand extends Command {
 			} else continue;
 
 			var link = new GraphLink(pLink, outNode, inNode);
-			graph.mapProcessLinkToGraphLink.put(pLink, link);
+			graph.putLink(link);
 		}
 		host.setExpanded(side, true);
 
@@ -106,7 +131,10 @@ public class ExpandCommand extends Command {
 		if (node != null)
 			return node;
 
-		var descriptor = GraphFactory.getDescriptor(id);
+		var descriptor = descriptors.get(id);
+		if (descriptor == null) {
+			descriptor = GraphFactory.getDescriptor(id);
+		}
 		var newNode = editor.getGraphFactory().createNode(descriptor, null);
 		if (quiet) graph.addChildQuietly(newNode);
 		else graph.addChild(newNode);
@@ -54,7 +54,7 @@ public class ReconnectLinkCommand extends Command {
 		graph.getProductSystem().processLinks.add(processLink);
 		graph.linkSearch.put(processLink);
 		link = new GraphLink(processLink, sourceNode, targetItem);
-		graph.mapProcessLinkToGraphLink.put(processLink, link);
+		graph.putLink(link);
 
 		graph.editor.setDirty();
 	}
@@ -70,7 +70,7 @@ public class ReconnectLinkCommand extends Command {
 
 		system.processLinks.add(link.processLink);
 		graph.linkSearch.put(link.processLink);
-		graph.mapProcessLinkToGraphLink.put(link.processLink, link);
+		graph.putLink(link);
 		link.reconnect();
 
 		graph.editor.setDirty();
@@ -82,7 +82,7 @@ public class ReconnectLinkCommand extends Command {
 
 		system.processLinks.add(oldLink.processLink);
 		graph.linkSearch.put(oldLink.processLink);
-		graph.mapProcessLinkToGraphLink.put(oldLink.processLink, oldLink);
+		graph.putLink(oldLink);
 		oldLink.reconnect();
 
 		graph.editor.setDirty();
@@ -128,7 +128,7 @@ public class RemoveSupplyChainCommand extends CollapseCommand {
 		var graphLink = graph.getLink(link);
 		if (graphLink != null) {
 			graphLink.disconnect();
-			graph.mapProcessLinkToGraphLink.remove(link);
+			graph.removeGraphLink(link);
 		}
 	}
 
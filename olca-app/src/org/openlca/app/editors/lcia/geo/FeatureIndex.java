@@ -0,0 +1,75 @@
+package org.openlca.app.editors.lcia.geo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.openlca.geo.calc.Bounds;
+import org.openlca.geo.geojson.FeatureCollection;
+import org.openlca.geo.geojson.Geometry;
+
+/**
+ * An STR-tree of the bounding boxes of the features of a setup. It is used as
+ * a prefilter in the intersection calculation: only the features which
+ * bounding boxes intersect with the bounding box of a location need to be
+ * passed to the intersection calculator. The index is built once for a
+ * feature collection and is not modified after that, thus, it can be queried
+ * from multiple threads.
+ */
+class FeatureIndex {
+
+	private final FeatureCollection features;
+	private final STRtree tree;
+
+	private FeatureIndex(FeatureCollection features) {
+		this.features = features;
+		this.tree = new STRtree();
+	}
+
+	static FeatureIndex of(FeatureCollection coll) {
+		var index = new FeatureIndex(coll);
+		if (coll == null)
+			return index;
+		for (int i = 0; i < coll.features.size(); i++) {
+			var f = coll.features.get(i);
+			var envelope = envelopeOf(f == null ? null : f.geometry);
+			if (envelope != null) {
+				index.tree.insert(envelope, i);
+			}
+		}
+		// building the tree is not thread safe, so we do it here
+		// instead of lazily on the first query
+		index.tree.build();
+		return index;
+	}
+
+	/**
+	 * Returns the features which bounding boxes intersect with the bounding box
+	 * of the given geometry. The features are returned in the order of the
+	 * underlying feature collection.
+	 */
+	FeatureCollection candidatesOf(Geometry geometry) {
+		var candidates = new FeatureCollection();
+		var envelope = envelopeOf(geometry);
+		if (envelope == null || features == null || tree.isEmpty())
+			return candidates;
+		List<Integer> positions = new ArrayList<>();
+		tree.query(envelope, item -> positions.add((Integer) item));
+		Collections.sort(positions);
+		for (int pos : positions) {
+			candidates.features.add(features.features.get(pos));
+		}
+		return candidates;
+	}
+
+	private static Envelope envelopeOf(Geometry geometry) {
+		if (geometry == null)
+			return null;
+		Bounds bounds = Bounds.of(geometry);
+		if (bounds == null || bounds.isNil)
+			return null;
+		return new Envelope(bounds.minX, bounds.maxX, bounds.minY, bounds.maxY);
+	}
+}
@@ -1,14 +1,16 @@
 package org.openlca.app.editors.lcia.geo;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.function.DoubleBinaryOperator;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.openlca.app.db.Database;
+import org.openlca.app.preferences.Preferences;
 import org.openlca.core.database.IDatabase;
 import org.openlca.core.model.ImpactCategory;
 import org.openlca.core.model.ImpactFactor;
@@ -16,8 +18,6 @@ import org.openlca.core.model.Location;
 import org.openlca.expressions.FormulaInterpreter;
 import org.openlca.geo.calc.IntersectionCalculator;
 import org.openlca.geo.geojson.Feature;
-import org.openlca.geo.geojson.FeatureCollection;
-import org.openlca.geo.geojson.GeoJSON;
 import org.openlca.util.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,6 +32,8 @@ class GeoFactorCalculator implements Runnable {
 	private final List<Location> locations;
 	private final Logger log = LoggerFactory.getLogger(getClass());
 
+	private boolean cancelled;
+
 	GeoFactorCalculator(
 			Setup setup, ImpactCategory impact, List<Location> locations) {
 		this.setup = setup;
@@ -39,8 +41,20 @@ class GeoFactorCalculator implements Runnable {
 		this.locations = locations;
 	}
 
+	/**
+	 * Returns true when the calculation was cancelled. In this case, the
+	 * factors of the LCIA category were not modified.
+	 */
+	boolean wasCancelled() {
+		return cancelled;
+	}
+
 	@Override
 	public void run() {
+		run(new NullProgressMonitor());
+	}
+
+	public void run(IProgressMonitor monitor) {
 
 		// check the input
 		if (setup == null || impact == null) {
@@ -64,157 +78,182 @@ class GeoFactorCalculator implements Runnable {
 					+ "intersection calculation");
 			return;
 		}
-		var params = calcParamVals(setup.features);
+		monitor.beginTask("Calculate regionalized factors",
+				locations.size() + 1);
+		monitor.subTask("Index geographic features");
+		var index = setup.featureIndex();
+		monitor.worked(1);
+		var params = calcParamVals(index, monitor);
+		if (params == null || monitor.isCanceled()) {
+			cancelled = true;
+			monitor.done();
+			return;
+		}
 		createFactors(params);
+		monitor.done();
 	}
 
 	/**
-	 * Calculates the parameter values for the given locations from the respective
-	 * intersections with the given feature collection and the aggregation function
-	 * that is defined in the respective parameter.
+	 * Calculates the parameter values for the locations from the respective
+	 * intersections with the features of the given index and the aggregation
+	 * function that is defined in the respective parameter. The values are
+	 * stored in an array per location with the positions of the parameters in
+	 * the setup; a value of NaN means that the default value of the respective
+	 * parameter should be used. Returns null when the calculation was
+	 * cancelled.
 	 */
-	private Map<Location, List<Pair<GeoProperty, Double>>> calcParamVals(
-			FeatureCollection coll) {
-		IntersectionCalculator calc = IntersectionCalculator.on(coll);
-		Map<Location, List<Pair<Feature, Double>>> map = locations
-				.parallelStream()
-				.map(loc -> Pair.of(loc, calcIntersections(loc, calc)))
-				.collect(Collectors.toMap(p -> p.first, p -> p.second));
-
-		Map<Location, List<Pair<GeoProperty, Double>>> locParams = new HashMap<>();
-		map.forEach((loc, pairs) -> {
-			List<Pair<GeoProperty, Double>> paramVals = new ArrayList<>();
-			locParams.put(loc, paramVals);
-			for (GeoProperty param : setup.properties) {
-				if (pairs.isEmpty()) {
-					paramVals.add(Pair.of(param, null));
-					continue;
-				}
-
-				List<Double> vals = new ArrayList<>();
-				List<Double> shares = new ArrayList<>();
-				for (Pair<Feature, Double> pair : pairs) {
-					Feature f = pair.first;
-					Double share = pair.second;
-					if (f.properties == null)
-						continue;
-					Object valObj = f.properties.get(param.name);
-					if (!(valObj instanceof Number))
-						continue;
-					vals.add(((Number) valObj).doubleValue());
-					shares.add(share);
+	private double[][] calcParamVals(
+			FeatureIndex index, IProgressMonitor monitor) {
+		var values = new double[locations.size()][];
+		int configured = Preferences.getInt(Preferences.CALCULATION_THREADS, 0);
+		int parallelism = configured > 0
+				? configured
+				: Runtime.getRuntime().availableProcessors();
+		ExecutorService pool = Executors.newFixedThreadPool(
+				Math.min(parallelism, Math.max(1, locations.size())));
+		try {
+			var futures = new ArrayList<Future<?>>(locations.size());
+			for (int i = 0; i < locations.size(); i++) {
+				int pos = i;
+				futures.add(pool.submit(() -> {
+					if (monitor.isCanceled())
+						return;
+					var loc = locations.get(pos);
+					values[pos] = aggregate(calcIntersections(loc, index));
+					monitor.worked(1);
+				}));
+			}
+			for (var future : futures) {
+				if (monitor.isCanceled()) {
+					pool.shutdownNow();
+					return null;
 				}
-				Double aggVal = aggregate(param, vals, shares);
-				paramVals.add(Pair.of(param, aggVal));
-
+				future.get();
 			}
-		});
-		return locParams;
+		} catch (Exception e) {
+			log.error("failed to calculate the intersections", e);
+			return null;
+		} finally {
+			pool.shutdown();
+		}
+		return values;
 	}
 
 	/**
-	 * Calculates the intersection of the given location.
+	 * Calculates the intersection of the given location. Only the features
+	 * which bounding boxes intersect with the bounding box of the location are
+	 * passed to the intersection calculator.
 	 */
 	private List<Pair<Feature, Double>> calcIntersections(
-			Location loc, IntersectionCalculator calc) {
-		if (loc.geodata == null) {
-			log.info("No geodata for location {} found", loc);
-			return Collections.emptyList();
-		}
+			Location loc, FeatureIndex index) {
 		try {
-			FeatureCollection coll = GeoJSON.unpack(loc.geodata);
-			if (coll == null || coll.features.isEmpty()) {
-				log.info("No geodata for location {} found", loc);
-				return Collections.emptyList();
-			}
-			Feature f = coll.features.get(0);
-			if (f == null || f.geometry == null) {
+			var geometry = GeometryCache.geometryOf(loc);
+			if (geometry == null) {
 				log.info("No geodata for location {} found", loc);
-				return Collections.emptyList();
+				return List.of();
 			}
-
-			List<Pair<Feature, Double>> s = calc.shares(f.geometry);
+			var candidates = index.candidatesOf(geometry);
+			if (candidates.features.isEmpty())
+				return List.of();
+			var s = IntersectionCalculator.on(candidates).shares(geometry);
 			log.trace("Calculated intersetions for location {}", loc);
 			return s;
 		} catch (Exception e) {
 			log.error("Failed to calculate the "
 					+ "intersections for location " + loc, e);
-			return Collections.emptyList();
+			return List.of();
 		}
 	}
 
 	/**
-	 * Aggregates the given parameter values that were extracted from the
-	 * intersecting features with the aggregation function that is defined in the
-	 * given parameter. If the lists are empty `null` is returned which means that
-	 * the default parameter value should be used in this case. The shares are only
-	 * used when a weighted average should be calculated, which is the default
-	 * aggregation function. Note that the shares must have the same length as the
-	 * corresponding parameter values.
+	 * Aggregates the parameter values of the intersecting features with the
+	 * aggregation functions that are defined in the parameters of the setup.
 	 */
-	private Double aggregate(
-		GeoProperty param, List<Double> vals, List<Double> shares) {
-
-		if (param == null || vals.isEmpty()) {
-			return null;
+	private double[] aggregate(List<Pair<Feature, Double>> pairs) {
+		var params = setup.properties;
+		var aggregated = new double[params.size()];
+		Arrays.fill(aggregated, Double.NaN);
+		if (pairs.isEmpty())
+			return aggregated;
+		var vals = new double[pairs.size()];
+		var shares = new double[pairs.size()];
+		for (int i = 0; i < params.size(); i++) {
+			var param = params.get(i);
+			int n = 0;
+			for (var pair : pairs) {
+				Feature f = pair.first;
+				if (f.properties == null)
+					continue;
+				Object valObj = f.properties.get(param.name);
+				if (!(valObj instanceof Number num))
+					continue;
+				vals[n] = num.doubleValue();
+				shares[n] = pair.second == null ? Double.NaN : pair.second;
+				n++;
+			}
+			aggregated[i] = aggregate(param, vals, shares, n);
 		}
+		return aggregated;
+	}
 
-		// take the minimum or maximum value
-		if (param.aggregation == GeoAggregation.MINIMUM
-				|| param.aggregation == GeoAggregation.MAXIMUM) {
+	/**
+	 * Aggregates the first {@code n} parameter values that were extracted from
+	 * the intersecting features with the aggregation function that is defined
+	 * in the given parameter. If there are no values, NaN is returned which
+	 * means that the default parameter value should be used in this case. The
+	 * shares are only used when a weighted average should be calculated, which
+	 * is the default aggregation function; shares that are NaN are ignored.
+	 */
+	private double aggregate(
+		GeoProperty param, double[] vals, double[] shares, int n) {
 
-			DoubleBinaryOperator fn = param.aggregation == GeoAggregation.MINIMUM
-					? Math::min
-					: Math::max;
+		if (param == null || n == 0) {
+			return Double.NaN;
+		}
 
-			double val = vals.get(0) == null ? 0 : vals.get(0);
-			for (int i = 1; i < vals.size(); i++) {
-				Double next = vals.get(i);
-				if (next == null)
-					continue;
-				val = fn.applyAsDouble(val, next);
+		// take the minimum or maximum value
+		if (param.aggregation == GeoAggregation.MINIMUM) {
+			double val = vals[0];
+			for (int i = 1; i < n; i++) {
+				val = Math.min(val, vals[i]);
+			}
+			return val;
+		}
+		if (param.aggregation == GeoAggregation.MAXIMUM) {
+			double val = vals[0];
+			for (int i = 1; i < n; i++) {
+				val = Math.max(val, vals[i]);
 			}
 			return val;
 		}
 
 		// calculate the average value
 		if (param.aggregation == GeoAggregation.AVERAGE) {
-
 			double sum = 0;
-			int count = 0;
-			for (int i = 0; i < vals.size(); i++) {
-				Double next = vals.get(i);
-				if (next == null)
-					continue;
-				sum += next;
-				count++;
+			for (int i = 0; i < n; i++) {
+				sum += vals[i];
 			}
-
-			if (count == 0)
-				return null;
-			return sum / count;
+			return sum / n;
 		}
 
 		// calculate the weighted average by default
 		double sum = 0;
 		double wsum = 0;
-		for (int i = 0; i < vals.size(); i++) {
-			Double next = vals.get(i);
-			Double share = shares.get(i);
-			if (next == null || share == null)
+		for (int i = 0; i < n; i++) {
+			double share = shares[i];
+			if (Double.isNaN(share))
 				continue;
-			sum += next * share;
+			sum += vals[i] * share;
 			wsum += share;
 		}
 		if (wsum == 0) {
-			return null;
+			return Double.NaN;
 		}
 		return sum / wsum;
 
 	}
 
-	private void createFactors(
-			Map<Location, List<Pair<GeoProperty, Double>>> locParams) {
+	private void createFactors(double[][] locParams) {
 
 		// remove all LCIA factors with a flow and location
 		// that will be calculated
@@ -267,19 +306,20 @@ class GeoFactorCalculator implements Runnable {
 		}
 
 		// finally, generate regionalized factors
-		for (Location loc : locParams.keySet()) {
+		for (int i = 0; i < locations.size(); i++) {
+			Location loc = locations.get(i);
 
 			// bind the location specific parameter values
 			// to a formula interpreter
 			fi = new FormulaInterpreter();
-			List<Pair<GeoProperty, Double>> pairs = locParams.get(loc);
-			if (pairs == null)
+			double[] vals = locParams[i];
+			if (vals == null)
 				continue;
-			for (Pair<GeoProperty, Double> pair : pairs) {
-				GeoProperty param = pair.first;
-				double val = pair.second == null
+			for (int j = 0; j < vals.length; j++) {
+				GeoProperty param = setup.properties.get(j);
+				double val = Double.isNaN(vals[j])
 						? param.defaultValue
-						: pair.second;
+						: vals[j];
 				fi.bind(param.identifier, Double.toString(val));
 			}
 
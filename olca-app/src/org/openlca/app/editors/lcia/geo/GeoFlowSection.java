@@ -1,5 +1,6 @@
 package org.openlca.app.editors.lcia.geo;
 
+import java.lang.reflect.InvocationTargetException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
@@ -10,9 +11,9 @@ import org.eclipse.jface.viewers.LabelProvider;
 import org.eclipse.jface.viewers.TableViewer;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.forms.widgets.FormToolkit;
 import org.eclipse.ui.forms.widgets.Section;
-import org.openlca.app.App;
 import org.openlca.app.M;
 import org.openlca.app.components.FormulaCellEditor;
 import org.openlca.app.components.ModelSelector;
@@ -20,6 +21,7 @@ import org.openlca.app.db.Database;
 import org.openlca.app.rcp.images.Icon;
 import org.openlca.app.rcp.images.Images;
 import org.openlca.app.util.Actions;
+import org.openlca.app.util.ErrorReporter;
 import org.openlca.app.util.Labels;
 import org.openlca.app.util.MsgBox;
 import org.openlca.app.util.Numbers;
@@ -140,11 +142,19 @@ class GeoFlowSection {
 
 		var calc = new GeoFactorCalculator(
 				page.setup, page.editor.getModel(), locations);
-		App.runWithProgress("Calculate regionalized factors", calc, () -> {
-			page.editor.setDirty(true);
-			page.editor.emitEvent(page.editor.FACTORS_CHANGED_EVENT);
-			page.editor.setActivePage("ImpactFactorPage");
-		});
+		try {
+			// the calculation can be cancelled; the factors are then unchanged
+			PlatformUI.getWorkbench().getProgressService()
+					.run(true, true, calc::run);
+		} catch (InvocationTargetException | InterruptedException e) {
+			ErrorReporter.on("Failed to calculate regionalized factors", e);
+			return;
+		}
+		if (calc.wasCancelled())
+			return;
+		page.editor.setDirty(true);
+		page.editor.emitEvent(page.editor.FACTORS_CHANGED_EVENT);
+		page.editor.setActivePage("ImpactFactorPage");
 	}
 
 	void update() {
@@ -0,0 +1,75 @@
+package org.openlca.app.editors.lcia.geo;
+
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openlca.core.model.Location;
+import org.openlca.geo.geojson.GeoJSON;
+import org.openlca.geo.geojson.Geometry;
+
+/**
+ * A cache of the decoded geometries of the locations of the active database,
+ * so that the geometries do not need to be unpacked again when regionalized
+ * factors are calculated multiple times for the same locations. The cache
+ * holds the most recently used geometries only softly, so that they can be
+ * collected when memory gets low, and it is cleared when the database is
+ * closed.
+ */
+public final class GeometryCache {
+
+	private static final int MAX_SIZE = 500;
+
+	private static final Map<Long, SoftReference<Entry>> entries =
+			new LinkedHashMap<>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(
+						Map.Entry<Long, SoftReference<Entry>> eldest) {
+					return size() > MAX_SIZE;
+				}
+			};
+
+	private GeometryCache() {
+	}
+
+	public static synchronized void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Returns the geometry of the first feature of the geodata of the given
+	 * location, or {@code null} if there is no such geometry.
+	 */
+	static Geometry geometryOf(Location loc) {
+		if (loc == null || loc.geodata == null)
+			return null;
+		synchronized (GeometryCache.class) {
+			var ref = entries.get(loc.id);
+			var cached = ref != null ? ref.get() : null;
+			if (cached != null && cached.isDecodedFrom(loc.geodata))
+				return cached.geometry;
+		}
+		var coll = GeoJSON.unpack(loc.geodata);
+		if (coll == null || coll.features.isEmpty())
+			return null;
+		var f = coll.features.get(0);
+		if (f == null || f.geometry == null)
+			return null;
+		synchronized (GeometryCache.class) {
+			entries.put(loc.id, new SoftReference<>(
+					new Entry(loc.geodata, f.geometry)));
+		}
+		return f.geometry;
+	}
+
+	/**
+	 * A decoded geometry together with the packed geodata it was decoded from.
+	 */
+	private record Entry(byte[] geodata, Geometry geometry) {
+
+		boolean isDecodedFrom(byte[] data) {
+			return data == geodata || Arrays.equals(data, geodata);
+		}
+	}
+}
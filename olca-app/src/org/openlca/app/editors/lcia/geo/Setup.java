@@ -28,6 +28,12 @@ class Setup {
 
 	final FeatureCollection features;
 
+	/**
+	 * The spatial index of the features; it is created when it is requested
+	 * the first time and then reused for all calculations with this setup.
+	 */
+	private FeatureIndex featureIndex;
+
 	private Setup(FeatureCollection features) {
 		this.features = features;
 	}
@@ -86,6 +92,13 @@ class Setup {
 		return setup;
 	}
 
+	synchronized FeatureIndex featureIndex() {
+		if (featureIndex == null) {
+			featureIndex = FeatureIndex.of(features);
+		}
+		return featureIndex;
+	}
+
 	void writeTo(File file) {
 		if (file == null)
 			return;
@@ -65,7 +65,7 @@ class EditorPage extends FormPage {
 		filter.addModifyListener(e -> doFilter.run());
 		filterCombo.onChange = doFilter;
 
-		table = Tables.createViewer(body,
+		table = Tables.createLazyViewer(body,
 			M.Name,
 			M.ParameterScope,
 			M.Value,
@@ -92,7 +92,7 @@ class ExchangeTable {
 
 	private void render(Section section) {
 		var comp = UI.sectionClient(section, page.toolkit, 1);
-		viewer = Tables.createViewer(comp, getColumns());
+		viewer = Tables.createLazyViewer(comp, getColumns());
 		label = new ExchangeLabel(editor);
 		viewer.setLabelProvider(label);
 		bindModifiers();
@@ -0,0 +1,185 @@
+package org.openlca.app.editors.projects;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.openlca.app.M;
+import org.openlca.app.preferences.Preferences;
+import org.openlca.app.rcp.Workspace;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.math.SystemCalculator;
+import org.openlca.core.model.CalculationSetup;
+import org.openlca.core.model.ProductSystem;
+import org.openlca.core.model.Project;
+import org.openlca.core.model.ProjectVariant;
+import org.openlca.core.results.LcaResult;
+import org.openlca.core.results.ProjectResult;
+
+/**
+ * Calculates the enabled variants of a project. The variants are independent
+ * from each other and are thus solved in parallel on a small thread pool. The
+ * number of workers can be configured in the preferences; otherwise it is
+ * bounded by the number of processors and the free memory, as every
+ * calculation holds its own matrices in memory.
+ * <p>
+ * The product systems and the impact method of the project are managed
+ * entities that are shared by the workers. Their lazy collections are thus
+ * loaded before the workers are started, as concurrent first accesses are
+ * not safe.
+ */
+class ProjectCalculator {
+
+	private final Project project;
+	private final IDatabase db;
+
+	private ProjectResult result;
+	private Throwable error;
+	private boolean cancelled;
+
+	ProjectCalculator(Project project, IDatabase db) {
+		this.project = project;
+		this.db = db;
+	}
+
+	/**
+	 * Returns the calculated project result, or {@code null} if the
+	 * calculation failed or was cancelled.
+	 */
+	ProjectResult result() {
+		return result;
+	}
+
+	/**
+	 * Returns the error of a failed variant calculation, or {@code null} if
+	 * there was no error.
+	 */
+	Throwable error() {
+		return error;
+	}
+
+	boolean wasCancelled() {
+		return cancelled;
+	}
+
+	void run(IProgressMonitor monitor) {
+		var variants = project.variants.stream()
+				.filter(v -> !v.isDisabled)
+				.toList();
+		monitor.beginTask(M.Calculate, variants.size());
+		var done = new AtomicInteger();
+		var pool = Executors.newFixedThreadPool(prepare(variants));
+		try {
+			var futures = new ArrayList<Future<LcaResult>>(variants.size());
+			for (var variant : variants) {
+				futures.add(pool.submit(() -> {
+					if (monitor.isCanceled())
+						return null;
+					var r = calculate(variant);
+					monitor.subTask(variant.name + " ("
+							+ done.incrementAndGet() + "/" + variants.size() + ")");
+					monitor.worked(1);
+					return r;
+				}));
+			}
+			var projectResult = new ProjectResult();
+			for (int i = 0; i < variants.size(); i++) {
+				var r = await(futures.get(i), monitor);
+				if (r == null) {
+					cancelled = true;
+					return;
+				}
+				projectResult.addResult(variants.get(i), r);
+			}
+			result = projectResult;
+		} catch (ExecutionException e) {
+			error = e.getCause() != null ? e.getCause() : e;
+		} catch (InterruptedException e) {
+			cancelled = true;
+			Thread.currentThread().interrupt();
+		} finally {
+			pool.shutdownNow();
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Loads the lazy collections of the shared entities that are used in the
+	 * calculations and returns the number of workers.
+	 */
+	private int prepare(List<ProjectVariant> variants) {
+		var systems = new HashSet<ProductSystem>();
+		long maxSize = 0;
+		for (var variant : variants) {
+			var system = variant.productSystem;
+			if (system == null || !systems.add(system))
+				continue;
+			system.processLinks.size();
+			system.parameterSets.size();
+			long n = system.processes.size();
+			maxSize = Math.max(maxSize, n * n);
+		}
+		var method = project.impactMethod;
+		if (method != null) {
+			method.impactCategories.size();
+			method.nwSets.size();
+		}
+		if (project.nwSet != null) {
+			project.nwSet.factors.size();
+		}
+
+		int max = Math.max(1, variants.size());
+		int configured = Preferences.getInt(Preferences.CALCULATION_THREADS, 0);
+		if (configured > 0)
+			return Math.min(configured, max);
+
+		// assume that each calculation needs a dense technology matrix and
+		// its inverse in the worst case
+		int workers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		if (maxSize > 0) {
+			var rt = Runtime.getRuntime();
+			long free = rt.maxMemory() - (rt.totalMemory() - rt.freeMemory());
+			long byMemory = free / (16 * maxSize);
+			workers = (int) Math.max(1, Math.min(workers, byMemory));
+		}
+		return Math.min(workers, max);
+	}
+
+	/**
+	 * Waits for the result of the given variant calculation. Returns
+	 * {@code null} when the calculation was cancelled in the meantime.
+	 */
+	private LcaResult await(Future<LcaResult> future, IProgressMonitor monitor)
+			throws ExecutionException, InterruptedException {
+		while (true) {
+			if (monitor.isCanceled())
+				return null;
+			try {
+				return future.get(100, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check the monitor again
+			}
+		}
+	}
+
+	private LcaResult calculate(ProjectVariant variant) {
+		var setup = CalculationSetup.of(variant.productSystem)
+				.withUnit(variant.unit)
+				.withFlowPropertyFactor(variant.flowPropertyFactor)
+				.withAmount(variant.amount)
+				.withAllocation(variant.allocationMethod)
+				.withImpactMethod(project.impactMethod)
+				.withNwSet(project.nwSet)
+				.withParameters(variant.parameterRedefs);
+		return new SystemCalculator(db)
+				.withLibraryDir(Workspace.getLibraryDir())
+				.calculate(setup);
+	}
+}
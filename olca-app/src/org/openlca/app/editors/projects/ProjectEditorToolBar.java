@@ -1,9 +1,11 @@
 package org.openlca.app.editors.projects;
 
+import java.lang.reflect.InvocationTargetException;
+
 import org.apache.commons.math3.exception.MathIllegalArgumentException;
 import org.eclipse.jface.action.IToolBarManager;
+import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.part.EditorActionBarContributor;
-import org.openlca.app.App;
 import org.openlca.app.M;
 import org.openlca.app.db.Database;
 import org.openlca.app.editors.Editors;
@@ -11,7 +13,6 @@ import org.openlca.app.editors.projects.results.ProjectResultEditor;
 import org.openlca.app.util.Actions;
 import org.openlca.app.util.ErrorReporter;
 import org.openlca.app.util.MsgBox;
-import org.openlca.core.results.ProjectResult;
 
 public class ProjectEditorToolBar extends EditorActionBarContributor {
 
@@ -47,26 +48,33 @@ public class ProjectEditorToolBar extends EditorActionBarContributor {
 			return;
 		}
 
-		var ref = new Object() {
-			ProjectResult result;
-		};
-		Runnable calculation = () -> {
-			try {
-				ref.result = ProjectResult.calculate(project, db);
-			} catch (OutOfMemoryError e) {
+		// the variants are calculated in parallel and the calculation can be
+		// cancelled in the progress dialog
+		var calc = new ProjectCalculator(project, db);
+		try {
+			PlatformUI.getWorkbench().getProgressService()
+					.run(true, true, calc::run);
+		} catch (InvocationTargetException | InterruptedException e) {
+			ErrorReporter.on("Calculation failed", e);
+			return;
+		}
+		if (calc.wasCancelled())
+			return;
+		if (calc.error() != null) {
+			var e = calc.error();
+			if (e instanceof OutOfMemoryError) {
 				MsgBox.error(M.OutOfMemory, M.CouldNotAllocateMemoryError);
-			} catch (MathIllegalArgumentException e) {
+			} else if (e instanceof MathIllegalArgumentException) {
 				MsgBox.error("Matrix error", e.getMessage());
-			} catch (Exception e) {
+			} else {
 				ErrorReporter.on("Calculation failed", e);
 			}
-		};
-
-		App.runWithProgress(M.Calculate, calculation, () -> {
-			if (ref.result == null)
-				return;
-			var data = ProjectResultData.of(db, project, ref.result, editor.report);
-			ProjectResultEditor.open(data);
-		});
+			return;
+		}
+		var result = calc.result();
+		if (result == null)
+			return;
+		var data = ProjectResultData.of(db, project, result, editor.report);
+		ProjectResultEditor.open(data);
 	}
 }
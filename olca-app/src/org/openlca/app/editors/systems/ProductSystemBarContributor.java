@@ -80,7 +80,7 @@ public class ProductSystemBarContributor extends EditorActionBarContributor {
 				return;
 			var stats = new AtomicReference<Statistics>();
 			App.runWithProgress("Updating statistics ...",
-					() -> stats.set(Statistics.calculate(system, Cache.getEntityCache())));
+					() -> stats.set(Statistics.of(system, Cache.getEntityCache())));
 			if (!stats.get().connectedGraph) {
 				var b = Question.ask("Graph not fully connected",
 						"Calculate results anyway?");
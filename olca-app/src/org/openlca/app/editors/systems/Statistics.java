@@ -1,21 +1,19 @@
 package org.openlca.app.editors.systems;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
-import java.util.Queue;
+import java.util.Map;
 
 import org.openlca.app.db.Database;
+import org.openlca.app.navigation.DescriptorCache;
 import org.openlca.app.util.ErrorReporter;
 import org.openlca.core.database.EntityCache;
 import org.openlca.core.database.IDatabase;
 import org.openlca.core.database.NativeSql;
 import org.openlca.core.matrix.cache.ProcessTable;
-import org.openlca.core.matrix.index.LongPair;
-import org.openlca.core.model.ProcessLink;
 import org.openlca.core.model.ProductSystem;
 import org.openlca.core.model.descriptors.Descriptor;
 import org.openlca.core.model.descriptors.ProcessDescriptor;
@@ -25,15 +23,34 @@ import org.openlca.core.model.descriptors.RootDescriptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
-
+import gnu.trove.impl.Constants;
+import gnu.trove.map.hash.TLongIntHashMap;
 import gnu.trove.map.hash.TLongLongHashMap;
+import gnu.trove.set.hash.TLongHashSet;
 
+/**
+ * Calculates some statistics of the graph of a product system. The process
+ * links are mapped to dense process indices and the graph is stored in
+ * compressed adjacency arrays, so that systems with millions of links can be
+ * analyzed without boxing every ID.
+ */
 class Statistics {
 
-	private final ProductSystem system;
-	private final EntityCache cache;
+	private static final int TOP_K = 5;
+	private static final int CACHE_SIZE = 8;
+
+	/**
+	 * The statistics of the last analyzed product systems. An entry is only
+	 * used when the fingerprint of the product system is still the same.
+	 */
+	private static final Map<Fingerprint, Statistics> cached =
+			new LinkedHashMap<>(CACHE_SIZE, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(
+						Map.Entry<Fingerprint, Statistics> eldest) {
+					return size() > CACHE_SIZE;
+				}
+			};
 
 	int processCount;
 	int linkCount;
@@ -47,15 +64,36 @@ class Statistics {
 	int defaultProviderLinkCount;
 	int multiProviderLinkCount;
 
-	private Statistics(ProductSystem system, EntityCache cache) {
-		this.system = system;
-		this.cache = cache;
+	private Statistics() {
+	}
+
+	/**
+	 * Returns the cached statistics of the given product system if it was not
+	 * changed since they were calculated, otherwise the statistics are
+	 * calculated.
+	 */
+	public static Statistics of(ProductSystem system, EntityCache cache) {
+		var fingerprint = Fingerprint.of(system);
+		synchronized (cached) {
+			var stats = cached.get(fingerprint);
+			if (stats != null)
+				return stats;
+		}
+		return calculate(system, cache, fingerprint);
 	}
 
 	public static Statistics calculate(ProductSystem system, EntityCache cache) {
-		var statistics = new Statistics(system, cache);
+		return calculate(system, cache, Fingerprint.of(system));
+	}
+
+	private static Statistics calculate(
+			ProductSystem system, EntityCache cache, Fingerprint fingerprint) {
+		var statistics = new Statistics();
 		try {
-			statistics.calculate();
+			statistics.calculate(system, cache, Database.get());
+			synchronized (cached) {
+				cached.put(fingerprint, statistics);
+			}
 		} catch (Exception e) {
 			ErrorReporter.on(
 				"Failed to calculate product system statistics for " + system, e);
@@ -63,23 +101,113 @@ class Statistics {
 		return statistics;
 	}
 
-	private void calculate() {
+	private void calculate(
+			ProductSystem system, EntityCache cache, IDatabase db) {
 		processCount = system.processes.size();
 		linkCount = system.processLinks.size();
 		refProcess = Descriptor.of(system.referenceProcess);
-		HashSet<LongPair> processProducts = new HashSet<>();
-		Multimap<Long, Long> inEdges = HashMultimap.create();
-		Multimap<Long, Long> outEdges = HashMultimap.create();
+
+		// map the processes to dense indices
+		var index = new TLongIntHashMap(
+				Math.max(10, processCount), 0.5f, -1L, -1);
+		for (var id : system.processes) {
+			indexOf(index, id);
+		}
+		if (system.referenceProcess != null) {
+			indexOf(index, system.referenceProcess.id);
+		}
+
+		// collect the links and provider information in one sweep
+		var defaults = defaultProviders(system, db);
+		var ptable = ProcessTable.create(db);
+		var providerCounts = new TLongIntHashMap(
+				Constants.DEFAULT_CAPACITY, 0.5f, -1L, -1);
+		var flowIndex = new TLongIntHashMap(
+				Constants.DEFAULT_CAPACITY, 0.5f, -1L, -1);
+		var processProducts = new TLongHashSet();
+		int m = system.processLinks.size();
+		int[] providers = new int[m];
+		int[] recipients = new int[m];
+		int pos = 0;
 		for (var link : system.processLinks) {
-			processProducts.add(LongPair.of(link.providerId, link.flowId));
-			inEdges.put(link.processId, link.providerId);
-			outEdges.put(link.providerId, link.processId);
+			int provider = indexOf(index, link.providerId);
+			int recipient = indexOf(index, link.processId);
+			providers[pos] = provider;
+			recipients[pos] = recipient;
+			pos++;
+
+			int flow = indexOf(flowIndex, link.flowId);
+			processProducts.add(((long) provider << 32) | (flow & 0xffffffffL));
+
+			if (defaults.get(link.exchangeId) == link.providerId) {
+				defaultProviderLinkCount++;
+			}
+			int count = providerCounts.get(link.flowId);
+			if (count < 0) {
+				var products = ptable.getProviders(link.flowId);
+				count = products == null ? 0 : products.size();
+				providerCounts.put(link.flowId, count);
+			}
+			if (count == 1) {
+				singleProviderLinkCount++;
+			} else if (count > 1) {
+				multiProviderLinkCount++;
+			}
 		}
 		techMatrixSize = processProducts.size();
-		connectedGraph = isConnectedGraph(inEdges);
-		topInDegrees = calculateMostLinked(inEdges, 5);
-		topOutDegrees = calculateMostLinked(outEdges, 5);
-		collectProviderInfos(system, Database.get());
+
+		int n = index.size();
+		var inEdges = Adjacency.of(n, recipients, providers);
+		var outEdges = Adjacency.of(n, providers, recipients);
+		connectedGraph = isConnectedGraph(system, index, inEdges);
+
+		var ids = new long[n];
+		index.forEachEntry((id, i) -> {
+			ids[i] = id;
+			return true;
+		});
+		topInDegrees = mostLinked(inEdges, ids, cache);
+		topOutDegrees = mostLinked(outEdges, ids, cache);
+	}
+
+	private static int indexOf(TLongIntHashMap index, long id) {
+		int i = index.get(id);
+		if (i >= 0)
+			return i;
+		i = index.size();
+		index.put(id, i);
+		return i;
+	}
+
+	/**
+	 * Returns the default providers of the exchanges that are linked in the
+	 * given system: exchange ID -> default provider ID.
+	 */
+	private static TLongLongHashMap defaultProviders(
+			ProductSystem system, IDatabase db) {
+		var exchanges = new TLongHashSet(system.processLinks.size());
+		for (var link : system.processLinks) {
+			exchanges.add(link.exchangeId);
+		}
+		var defaults = new TLongLongHashMap();
+		String query = "select id, f_default_provider from tbl_exchanges "
+				+ "where f_default_provider <> 0";
+		try {
+			NativeSql.on(db).query(query, r -> {
+				long eid = r.getLong(1);
+				if (!exchanges.contains(eid))
+					return true;
+				long defprov = r.getLong(2);
+				if (defprov != 0L) {
+					defaults.put(eid, defprov);
+				}
+				return true;
+			});
+		} catch (Exception e) {
+			Logger log = LoggerFactory.getLogger(Statistics.class);
+			log.error("Failed to collect default providers", e);
+		}
+		return defaults;
 	}
 
 	/**
@@ -87,102 +215,209 @@ class Statistics {
 	 * product system traversing the graph starting from the reference process and
 	 * following the incoming process links.
 	 */
-	private boolean isConnectedGraph(Multimap<Long, Long> inEdges) {
+	private boolean isConnectedGraph(ProductSystem system,
+			TLongIntHashMap index, Adjacency inEdges) {
 		if (system.referenceProcess == null)
 			return false;
-		HashMap<Long, Boolean> visited = new HashMap<>();
-		Queue<Long> queue = new ArrayDeque<>();
-		queue.add(system.referenceProcess.id);
-		while (!queue.isEmpty()) {
-			Long recipient = queue.poll();
-			visited.put(recipient, Boolean.TRUE);
-			for (Long provider : inEdges.get(recipient)) {
-				Boolean state = visited.get(provider);
-				if (!Objects.equals(state, Boolean.TRUE)
-					&& !queue.contains(provider))
-					queue.add(provider);
-			}
-		}
-		for (Long processId : system.processes) {
-			Boolean val = visited.get(processId);
-			if (!Objects.equals(val, Boolean.TRUE))
+		var visited = new BitSet(inEdges.size());
+		int[] queue = new int[inEdges.size()];
+		int head = 0, tail = 0;
+		int start = index.get(system.referenceProcess.id);
+		visited.set(start);
+		queue[tail++] = start;
+		while (head < tail) {
+			int recipient = queue[head++];
+			for (int k = inEdges.offsets[recipient];
+					 k < inEdges.offsets[recipient + 1]; k++) {
+				int provider = inEdges.targets[k];
+				if (!visited.get(provider)) {
+					visited.set(provider);
+					queue[tail++] = provider;
+				}
+			}
+		}
+		for (var processId : system.processes) {
+			if (!visited.get(index.get(processId)))
 				return false;
 		}
 		return true;
 	}
 
-	private List<LinkDegree> calculateMostLinked(
-		Multimap<Long, Long> edges, int maxSize) {
-		Long[] keys = new Long[maxSize];
-		int[] degrees = new int[maxSize];
-		for (Long id : edges.keySet()) {
-			int degree = edges.get(id).size();
+	/**
+	 * Selects the nodes with the highest degrees with a min-heap of the
+	 * current top nodes.
+	 */
+	private List<LinkDegree> mostLinked(
+			Adjacency edges, long[] ids, EntityCache cache) {
+		int[] heap = new int[TOP_K];
+		int size = 0;
+		for (int node = 0; node < edges.size(); node++) {
+			int degree = edges.degree(node);
 			if (degree == 0)
 				continue;
-			Long key = id;
-			for (int i = 0; i < maxSize; i++) {
-				if (degree <= degrees[i])
-					continue;
-				if (keys[i] == null) {
-					keys[i] = key;
-					degrees[i] = degree;
-					break;
-				} else {
-					Long swapKey = keys[i];
-					int swapDegree = degrees[i];
-					keys[i] = key;
-					degrees[i] = degree;
-					key = swapKey;
-					degree = swapDegree;
-				}
+			if (size < TOP_K) {
+				heap[size] = node;
+				siftUp(heap, size, edges);
+				size++;
+			} else if (degree > edges.degree(heap[0])) {
+				heap[0] = node;
+				siftDown(heap, size, edges);
 			}
 		}
-		return createLinkValues(keys, degrees);
-	}
 
-	private List<LinkDegree> createLinkValues(Long[] ids, int[] degrees) {
-		var linkValues = new ArrayList<LinkDegree>();
-		for (int i = 0; i < ids.length; i++) {
-			Long id = ids[i];
-			if (id == null)
-				break;
-			linkValues.add(LinkDegree.of(id, cache, degrees[i]));
+		var nodes = Arrays.copyOf(heap, size);
+		// sort by degree, descending; stable for equal degrees
+		var sorted = Arrays.stream(nodes).boxed()
+				.sorted((a, b) -> edges.degree(b) != edges.degree(a)
+						? Integer.compare(edges.degree(b), edges.degree(a))
+						: Integer.compare(a, b))
+				.toList();
+		var linkValues = new ArrayList<LinkDegree>(size);
+		for (int node : sorted) {
+			linkValues.add(LinkDegree.of(ids[node], cache, edges.degree(node)));
 		}
 		return linkValues;
 	}
 
-	private void collectProviderInfos(ProductSystem system, IDatabase db) {
+	private static void siftUp(int[] heap, int i, Adjacency edges) {
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (!isLower(heap[i], heap[parent], edges))
+				return;
+			swap(heap, i, parent);
+			i = parent;
+		}
+	}
 
-		var defaults = new TLongLongHashMap();
-		String query = "select id, f_default_provider from tbl_exchanges";
-		try {
-			NativeSql.on(db).query(query, r -> {
-				long defprov = r.getLong(2);
-				if (defprov == 0L)
-					return true;
-				long eid = r.getLong(1);
-				defaults.put(eid, defprov);
-				return true;
-			});
-		} catch (Exception e) {
-			Logger log = LoggerFactory.getLogger(getClass());
-			log.error("Failed to collect default providers", e);
+	private static void siftDown(int[] heap, int size, Adjacency edges) {
+		int i = 0;
+		while (true) {
+			int left = 2 * i + 1;
+			int right = left + 1;
+			int min = i;
+			if (left < size && isLower(heap[left], heap[min], edges)) {
+				min = left;
+			}
+			if (right < size && isLower(heap[right], heap[min], edges)) {
+				min = right;
+			}
+			if (min == i)
+				return;
+			swap(heap, i, min);
+			i = min;
 		}
+	}
 
-		var ptable = ProcessTable.create(db);
-		for (ProcessLink link : system.processLinks) {
-			long defaultP = defaults.get(link.exchangeId);
-			if (defaultP == link.providerId) {
-				defaultProviderLinkCount++;
+	/**
+	 * Returns true if node a should be removed from the top nodes before node b:
+	 * it has a lower degree or it has the same degree but was visited later.
+	 */
+	private static boolean isLower(int a, int b, Adjacency edges) {
+		int da = edges.degree(a);
+		int db = edges.degree(b);
+		return da != db ? da < db : a > b;
+	}
+
+	private static void swap(int[] heap, int i, int j) {
+		int t = heap[i];
+		heap[i] = heap[j];
+		heap[j] = t;
+	}
+
+	/**
+	 * A graph in compressed sparse row format: the neighbors of node i are
+	 * stored in {@code targets[offsets[i]] .. targets[offsets[i + 1] - 1]}.
+	 * Duplicate edges are removed, so that the degree of a node is the number
+	 * of distinct neighbors.
+	 */
+	private record Adjacency(int[] offsets, int[] targets) {
+
+		static Adjacency of(int n, int[] from, int[] to) {
+			int[] counts = new int[n + 1];
+			for (int f : from) {
+				counts[f + 1]++;
 			}
-			var products = ptable.getProviders(link.flowId);
-			if (products == null || products.isEmpty())
-				continue;
-			if (products.size() == 1) {
-				singleProviderLinkCount++;
-			} else {
-				multiProviderLinkCount++;
+			for (int i = 0; i < n; i++) {
+				counts[i + 1] += counts[i];
 			}
+			int[] next = Arrays.copyOf(counts, n);
+			int[] targets = new int[from.length];
+			for (int k = 0; k < from.length; k++) {
+				targets[next[from[k]]++] = to[k];
+			}
+
+			// sort the rows and remove duplicates in place
+			int[] offsets = new int[n + 1];
+			int pos = 0;
+			for (int i = 0; i < n; i++) {
+				int start = counts[i];
+				int end = counts[i + 1];
+				offsets[i] = pos;
+				Arrays.sort(targets, start, end);
+				for (int k = start; k < end; k++) {
+					if (k > start && targets[k] == targets[k - 1])
+						continue;
+					targets[pos++] = targets[k];
+				}
+			}
+			offsets[n] = pos;
+			return new Adjacency(offsets, targets);
+		}
+
+		int size() {
+			return offsets.length - 1;
+		}
+
+		int degree(int node) {
+			return offsets[node + 1] - offsets[node];
+		}
+	}
+
+	/**
+	 * Identifies the state of a product system for which statistics were
+	 * calculated. Next to the size of the system, it contains an
+	 * order-independent hash of its processes and links, so that unsaved
+	 * changes of the system are detected too. The provider counts are
+	 * calculated from the processes in the database, thus, the fingerprint
+	 * also contains the version of the descriptor cache which changes when
+	 * models are changed in the database.
+	 */
+	private record Fingerprint(
+			String database,
+			long dbVersion,
+			long systemId,
+			long refProcess,
+			int processCount,
+			int linkCount,
+			long hash) {
+
+		static Fingerprint of(ProductSystem system) {
+			var db = Database.get();
+			long hash = 0;
+			for (var id : system.processes) {
+				hash += mix(id);
+			}
+			for (var link : system.processLinks) {
+				long h = mix(link.providerId);
+				h = mix(h ^ link.processId);
+				h = mix(h ^ link.flowId);
+				h = mix(h ^ link.exchangeId);
+				hash += h;
+			}
+			return new Fingerprint(
+					db != null ? db.getName() : null,
+					DescriptorCache.version(),
+					system.id,
+					system.referenceProcess != null ? system.referenceProcess.id : 0,
+					system.processes.size(),
+					system.processLinks.size(),
+					hash);
+		}
+
+		private static long mix(long x) {
+			x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+			x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+			return x ^ (x >>> 31);
 		}
 	}
 
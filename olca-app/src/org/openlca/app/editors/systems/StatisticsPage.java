@@ -61,7 +61,7 @@ class StatisticsPage extends ModelPage<ProductSystem> {
 		linkDegreeTable(body, tk, true);
 		linkDegreeTable(body, tk, false);
 		form.reflow(true);
-		calculate();
+		calculate(false);
 	}
 
 	private void generalSection(FormToolkit tk, Composite body) {
@@ -97,7 +97,7 @@ class StatisticsPage extends ModelPage<ProductSystem> {
 
 		UI.formLabel(comp, "");
 		Button btn = tk.createButton(comp, M.Update, SWT.NONE);
-		Controls.onSelect(btn, e -> calculate());
+		Controls.onSelect(btn, e -> calculate(true));
 	}
 
 	private void providerSection(FormToolkit tk, Composite body) {
@@ -150,9 +150,16 @@ class StatisticsPage extends ModelPage<ProductSystem> {
 		}
 	}
 
-	private void calculate() {
+	/**
+	 * Updates the statistics. If the statistics of the product system were
+	 * already calculated and the system was not changed since then, these
+	 * statistics are displayed, unless an update is forced.
+	 */
+	private void calculate(boolean force) {
 		App.runWithProgress("Updating statistics ...",
-			() -> stats = Statistics.calculate(getModel(), Cache.getEntityCache()),
+			() -> stats = force
+				? Statistics.calculate(getModel(), Cache.getEntityCache())
+				: Statistics.of(getModel(), Cache.getEntityCache()),
 			() -> {
 				if (stats != null) {
 					for (Runnable update : updates) {
@@ -0,0 +1,301 @@
+package org.openlca.app.navigation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import org.eclipse.core.runtime.jobs.Job;
+import org.openlca.app.db.Database;
+import org.openlca.core.database.Daos;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.database.ParameterDao;
+import org.openlca.core.model.Category;
+import org.openlca.core.model.ModelType;
+import org.openlca.core.model.descriptors.Descriptor;
+import org.openlca.core.model.descriptors.RootDescriptor;
+import org.slf4j.LoggerFactory;
+
+import gnu.trove.map.hash.TLongLongHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+/**
+ * A cache of the model descriptors of the active database. All descriptors of
+ * a model type are loaded in a single query and grouped by their category
+ * IDs. This is the shared descriptor store of the navigation tree, the
+ * navigation filter ({@link ModelTextIndex}), and the search index. Only
+ * global parameters are cached for the parameter type.
+ * <p>
+ * The cache is updated for single models from the database events and the
+ * cache hooks in {@link org.openlca.app.db.Cache}. Code that modifies the
+ * database with native SQL statements must call {@link #clear()} (e.g. via
+ * {@code Cache.evictAll()}).
+ * <p>
+ * The descriptors of a type are never loaded in the UI thread: when the
+ * navigation tree requests the content of a category before the type is
+ * loaded, the descriptors of that category are queried directly and the type
+ * is loaded in a background job.
+ */
+public final class DescriptorCache {
+
+	private static final EnumMap<ModelType, Bucket> buckets =
+			new EnumMap<>(ModelType.class);
+	private static final EnumSet<ModelType> loading =
+			EnumSet.noneOf(ModelType.class);
+
+	/**
+	 * Is incremented with every change of the cache. It is used to discard
+	 * loaded buckets that missed changes while they were loaded, and by
+	 * derived indices to check whether they are up to date.
+	 */
+	private static long version;
+
+	private DescriptorCache() {
+	}
+
+	/**
+	 * Returns the current version of the cache. The version changes whenever
+	 * a descriptor is added, changed, or removed, or the cache is cleared.
+	 */
+	public static synchronized long version() {
+		return version;
+	}
+
+	/**
+	 * Returns the descriptors of the given type that are located in the given
+	 * category. If the category is {@code null}, the descriptors without a
+	 * category are returned. This is called from the navigation tree in the
+	 * UI thread, thus, if the type is not loaded yet, the descriptors of the
+	 * category are queried directly and the type is loaded in the background.
+	 */
+	public static List<RootDescriptor> get(ModelType type, Category category) {
+		if (type == null || type == ModelType.CATEGORY)
+			return Collections.emptyList();
+		synchronized (DescriptorCache.class) {
+			var bucket = buckets.get(type);
+			if (bucket != null) {
+				long key = category != null ? category.id : 0L;
+				var list = bucket.descriptors.get(key);
+				return list != null
+						? new ArrayList<>(list)
+						: Collections.emptyList();
+			}
+		}
+		var db = Database.get();
+		if (db == null)
+			return Collections.emptyList();
+		scheduleLoad(db, type);
+		return queryCategory(db, type, category);
+	}
+
+	/**
+	 * Returns all cached descriptors of the given type. If the type is not
+	 * loaded yet, it is loaded in the calling thread; thus, this should not be
+	 * called in the UI thread.
+	 */
+	public static List<RootDescriptor> getAll(ModelType type) {
+		if (type == null || type == ModelType.CATEGORY)
+			return Collections.emptyList();
+		while (true) {
+			long v;
+			synchronized (DescriptorCache.class) {
+				var bucket = buckets.get(type);
+				if (bucket != null)
+					return bucket.all();
+				v = version;
+			}
+			var db = Database.get();
+			if (db == null)
+				return Collections.emptyList();
+			var bucket = load(db, type);
+			if (bucket == null)
+				return Collections.emptyList();
+			synchronized (DescriptorCache.class) {
+				if (install(type, bucket, v))
+					return bucket.all();
+			}
+			// the cache was changed while loading; load again
+		}
+	}
+
+	/**
+	 * Reloads the descriptor of the given model from the database if the type
+	 * of that model is cached.
+	 */
+	public static synchronized void reload(Descriptor d) {
+		if (d == null || d.type == null)
+			return;
+		version++;
+		var bucket = buckets.get(d.type);
+		if (bucket == null)
+			return;
+		var db = Database.get();
+		var dao = db != null
+				? Daos.root(db, d.type)
+				: null;
+		if (dao == null || d.type == ModelType.PARAMETER) {
+			// only global parameters are shown in the navigation, thus we
+			// load them again when they are requested the next time
+			buckets.remove(d.type);
+			return;
+		}
+		bucket.remove(d.id);
+		var reloaded = dao.getDescriptor(d.id);
+		if (reloaded != null) {
+			bucket.put(reloaded);
+		}
+	}
+
+	/**
+	 * Updates the cache with the given descriptor of a new or changed model.
+	 */
+	public static synchronized void put(Descriptor d) {
+		if (!(d instanceof RootDescriptor rd) || d.type == null)
+			return;
+		version++;
+		var bucket = buckets.get(d.type);
+		if (bucket == null)
+			return;
+		if (d.type == ModelType.PARAMETER) {
+			buckets.remove(d.type);
+			return;
+		}
+		bucket.remove(d.id);
+		bucket.put(rd);
+	}
+
+	public static synchronized void remove(Descriptor d) {
+		if (d == null || d.type == null)
+			return;
+		version++;
+		var bucket = buckets.get(d.type);
+		if (bucket != null) {
+			bucket.remove(d.id);
+		}
+	}
+
+	public static synchronized void clear() {
+		version++;
+		buckets.clear();
+	}
+
+	/**
+	 * Installs the given bucket if the cache was not changed since the bucket
+	 * was loaded. Must be called while holding the class lock.
+	 */
+	private static boolean install(ModelType type, Bucket bucket, long v) {
+		if (buckets.containsKey(type))
+			return true;
+		if (v != version)
+			return false;
+		buckets.put(type, bucket);
+		return true;
+	}
+
+	private static void scheduleLoad(IDatabase db, ModelType type) {
+		long v;
+		synchronized (DescriptorCache.class) {
+			if (!loading.add(type))
+				return;
+			v = version;
+		}
+		Job.createSystem("Load descriptors", monitor -> {
+			Bucket bucket = null;
+			try {
+				bucket = load(db, type);
+			} catch (Exception e) {
+				LoggerFactory.getLogger(DescriptorCache.class)
+						.error("failed to load descriptors of " + type, e);
+			}
+			synchronized (DescriptorCache.class) {
+				loading.remove(type);
+				if (bucket != null && db == Database.get()) {
+					install(type, bucket, v);
+				}
+			}
+		}).schedule();
+	}
+
+	private static List<RootDescriptor> queryCategory(
+			IDatabase db, ModelType type, Category category) {
+		var list = new ArrayList<RootDescriptor>();
+		if (type == ModelType.PARAMETER) {
+			Long catId = category != null ? category.id : null;
+			for (var d : new ParameterDao(db).getGlobalDescriptors()) {
+				if (Objects.equals(catId, d.category)) {
+					list.add(d);
+				}
+			}
+			return list;
+		}
+		var dao = Daos.root(db, type);
+		if (dao == null)
+			return list;
+		list.addAll(dao.getDescriptors(Optional.ofNullable(category)));
+		return list;
+	}
+
+	private static Bucket load(IDatabase db, ModelType type) {
+		if (type == ModelType.PARAMETER) {
+			var bucket = new Bucket();
+			for (var d : new ParameterDao(db).getGlobalDescriptors()) {
+				bucket.put(d);
+			}
+			return bucket;
+		}
+		var dao = Daos.root(db, type);
+		if (dao == null)
+			return null;
+		var bucket = new Bucket();
+		for (var d : dao.getDescriptors()) {
+			bucket.put(d);
+		}
+		return bucket;
+	}
+
+	/**
+	 * The descriptors of a model type grouped by category IDs; the ID 0 is
+	 * used for the descriptors without category.
+	 */
+	private static class Bucket {
+
+		final TLongObjectHashMap<List<RootDescriptor>> descriptors =
+				new TLongObjectHashMap<>();
+		final TLongLongHashMap categories = new TLongLongHashMap();
+
+		void put(RootDescriptor d) {
+			long category = d.category != null ? d.category : 0L;
+			var list = descriptors.get(category);
+			if (list == null) {
+				list = new ArrayList<>();
+				descriptors.put(category, list);
+			}
+			list.add(d);
+			categories.put(d.id, category);
+		}
+
+		void remove(long id) {
+			if (!categories.containsKey(id))
+				return;
+			long category = categories.remove(id);
+			var list = descriptors.get(category);
+			if (list == null)
+				return;
+			list.removeIf(d -> d.id == id);
+			if (list.isEmpty()) {
+				descriptors.remove(category);
+			}
+		}
+
+		List<RootDescriptor> all() {
+			var all = new ArrayList<RootDescriptor>(categories.size());
+			for (var list : descriptors.valueCollection()) {
+				all.addAll(list);
+			}
+			return all;
+		}
+	}
+}
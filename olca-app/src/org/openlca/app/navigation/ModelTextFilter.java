@@ -1,60 +1,181 @@
 package org.openlca.app.navigation;
 
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.jface.viewers.ViewerFilter;
 import org.eclipse.swt.widgets.Text;
 import org.eclipse.swt.widgets.TreeItem;
+import org.openlca.app.App;
+import org.openlca.app.db.Database;
+import org.openlca.app.navigation.ModelTextIndex.Match;
+import org.openlca.app.navigation.elements.CategoryElement;
 import org.openlca.app.navigation.elements.INavigationElement;
 import org.openlca.app.navigation.elements.ModelElement;
+import org.openlca.app.navigation.elements.ModelTypeElement;
 import org.openlca.app.util.Labels;
+import org.openlca.core.model.ModelType;
+import org.slf4j.LoggerFactory;
 
 /**
  * A class for filtering model elements from an navigation tree via a text
  * filter. The filter directly registers a listener on the text field.
+ * <p>
+ * The filter is applied with a short delay after the last modification of
+ * the text. The matching categories are then calculated in a background
+ * job using a {@link ModelTextIndex} of the model types of the tree. The
+ * index is created again when models or categories were changed. When the
+ * filter text is extended, only the models that matched the previous text
+ * are checked again.
  */
 public class ModelTextFilter extends ViewerFilter {
 
-	private final Text filterText;
+	/** The delay in milliseconds before the filter is applied. */
+	private static final int DELAY = 250;
+
+	private final TreeViewer viewer;
+
+	private ModelTextIndex index;
+	private Set<ModelType> indexTypes;
+	private Match match;
+	private int version;
 
 	public ModelTextFilter(Text text, TreeViewer viewer) {
-		this.filterText = text;
+		this.viewer = viewer;
 		text.addModifyListener(e -> {
+			int v = ++version;
+			text.getDisplay().timerExec(DELAY, () -> {
+				if (v == version && !text.isDisposed()) {
+					update(v, text.getText());
+				}
+			});
+		});
+	}
+
+	private void update(int v, String rawText) {
+		var text = rawText == null
+				? ""
+				: rawText.trim().toLowerCase();
+		if (text.isEmpty()) {
+			match = null;
 			viewer.refresh();
-			expand(viewer);
+			return;
+		}
+
+		var types = typesOf(viewer.getInput());
+		var previous = match;
+		var ref = new Object() {
+			Match next;
+		};
+		App.run("Filter navigation", () -> {
+			try {
+				ref.next = match(types, text, previous);
+			} catch (Exception e) {
+				LoggerFactory.getLogger(getClass())
+						.error("failed to filter the navigation", e);
+			}
+		}, () -> {
+			if (ref.next == null
+					|| v != version
+					|| viewer.getTree().isDisposed())
+				return;
+			match = ref.next;
+			viewer.refresh();
+			expand();
 		});
 	}
 
-	private void expand(TreeViewer viewer) {
+	/**
+	 * Matches the given text against the index. The index is created when it
+	 * does not exist yet, is outdated, or was created for other types; the
+	 * previous match cannot be used then.
+	 */
+	private synchronized Match match(
+			Set<ModelType> types, String text, Match previous) {
+		if (index == null
+				|| index.isOutdated()
+				|| !types.equals(indexTypes)) {
+			index = ModelTextIndex.of(Database.get(), types);
+			indexTypes = types;
+			previous = null;
+		}
+		return index.match(text, previous);
+	}
+
+	private void expand() {
 		TreeItem[] items = viewer.getTree().getItems();
 		while (items != null && items.length > 0) {
 			TreeItem next = items[0];
-			next.setExpanded(true);
 			for (int i = 1; i < items.length; i++)
 				items[i].setExpanded(false);
+			var data = next.getData();
+			if (data == null)
+				break;
+			viewer.expandToLevel(data, 1);
 			items = next.getItems();
-			viewer.refresh();
+		}
+	}
+
+	private Set<ModelType> typesOf(Object input) {
+		var types = EnumSet.noneOf(ModelType.class);
+		collectTypes(input, types);
+		return types;
+	}
+
+	private void collectTypes(Object obj, Set<ModelType> types) {
+		if (obj instanceof Collection<?> list) {
+			for (var o : list) {
+				collectTypes(o, types);
+			}
+		} else if (obj instanceof Object[] array) {
+			for (var o : array) {
+				collectTypes(o, types);
+			}
+		} else if (obj instanceof ModelTypeElement e) {
+			types.add(e.getContent());
+		} else if (obj instanceof CategoryElement e) {
+			if (e.getContent() != null) {
+				types.add(e.getContent().modelType);
+			}
+		} else if (obj instanceof ModelElement e) {
+			if (e.getContent() != null) {
+				types.add(e.getContent().type);
+			}
+		} else if (obj instanceof INavigationElement<?> e) {
+			collectTypes(e.getChildren(), types);
 		}
 	}
 
 	@Override
 	public boolean select(Viewer viewer, Object parentElement, Object element) {
-		String text = filterText.getText();
-		if (text == null || text.trim().isEmpty())
+		if (match == null)
 			return true;
-		text = text.trim().toLowerCase();
-		return select((INavigationElement<?>) element, text);
+		return select((INavigationElement<?>) element, match);
 	}
 
-	private boolean select(INavigationElement<?> element, String text) {
-		if (element instanceof ModelElement) {
-			ModelElement modelElement = (ModelElement) element;
+	private boolean select(INavigationElement<?> element, Match match) {
+		if (element instanceof ModelElement modelElement) {
 			String feed = Labels.name(modelElement.getContent())
 					.toLowerCase();
-			return feed.contains(text);
+			return feed.contains(match.text);
 		}
+
+		// the index does not know about libraries, thus we check the
+		// child elements of library content directly
+		boolean inLibrary = element.getLibrary().isPresent();
+		if (!inLibrary && element instanceof CategoryElement e) {
+			var category = e.getContent();
+			return category != null
+					&& match.categories.contains(category.id);
+		}
+		if (!inLibrary && element instanceof ModelTypeElement e)
+			return match.types.contains(e.getContent());
+
 		for (INavigationElement<?> child : element.getChildren()) {
-			if (select(child, text))
+			if (select(child, match))
 				return true;
 		}
 		return false;
@@ -0,0 +1,120 @@
+package org.openlca.app.navigation;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.openlca.app.util.Labels;
+import org.openlca.core.database.CategoryDao;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.model.ModelType;
+
+import gnu.trove.map.hash.TLongLongHashMap;
+import gnu.trove.set.hash.TLongHashSet;
+
+/**
+ * An index of the lower-case labels of the models of a set of model types
+ * together with their category IDs. It is used in the {@link ModelTextFilter}
+ * to determine the categories that contain matching models in a single pass
+ * over the models instead of walking the navigation tree recursively.
+ * <p>
+ * The index is created from the {@link DescriptorCache} and is outdated when
+ * the version of that cache changed.
+ */
+class ModelTextIndex {
+
+	private final EnumMap<ModelType, List<Entry>> entries;
+	private final TLongLongHashMap parents;
+	private long version;
+
+	private ModelTextIndex() {
+		entries = new EnumMap<>(ModelType.class);
+		parents = new TLongLongHashMap();
+	}
+
+	/**
+	 * Creates the index for the given model types from the descriptors of the
+	 * {@link DescriptorCache}. This should not be called in the UI thread.
+	 */
+	static ModelTextIndex of(IDatabase db, Set<ModelType> types) {
+		var index = new ModelTextIndex();
+		index.version = DescriptorCache.version();
+		if (db == null || types == null)
+			return index;
+		for (var c : new CategoryDao(db).getDescriptors()) {
+			if (c.category != null) {
+				index.parents.put(c.id, c.category);
+			}
+		}
+		for (var type : types) {
+			var list = new ArrayList<Entry>();
+			for (var d : DescriptorCache.getAll(type)) {
+				long category = d.category != null ? d.category : 0L;
+				list.add(new Entry(Labels.name(d).toLowerCase(), category));
+			}
+			index.entries.put(type, list);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns true when models or categories were changed after the index
+	 * was created.
+	 */
+	boolean isOutdated() {
+		return version != DescriptorCache.version();
+	}
+
+	/**
+	 * Returns the match of the given filter text. If a previous match is
+	 * given and the text extends the text of that match, only the entries
+	 * of the previous match are checked as the new match can only be a
+	 * subset of them.
+	 */
+	Match match(String text, Match previous) {
+		var source = previous != null && text.startsWith(previous.text)
+				? previous.entries
+				: entries;
+		var match = new Match(text);
+		for (var e : source.entrySet()) {
+			var type = e.getKey();
+			var list = new ArrayList<Entry>();
+			for (var entry : e.getValue()) {
+				if (!entry.label().contains(text))
+					continue;
+				list.add(entry);
+				match.types.add(type);
+				long category = entry.category();
+				while (category != 0 && match.categories.add(category)) {
+					category = parents.get(category);
+				}
+			}
+			match.entries.put(type, list);
+		}
+		return match;
+	}
+
+	record Entry(String label, long category) {
+	}
+
+	/**
+	 * Contains the model types and categories (including their parent
+	 * categories) of the models that match a filter text.
+	 */
+	static class Match {
+
+		final String text;
+		final EnumMap<ModelType, List<Entry>> entries;
+		final EnumSet<ModelType> types;
+		final TLongHashSet categories;
+
+		private Match(String text) {
+			this.text = text;
+			this.entries = new EnumMap<>(ModelType.class);
+			this.types = EnumSet.noneOf(ModelType.class);
+			this.categories = new TLongHashSet();
+		}
+	}
+}
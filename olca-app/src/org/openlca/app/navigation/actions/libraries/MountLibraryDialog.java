@@ -15,6 +15,8 @@ import org.eclipse.ui.forms.FormDialog;
 import org.eclipse.ui.forms.IManagedForm;
 import org.eclipse.ui.forms.widgets.FormToolkit;
 import org.openlca.app.App;
+import org.openlca.app.collaboration.navigation.actions.ModelReferences;
+import org.openlca.app.db.Cache;
 import org.openlca.app.db.Database;
 import org.openlca.app.db.Repository;
 import org.openlca.app.navigation.Navigator;
@@ -70,6 +72,8 @@ class MountLibraryDialog extends FormDialog {
 						.apply(dialog.collectActions())
 						.run(),
 				() -> {
+					Cache.evictAll();
+					ModelReferences.invalidate(Database.get());
 					Database.getWorkspaceIdUpdater().enable();
 					updateWorkspaceIds(previousTags);
 					Navigator.refresh();
@@ -3,11 +3,10 @@ package org.openlca.app.navigation.elements;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 
 import org.openlca.app.db.Database;
+import org.openlca.app.navigation.DescriptorCache;
 import org.openlca.core.database.CategoryDao;
-import org.openlca.core.database.Daos;
 import org.openlca.core.model.Category;
 
 /**
@@ -52,10 +51,7 @@ public class CategoryElement extends NavigationElement<Category> {
 		}
 
 		// models in this category
-		var dao = Daos.root(Database.get(), category.modelType);
-		if (dao == null)
-			return list;
-		for (var d : dao.getDescriptors(Optional.of(category))) {
+		for (var d : DescriptorCache.get(category.modelType, category)) {
 			if (lib == null || lib.equals(d.library)) {
 				list.add(new ModelElement(this, d));
 			}
@@ -3,11 +3,10 @@ package org.openlca.app.navigation.elements;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 
 import org.openlca.app.db.Database;
+import org.openlca.app.navigation.DescriptorCache;
 import org.openlca.core.database.CategoryDao;
-import org.openlca.core.database.Daos;
 import org.openlca.core.model.ModelType;
 
 public class ModelTypeElement extends NavigationElement<ModelType> {
@@ -42,10 +41,7 @@ public class ModelTypeElement extends NavigationElement<ModelType> {
 		}
 
 		// models without category
-		var dao = Daos.root(Database.get(), type);
-		if (dao == null)
-			return list;
-		for (var d : dao.getDescriptors(Optional.empty())) {
+		for (var d : DescriptorCache.get(type, null)) {
 			if (lib == null || Objects.equals(lib, d.library)) {
 				list.add(new ModelElement(this, d));
 			}
@@ -8,6 +8,7 @@ import org.eclipse.swt.widgets.Button;
 import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.Spinner;
 import org.eclipse.swt.widgets.Text;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
@@ -81,6 +82,16 @@ public class ConfigPage extends PreferencePage implements
 		Controls.onSelect(hideStart, e -> Preferences.set(
 			"hide.welcome.page", hideStart.getSelection()));
 
+		// number of parallel calculations; 0 = automatic
+		UI.formLabel(comp, "Parallel calculations");
+		var threads = new Spinner(comp, SWT.BORDER);
+		threads.setValues(Preferences.getInt(
+			Preferences.CALCULATION_THREADS, 0), 0, 64, 0, 1, 4);
+		threads.setToolTipText("0 = determined from the number of"
+			+ " processors and the available memory");
+		threads.addModifyListener(e -> Preferences.set(
+			Preferences.CALCULATION_THREADS, threads.getSelection()));
+
 		// reset window layout
 		UI.filler(comp);
 		Composite bcomp = new Composite(comp, SWT.NONE);
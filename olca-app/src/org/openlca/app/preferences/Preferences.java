@@ -15,6 +15,14 @@ public final class Preferences extends AbstractPreferenceInitializer {
 	public static final String LAST_IMPORT_FOLDER = "LAST_IMPORT_FOLDER";
 	public static final String LAST_EXPORT_FOLDER = "LAST_EXPORT_FOLDER";
 
+	/**
+	 * The maximum number of calculations that are executed in parallel, e.g.
+	 * the variants of a project or the intersections of locations; 0 means
+	 * that it is determined by the calculation, e.g. from the number of
+	 * processors and the available memory.
+	 */
+	public static final String CALCULATION_THREADS = "CALCULATION_THREADS";
+
 	@Override
 	public void initializeDefaultPreferences() {
 		IPreferenceStore store = getStore();
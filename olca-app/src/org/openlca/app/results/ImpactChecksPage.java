@@ -2,7 +2,6 @@ package org.openlca.app.results;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.viewers.ArrayContentProvider;
@@ -17,6 +16,7 @@ import org.eclipse.swt.widgets.Composite;
 import org.eclipse.ui.forms.IManagedForm;
 import org.eclipse.ui.forms.editor.FormPage;
 import org.eclipse.ui.forms.widgets.FormToolkit;
+import org.eclipse.ui.forms.widgets.ScrolledForm;
 import org.openlca.app.App;
 import org.openlca.app.M;
 import org.openlca.app.rcp.images.Icon;
@@ -42,18 +42,22 @@ public class ImpactChecksPage extends FormPage {
 
 	private final LcaResult result;
 	private final ResultItemOrder items;
+	private final ResultCache cache;
 
+	private ScrolledForm form;
 	private TreeViewer tree;
+	private boolean grouped = true;
 
 	public ImpactChecksPage(ResultEditor editor) {
 		super(editor, "ImpactChecksPage", M.LCIAChecks);
 		this.result = editor.result;
 		this.items = editor.items;
+		this.cache = editor.cache;
 	}
 
 	@Override
 	protected void createFormContent(IManagedForm mform) {
-		var form = UI.formHeader(mform,
+		form = UI.formHeader(mform,
 				"Flows that are not covered by the "
 						+ "selected LCIA method",
 				Icon.ANALYSIS_RESULT.get());
@@ -63,11 +67,11 @@ public class ImpactChecksPage extends FormPage {
 		// the grouping check
 		Button group = tk.createButton(body,
 				"Group by LCIA category", SWT.CHECK);
-		group.setSelection(true);
-		Controls.onSelect(group, e -> tree.setInput(
-				group.getSelection()
-						? groupedNodes()
-						: flatNodes()));
+		group.setSelection(grouped);
+		Controls.onSelect(group, e -> {
+			grouped = group.getSelection();
+			updateInput();
+		});
 
 		// create the tree
 		tree = Trees.createViewer(body,
@@ -92,16 +96,51 @@ public class ImpactChecksPage extends FormPage {
 		Actions.bind(tree, onOpen);
 		Trees.onDoubleClick(tree, e -> onOpen.run());
 
-		tree.setInput(group.getSelection()
-				? groupedNodes()
-				: flatNodes());
+		updateInput();
+	}
+
+	/**
+	 * Checking the characterization factors of all flows can take a while for
+	 * large results. Thus, the nodes are computed in the background and are
+	 * cached for switching between the grouped and flat view.
+	 */
+	private void updateInput() {
+		boolean forGroups = grouped;
+		var key = ResultCache.Key.of(
+				"ImpactChecksPage", forGroups ? "groups" : "flows");
+		boolean cached = cache.get(key,
+				() -> forGroups ? groupedNodes() : flatNodes(),
+				nodes -> {
+					if (tree.getControl().isDisposed() || forGroups != grouped)
+						return;
+					form.setBusy(false);
+					tree.setInput(nodes != null ? nodes : List.of());
+				});
+		if (!cached) {
+			form.setBusy(true);
+		}
 	}
 
+	/**
+	 * Returns the LCIA categories with the flows that are not covered by
+	 * them as child nodes.
+	 */
 	private List<Contribution<?>> groupedNodes() {
-		return items.impacts()
-				.stream()
-				.map(Contribution::of)
-				.collect(Collectors.toList());
+		List<Contribution<?>> nodes = new ArrayList<>();
+		for (var impact : items.impacts()) {
+			Contribution<?> c = Contribution.of(impact);
+			c.childs = new ArrayList<>();
+			for (var flow : items.enviFlows()) {
+				double f = result.getImpactFactorOf(impact, flow);
+				if (f != 0)
+					continue;
+				Contribution<?> child = Contribution.of(flow);
+				child.amount = result.getTotalFlowValueOf(flow);
+				c.childs.add(child);
+			}
+			nodes.add(c);
+		}
+		return nodes;
 	}
 
 	/**
@@ -133,21 +172,8 @@ public class ImpactChecksPage extends FormPage {
 
 		@Override
 		public Object[] getChildren(Object obj) {
-			if (!(obj instanceof Contribution<?> c))
-				return null;
-			if (c.childs != null)
-				return c.childs.toArray();
-			if (!(c.item instanceof ImpactDescriptor impact))
+			if (!(obj instanceof Contribution<?> c) || c.childs == null)
 				return null;
-			c.childs = new ArrayList<>();
-			for (var flow : items.enviFlows()) {
-				double f = result.getImpactFactorOf(impact, flow);
-				if (f != 0)
-					continue;
-				Contribution<?> child = Contribution.of(flow);
-				child.amount = result.getTotalFlowValueOf(flow);
-				c.childs.add(child);
-			}
 			return c.childs.toArray();
 		}
 
@@ -160,9 +186,7 @@ public class ImpactChecksPage extends FormPage {
 		public boolean hasChildren(Object elem) {
 			if (!(elem instanceof Contribution<?> c))
 				return false;
-			if (c.childs != null)
-				return true;
-			return c.item instanceof ImpactDescriptor;
+			return c.childs != null && !c.childs.isEmpty();
 		}
 	}
 
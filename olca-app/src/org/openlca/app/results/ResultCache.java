@@ -0,0 +1,139 @@
+package org.openlca.app.results;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.openlca.app.App;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the values that the pages of a result editor compute from the
+ * result, like the contributions to a selected indicator. A value is computed
+ * only once for a key and is then served from the cache when the same
+ * selection is shown again. The least recently used values are removed when
+ * the cache is full.
+ * <p>
+ * Expensive values can be computed asynchronously: the computation runs in a
+ * background job and the value is passed to the page in the UI thread, so
+ * that switching between the pages or selections never blocks the UI. When a
+ * value of a key is requested while it is computed, the running computation is
+ * shared.
+ */
+public class ResultCache {
+
+	private static final int MAX_SIZE = 256;
+
+	/**
+	 * The key of a cached value.
+	 *
+	 * @param page      an identifier of the page or computation
+	 * @param selection the selected indicator (flow, impact, cost result) or
+	 *                  the item for which the value was computed
+	 * @param cutoff    the cutoff that was applied in the computation; 0 if no
+	 *                  cutoff was applied
+	 * @param location  the location for which the value was computed, if any
+	 */
+	public record Key(
+			String page, Object selection, double cutoff, Object location) {
+
+		public static Key of(String page, Object selection) {
+			return new Key(page, selection, 0, null);
+		}
+
+		public static Key of(String page, Object selection, double cutoff) {
+			return new Key(page, selection, cutoff, null);
+		}
+	}
+
+	private final Map<Key, Object> values = new LinkedHashMap<>(
+			16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+			return size() > MAX_SIZE;
+		}
+	};
+
+	private final Map<Key, List<Consumer<Object>>> pending = new HashMap<>();
+
+	/**
+	 * Returns the value of the given key. If the value is not cached yet, it
+	 * is computed with the given function in the calling thread.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(Key key, Supplier<T> fn) {
+		synchronized (this) {
+			var value = values.get(key);
+			if (value != null)
+				return (T) value;
+		}
+		var value = fn.get();
+		if (value != null) {
+			synchronized (this) {
+				values.put(key, value);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Passes the value of the given key to the given consumer. If the value is
+	 * cached, the consumer is called directly and true is returned. Otherwise,
+	 * the value is computed with the given function in a background job and
+	 * the consumer is called in the UI thread when this is finished; the
+	 * value is {@code null} when the computation failed. This method must be
+	 * called from the UI thread.
+	 */
+	@SuppressWarnings("unchecked")
+	public synchronized <T> boolean get(
+			Key key, Supplier<T> fn, Consumer<T> consumer) {
+		var cached = values.get(key);
+		if (cached != null) {
+			consumer.accept((T) cached);
+			return true;
+		}
+
+		var consumers = pending.get(key);
+		if (consumers != null) {
+			consumers.add((Consumer<Object>) consumer);
+			return false;
+		}
+		consumers = new ArrayList<>();
+		consumers.add((Consumer<Object>) consumer);
+		pending.put(key, consumers);
+
+		var ref = new Object() {
+			T value;
+		};
+		App.run("Compute results", () -> {
+			try {
+				ref.value = fn.get();
+			} catch (Exception e) {
+				var log = LoggerFactory.getLogger(getClass());
+				log.error("failed to compute result for " + key, e);
+			}
+		}, () -> {
+			List<Consumer<Object>> done;
+			synchronized (this) {
+				if (ref.value != null) {
+					values.put(key, ref.value);
+				}
+				done = pending.remove(key);
+			}
+			if (done == null)
+				return;
+			for (var c : done) {
+				c.accept(ref.value);
+			}
+		});
+		return false;
+	}
+
+	public synchronized void clear() {
+		values.clear();
+	}
+}
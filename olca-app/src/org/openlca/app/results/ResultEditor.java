@@ -43,6 +43,12 @@ public class ResultEditor extends FormEditor {
 	public DQResult dqResult;
 	public ResultItemOrder items;
 
+	/**
+	 * Caches the values that are computed from the result in the pages of
+	 * this editor.
+	 */
+	public final ResultCache cache = new ResultCache();
+
 	public static void open(CalculationSetup setup, LcaResult result) {
 		open(setup, result, null);
 	}
@@ -10,13 +10,13 @@ import org.openlca.app.rcp.images.Icon;
 import org.openlca.app.results.analysis.sankey.SankeyEditor;
 import org.openlca.app.results.analysis.sankey.edit.DiagramEditPart;
 import org.openlca.app.tools.graphics.actions.ActionIds;
+import org.openlca.app.tools.graphics.model.commands.LayoutCommand;
 
 import static org.openlca.app.editors.graphical.requests.GraphRequestConstants.REQ_LAYOUT;
 
 public class LayoutAction extends WorkbenchPartAction {
 
 	private final SankeyEditor editor;
-	private Command command;
 
 	public LayoutAction(SankeyEditor part) {
 		super(part);
@@ -26,17 +26,27 @@ public class LayoutAction extends WorkbenchPartAction {
 		setImageDescriptor(Icon.LAYOUT.descriptor());
 	}
 
+	/**
+	 * Creates a new command for each run, as a layout command is prepared in
+	 * a background job and then pushed to the command stack; thus, the same
+	 * command instance cannot be used for multiple runs.
+	 */
 	@Override
 	public void run() {
-		execute(command);
+		var command = getCommand();
+		if (command == null)
+			return;
+		if (command instanceof LayoutCommand layout) {
+			layout.prepare(() -> execute(layout));
+		} else {
+			execute(command);
+		}
 	}
 
 	@Override
 	protected boolean calculateEnabled() {
-		command = getCommand();
-		if (command == null)
-			return false;
-		return command.canExecute();
+		var command = getCommand();
+		return command != null && command.canExecute();
 	}
 
 	private Command getCommand() {
@@ -36,7 +36,11 @@ public class SankeyLayout extends GraphLayout {
 
 	@Override
 	public Component getReferenceNode() {
-		return getDiagram().getNode(getDiagram().editor.getSankey().root);
+		var diagram = getDiagram();
+		var sankey = diagram.getSankey() != null
+				? diagram.getSankey()
+				: diagram.editor.getSankey();
+		return sankey != null ? diagram.getNode(sankey.root) : null;
 	}
 
 	@Override
@@ -1,5 +1,8 @@
 package org.openlca.app.results.analysis.sankey.model;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.openlca.app.results.analysis.sankey.SankeyConfig;
 import org.openlca.app.results.analysis.sankey.SankeyEditor;
 import org.openlca.app.tools.graphics.model.BaseComponent;
@@ -10,6 +13,9 @@ public class Diagram extends BaseComponent {
 
 	public final SankeyEditor editor;
 	public final int orientation;
+	/** The Sankey graph of which the nodes are displayed in this diagram. */
+	Sankey<?> sankey;
+	private final Map<Sankey.Node, SankeyNode> nodeIndex = new HashMap<>();
 
 	public Diagram(SankeyEditor editor, int orientation) {
 		this.editor = editor;
@@ -21,18 +27,59 @@ public class Diagram extends BaseComponent {
 	}
 
 	public SankeyNode getNode(Sankey.Node node) {
-		for (var child : getChildren())
-			if (child instanceof SankeyNode sankeyNode)
-				if (sankeyNode.node == node)
-					return sankeyNode;
-		return null;
+		return node != null ? nodeIndex.get(node) : null;
+	}
+
+	public Sankey<?> getSankey() {
+		return sankey;
 	}
 
 	public boolean isReferenceNode(SankeyNode node) {
-		var refNode = getNode(editor.getSankey().root);
+		var s = sankey != null ? sankey : editor.getSankey();
+		var refNode = getNode(s.root);
 		return refNode.equals(node);
 	}
 
+	@Override
+	public void addChild(Component child, int index) {
+		index(child);
+		super.addChild(child, index);
+	}
+
+	@Override
+	public void addChildQuietly(Component child) {
+		index(child);
+		super.addChildQuietly(child);
+	}
+
+	@Override
+	public boolean removeChild(Component child) {
+		if (!super.removeChild(child))
+			return false;
+		unindex(child);
+		return true;
+	}
+
+	@Override
+	public boolean removeChildQuietly(Component child) {
+		if (!super.removeChildQuietly(child))
+			return false;
+		unindex(child);
+		return true;
+	}
+
+	private void index(Component child) {
+		if (child instanceof SankeyNode n && n.node != null) {
+			nodeIndex.put(n.node, n);
+		}
+	}
+
+	private void unindex(Component child) {
+		if (child instanceof SankeyNode n && nodeIndex.get(n.node) == n) {
+			nodeIndex.remove(n.node);
+		}
+	}
+
 	public SankeyConfig getConfig() {
 		return editor.config;
 	}
@@ -44,6 +91,8 @@ public class Diagram extends BaseComponent {
 
 	@Override
 	public Component getFocusComponent() {
+		if (sankey != null)
+			return getNode(sankey.root);
 		return  (editor != null && editor.getSankey() != null)
 				? getNode(editor.getSankey().root)
 				: null;
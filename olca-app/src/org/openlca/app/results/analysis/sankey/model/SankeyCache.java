@@ -0,0 +1,70 @@
+package org.openlca.app.results.analysis.sankey.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.openlca.core.results.Sankey;
+
+/**
+ * Caches the Sankey graphs of a result so that switching between the
+ * selections or cut-offs that were already displayed does not recompute them.
+ * The cache is bound to a single result (the result of the Sankey editor),
+ * thus, its entries are only keyed by the selection, cut-off, and maximum
+ * node count. The least recently used entries are removed when the cache is
+ * full.
+ */
+class SankeyCache {
+
+	private static final int MAX_SIZE = 16;
+
+	private record Key(Object selection, double cutoff, int maxCount) {
+	}
+
+	/**
+	 * A cached Sankey graph with its number of nodes. When the number of nodes
+	 * is smaller than the maximum node count, the graph was not truncated by
+	 * the maximum node count, and it is then the same for every larger count.
+	 */
+	private record Entry(Sankey<?> sankey, int nodeCount) {
+	}
+
+	private final Map<Key, Entry> entries = new LinkedHashMap<>(
+			MAX_SIZE, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+			return size() > MAX_SIZE;
+		}
+	};
+
+	synchronized Sankey<?> get(Object selection, double cutoff, int maxCount) {
+		var entry = entries.get(new Key(selection, cutoff, maxCount));
+		if (entry != null)
+			return entry.sankey;
+
+		// when the maximum node count is increased, a graph of a smaller count
+		// can be reused if it was not truncated by that count
+		for (var e : entries.entrySet()) {
+			var key = e.getKey();
+			var candidate = e.getValue();
+			if (!Objects.equals(key.selection, selection)
+					|| key.cutoff != cutoff
+					|| key.maxCount > maxCount
+					|| candidate.nodeCount >= key.maxCount)
+				continue;
+			return candidate.sankey;
+		}
+		return null;
+	}
+
+	synchronized void put(Object selection, double cutoff, int maxCount,
+			Sankey<?> sankey) {
+		if (sankey == null)
+			return;
+		int[] count = {0};
+		sankey.traverse(n -> count[0]++);
+		entries.put(new Key(selection, cutoff, maxCount),
+				new Entry(sankey, count[0]));
+	}
+
+}
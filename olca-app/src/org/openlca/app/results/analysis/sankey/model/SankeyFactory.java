@@ -1,12 +1,18 @@
 package org.openlca.app.results.analysis.sankey.model;
 
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.openlca.app.App;
 import org.openlca.app.results.analysis.sankey.SankeyEditor;
 import org.openlca.core.results.Sankey;
 
+import static org.openlca.app.tools.graphics.model.Component.CHILDREN_PROP;
+
 public class SankeyFactory {
 
 	private final SankeyEditor editor;
+	private final SankeyCache cache = new SankeyCache();
 
 	public SankeyFactory(SankeyEditor editor) {
 		this.editor = editor;
@@ -21,39 +27,69 @@ public class SankeyFactory {
 			return new Diagram(editor, config.orientation());
 
 		var diagram = new Diagram(editor, config.orientation());
+
+		// a graph of the same configuration was calculated before
+		var cached = cache.get(
+				config.selection(), config.cutoff(), config.maxCount());
+		if (cached != null) {
+			editor.setSankey(cached);
+			fill(diagram, cached);
+			return diagram;
+		}
+
+		var ref = new AtomicReference<Sankey<?>>();
 		App.runWithProgress("Calculate sankey results",
-				() -> editor.setSankey(Sankey.of(
-						config.selection(), editor.result.provider())
-						.withMinimumShare(config.cutoff())
-						.withMaximumNodeCount(config.maxCount())
-						.build()),
 				() -> {
-					if (editor.getSankey() == null)
+					var sankey = Sankey.of(
+							config.selection(), editor.result.provider())
+							.withMinimumShare(config.cutoff())
+							.withMaximumNodeCount(config.maxCount())
+							.build();
+					cache.put(config.selection(), config.cutoff(),
+							config.maxCount(), sankey);
+					ref.set(sankey);
+					editor.setSankey(sankey);
+				},
+				() -> {
+					var sankey = ref.get();
+					if (sankey == null)
 						return;
-
-					// create the nodes
-					editor.getSankey().traverse(n -> {
-						var node = new SankeyNode(n, editor.getSankey());
-						diagram.addChild(node);
-					});
-
-					// create the links
-					editor.getSankey().traverse(n -> {
-						var target = diagram.getNode(n);
-						if (target == null)
-							return;
-						for (var provider : n.providers) {
-							var source = diagram.getNode(provider);
-							if (source == null)
-								continue;
-							var linkShare = editor.getSankey().getLinkShare(provider, n);
-							var ratio = linkShare * provider.share;
-							new SankeyLink(source, target, ratio);
-						}
-					});
+					fill(diagram, sankey);
+					diagram.firePropertyChange(CHILDREN_PROP, null, null);
 				});
 
 		return diagram;
 	}
 
+	/**
+	 * Creates the nodes and links of the given Sankey graph in the diagram.
+	 * The nodes are added quietly, thus, a property change needs to be fired
+	 * when the diagram is already displayed.
+	 */
+	private void fill(Diagram diagram, Sankey<?> sankey) {
+		diagram.sankey = sankey;
+		var unit = SankeyNode.unitOf(sankey);
+
+		// create the nodes
+		var nodes = new LinkedHashMap<Sankey.Node, SankeyNode>();
+		sankey.traverse(n -> {
+			var node = new SankeyNode(n, sankey, unit);
+			nodes.put(n, node);
+			diagram.addChildQuietly(node);
+		});
+
+		// create the links
+		for (var e : nodes.entrySet()) {
+			var target = e.getValue();
+			for (var provider : e.getKey().providers) {
+				var source = nodes.get(provider);
+				if (source == null)
+					continue;
+				var linkShare = sankey.getLinkShare(provider, e.getKey());
+				var ratio = linkShare * provider.share;
+				new SankeyLink(source, target, ratio);
+			}
+		}
+	}
+
 }
@@ -25,26 +25,35 @@ public class SankeyNode extends Component {
 	public final String unit;
 
 	public SankeyNode(Sankey.Node node, Sankey<?> sankey) {
+		this(node, sankey, unitOf(sankey));
+	}
+
+	/**
+	 * Creates a node with the unit of the given Sankey graph, see
+	 * {@link #unitOf(Sankey)}; this avoids to load the unit for every node.
+	 */
+	public SankeyNode(Sankey.Node node, Sankey<?> sankey, String unit) {
 		this.node = node;
 		product = node.product;
 		directShare = sankey.root.total != 0
 				? Math.abs(node.direct / sankey.root.total) + 0.0
 				: 0;
+		this.unit = unit;
 
-		var db = Database.get();
+		setLocation(DEFAULT_LOCATION);
+		setSize(DEFAULT_SIZE);
+	}
 
+	public static String unitOf(Sankey<?> sankey) {
 		if (sankey.reference instanceof EnviFlow enviFlow) {
-			var flow = db.get(Flow.class, enviFlow.flow().id);
-			unit = flow.getReferenceUnit().name;
+			var flow = Database.get().get(Flow.class, enviFlow.flow().id);
+			return flow.getReferenceUnit().name;
 		}
 		else if (sankey.reference instanceof ImpactDescriptor impact)
-			unit = impact.referenceUnit;
+			return impact.referenceUnit;
 		else if (sankey.reference instanceof CostResultDescriptor cost)
-			unit = cost.name;
-		else unit = "";
-
-		setLocation(DEFAULT_LOCATION);
-		setSize(DEFAULT_SIZE);
+			return cost.name;
+		else return "";
 	}
 
 	public Diagram getDiagram() {
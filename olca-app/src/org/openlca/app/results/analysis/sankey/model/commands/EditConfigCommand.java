@@ -59,6 +59,7 @@ public class EditConfigCommand extends Command {
 	@Override
 	public void redo() {
 		newConfig.copyTo(editor.config);
+		editor.setSankey(newDiagram.getSankey());
 		editor.setModel(newDiagram);
 		viewer.setContents(newDiagram);
 	}
@@ -66,8 +67,9 @@ public class EditConfigCommand extends Command {
 	@Override
 	public void undo() {
 		oldConfig.copyTo(editor.config);
+		editor.setSankey(oldDiagram.getSankey());
 		editor.setModel(oldDiagram);
-		viewer.setContents(oldConfig);
+		viewer.setContents(oldDiagram);
 	}
 
 }
@@ -0,0 +1,174 @@
+package org.openlca.app.results.contributions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.viewers.TreePath;
+import org.openlca.core.results.UpstreamNode;
+import org.openlca.core.results.UpstreamTree;
+
+/**
+ * Wraps an upstream tree and memoizes the child nodes of its nodes. The
+ * upstream results of a node are thus calculated only once, no matter how
+ * often the viewer asks for its children or whether it has children. When a
+ * node is expanded, the viewer needs the children of its child nodes to check
+ * whether they have children; the children of the next level are then
+ * prefetched so that they are available when the user expands a child node.
+ * There is a single prefetch job per tree that processes a queue of the
+ * expanded nodes.
+ * <p>
+ * The number of memoized nodes is limited as the trees of the last selections
+ * are kept in the contribution tree page. When the limit is reached, further child nodes are
+ * calculated but not memoized.
+ * <p>
+ * The calculations of the child nodes are synchronized on the wrapped tree
+ * as the result provider is not guaranteed to be thread-safe.
+ */
+class CachedUpstreamTree {
+
+	/** The maximum number of memoized nodes of a tree. */
+	private static final int MAX_NODES = 100_000;
+
+	/** The maximum number of paths that are expanded in the viewer. */
+	static final int MAX_EXPANDED = 5_000;
+
+	final UpstreamTree tree;
+	private final Map<UpstreamNode, List<UpstreamNode>> childs =
+			new ConcurrentHashMap<>();
+	private final AtomicInteger nodeCount = new AtomicInteger();
+
+	private final ArrayDeque<UpstreamNode> prefetchQueue = new ArrayDeque<>();
+	private final Job prefetchJob;
+
+	CachedUpstreamTree(UpstreamTree tree) {
+		this.tree = tree;
+		prefetchJob = Job.createSystem("Prefetch upstream nodes", monitor -> {
+			while (!monitor.isCanceled() && !isFull()) {
+				UpstreamNode node;
+				synchronized (prefetchQueue) {
+					node = prefetchQueue.poll();
+				}
+				if (node == null)
+					return;
+				for (var child : childsOf(node)) {
+					if (monitor.isCanceled() || isFull())
+						return;
+					childsOf(child);
+				}
+			}
+		});
+	}
+
+	UpstreamNode root() {
+		return tree.root;
+	}
+
+	List<UpstreamNode> childsOf(UpstreamNode node) {
+		var cached = childs.get(node);
+		if (cached != null)
+			return cached;
+		synchronized (tree) {
+			cached = childs.get(node);
+			if (cached != null)
+				return cached;
+			var list = List.copyOf(tree.childs(node));
+			if (!isFull()) {
+				childs.put(node, list);
+				nodeCount.addAndGet(list.size() + 1);
+			}
+			return list;
+		}
+	}
+
+	private boolean isFull() {
+		return nodeCount.get() >= MAX_NODES;
+	}
+
+	/**
+	 * Adds the given nodes to the queue of the prefetch job which calculates
+	 * their grandchildren, so that the viewer can directly check whether the
+	 * child nodes of the given nodes have children when they are expanded.
+	 */
+	void prefetch(List<UpstreamNode> nodes) {
+		if (nodes.isEmpty() || isFull())
+			return;
+		synchronized (prefetchQueue) {
+			for (var node : nodes) {
+				if (hasMissingChilds(node)) {
+					prefetchQueue.add(node);
+				}
+			}
+			if (prefetchQueue.isEmpty())
+				return;
+		}
+		// scheduling a running job lets it run once more when it is finished
+		prefetchJob.schedule();
+	}
+
+	private boolean hasMissingChilds(UpstreamNode node) {
+		var nodeChilds = childs.get(node);
+		if (nodeChilds == null)
+			return true;
+		for (var child : nodeChilds) {
+			if (!childs.containsKey(child))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Cancels the prefetch job, e.g. when the tree is not shown anymore.
+	 */
+	void cancelPrefetch() {
+		synchronized (prefetchQueue) {
+			prefetchQueue.clear();
+		}
+		prefetchJob.cancel();
+	}
+
+	/**
+	 * Calculates the tree up to the given depth and returns the paths of the
+	 * nodes that should be expanded. Only nodes with a contribution of at
+	 * least the given cutoff (a fraction of the total result) are expanded;
+	 * the cutoff must be positive as the tree of a system with loops is
+	 * infinite. At most {@link #MAX_EXPANDED} paths are returned. Returns
+	 * {@code null} when the monitor is cancelled.
+	 */
+	List<TreePath> expand(int depth, double cutoff, IProgressMonitor monitor) {
+		if (cutoff <= 0)
+			throw new IllegalArgumentException("the cutoff must be positive");
+		var paths = new ArrayList<TreePath>();
+		double total = Math.abs(root().result());
+		var queue = new ArrayDeque<TreePath>();
+		queue.add(new TreePath(new Object[]{root()}));
+		monitor.beginTask("Expand contribution tree", MAX_EXPANDED);
+		while (!queue.isEmpty() && paths.size() < MAX_EXPANDED) {
+			if (monitor.isCanceled()) {
+				monitor.done();
+				return null;
+			}
+			var path = queue.poll();
+			var node = (UpstreamNode) path.getLastSegment();
+			if (path.getSegmentCount() > depth)
+				continue;
+			if (total != 0 && Math.abs(node.result() / total) < cutoff)
+				continue;
+			var nodeChilds = childsOf(node);
+			if (nodeChilds.isEmpty())
+				continue;
+			paths.add(path);
+			monitor.worked(1);
+			for (var child : nodeChilds) {
+				queue.add(path.createChildPath(child));
+			}
+		}
+		monitor.done();
+		return paths;
+	}
+}
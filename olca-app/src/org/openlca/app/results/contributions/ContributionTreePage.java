@@ -1,14 +1,23 @@
 package org.openlca.app.results.contributions;
 
+import java.lang.reflect.InvocationTargetException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.viewers.BaseLabelProvider;
 import org.eclipse.jface.viewers.ITableLabelProvider;
 import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.TreePath;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Spinner;
+import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.forms.IManagedForm;
 import org.eclipse.ui.forms.editor.FormPage;
 import org.eclipse.ui.forms.widgets.FormToolkit;
@@ -21,9 +30,12 @@ import org.openlca.app.rcp.images.Icon;
 import org.openlca.app.rcp.images.Images;
 import org.openlca.app.results.ResultEditor;
 import org.openlca.app.util.Actions;
+import org.openlca.app.util.Controls;
 import org.openlca.app.util.CostResultDescriptor;
+import org.openlca.app.util.ErrorReporter;
 import org.openlca.app.util.FileType;
 import org.openlca.app.util.Labels;
+import org.openlca.app.util.MsgBox;
 import org.openlca.app.util.Numbers;
 import org.openlca.app.util.UI;
 import org.openlca.app.viewers.Viewers;
@@ -41,8 +53,27 @@ public class ContributionTreePage extends FormPage {
 	private final LcaResult result;
 	private final CalculationSetup setup;
 	private final ResultItemOrder items;
+	/** The number of upstream trees that are kept for the last selections. */
+	private static final int MAX_TREES = 4;
+
+	/**
+	 * The trees of the last selections. They are not stored in the result
+	 * cache of the editor because a tree can hold many memoized nodes.
+	 */
+	private final Map<Object, CachedUpstreamTree> trees = new LinkedHashMap<>(
+			MAX_TREES, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(
+				Map.Entry<Object, CachedUpstreamTree> eldest) {
+			if (size() <= MAX_TREES)
+				return false;
+			eldest.getValue().cancelPrefetch();
+			return true;
+		}
+	};
 
 	private TreeViewer tree;
+	private ContributionContentProvider content;
 	private Object selection;
 
 
@@ -66,6 +97,7 @@ public class ContributionTreePage extends FormPage {
 				.on(items)
 				.withSelectionHandler(new SelectionHandler())
 				.create(comp, tk);
+		createExpandControls(body, tk);
 		Composite treeComp = tk.createComposite(body);
 		UI.gridLayout(treeComp, 1);
 		UI.gridData(treeComp, true, true);
@@ -74,6 +106,62 @@ public class ContributionTreePage extends FormPage {
 		selector.initWithEvent();
 	}
 
+	private void createExpandControls(Composite body, FormToolkit tk) {
+		var comp = tk.createComposite(body);
+		UI.gridLayout(comp, 6, 10, 0);
+		tk.createLabel(comp, "Expand to depth");
+		var depth = new Spinner(comp, SWT.BORDER);
+		depth.setValues(3, 1, 50, 0, 1, 5);
+		tk.adapt(depth);
+		tk.createLabel(comp, "with a cutoff of");
+		var cutoff = new Spinner(comp, SWT.BORDER);
+		// the cutoff is given in 0.1 percent steps; it must be positive as
+		// the tree of a system with loops is infinite
+		cutoff.setValues(10, 1, 1000, 1, 1, 10);
+		tk.adapt(cutoff);
+		tk.createLabel(comp, "%");
+		var button = tk.createButton(comp, "Expand", SWT.NONE);
+		button.setImage(Icon.EXPAND.get());
+		Controls.onSelect(button, $ -> expandTree(
+				depth.getSelection(), cutoff.getSelection() / 1000d));
+	}
+
+	/**
+	 * Calculates the contribution tree up to the given depth in a cancellable
+	 * progress dialog and expands the calculated nodes in the viewer. Nothing
+	 * is expanded when the calculation is cancelled.
+	 */
+	private void expandTree(int depth, double cutoff) {
+		if (!(tree.getInput() instanceof CachedUpstreamTree model))
+			return;
+		var ref = new Object() {
+			List<TreePath> paths;
+		};
+		try {
+			PlatformUI.getWorkbench().getProgressService().run(true, true,
+					monitor -> ref.paths = model.expand(depth, cutoff, monitor));
+		} catch (InvocationTargetException | InterruptedException e) {
+			ErrorReporter.on("Failed to expand contribution tree", e);
+			return;
+		}
+		if (ref.paths == null || tree.getInput() != model)
+			return;
+		// the nodes of the paths are already calculated; thus, the viewer
+		// should not start prefetching for each of the expanded nodes
+		content.prefetch = false;
+		try {
+			tree.setExpandedTreePaths(ref.paths.toArray(new TreePath[0]));
+		} finally {
+			content.prefetch = true;
+		}
+		if (ref.paths.size() >= CachedUpstreamTree.MAX_EXPANDED) {
+			MsgBox.info("Tree partially expanded",
+					"Only the first " + CachedUpstreamTree.MAX_EXPANDED
+							+ " nodes were expanded. Use a larger cutoff"
+							+ " or a smaller depth to expand the tree completely.");
+		}
+	}
+
 	private void createTree(FormToolkit tk, Composite comp) {
 		var headers = new String[]{
 				M.Contribution,
@@ -85,7 +173,8 @@ public class ContributionTreePage extends FormPage {
 
 		tree.setAutoExpandLevel(2);
 		tree.getTree().setLinesVisible(false);
-		tree.setContentProvider(new ContributionContentProvider());
+		content = new ContributionContentProvider();
+		tree.setContentProvider(content);
 		tk.adapt(tree.getTree(), false, false);
 		tk.paintBordersFor(tree.getTree());
 		tree.getTree().getColumns()[2].setAlignment(SWT.RIGHT);
@@ -104,9 +193,9 @@ public class ContributionTreePage extends FormPage {
 		Action onExport = Actions.create(M.ExportToExcel,
 				Images.descriptor(FileType.EXCEL), () -> {
 					Object input = tree.getInput();
-					if (!(input instanceof UpstreamTree))
+					if (!(input instanceof CachedUpstreamTree model))
 						return;
-					TreeExportDialog.open((UpstreamTree) input);
+					TreeExportDialog.open(model.tree);
 				});
 
 		Actions.bind(tree, onOpen, TreeClipboard.onCopy(tree), onExport);
@@ -117,31 +206,39 @@ public class ContributionTreePage extends FormPage {
 
 		@Override
 		public void onFlowSelected(EnviFlow flow) {
-			selection = flow;
-			var model = UpstreamTree.of(result.provider(), flow);
-			tree.setInput(model);
+			select(flow, () -> UpstreamTree.of(result.provider(), flow));
 		}
 
 		@Override
 		public void onImpactSelected(ImpactDescriptor impact) {
-			selection = impact;
-			var model = UpstreamTree.of(result.provider(), impact);
-			tree.setInput(model);
+			select(impact, () -> UpstreamTree.of(result.provider(), impact));
 		}
 
 		@Override
 		public void onCostsSelected(CostResultDescriptor cost) {
-			selection = cost;
-			var model = cost.forAddedValue
+			select(cost, () -> cost.forAddedValue
 					? UpstreamTree.addedValuesOf(result.provider())
-					: UpstreamTree.costsOf(result.provider());
+					: UpstreamTree.costsOf(result.provider()));
+		}
+
+		/**
+		 * The trees of the last selections are kept, so that the already
+		 * calculated nodes are reused when an item is selected again.
+		 */
+		private void select(Object item, Supplier<UpstreamTree> fn) {
+			selection = item;
+			var model = trees.computeIfAbsent(
+					item, $ -> new CachedUpstreamTree(fn.get()));
 			tree.setInput(model);
 		}
 	}
 
 	private static class ContributionContentProvider implements ITreeContentProvider {
 
-		private UpstreamTree tree;
+		private CachedUpstreamTree tree;
+
+		/** Is disabled while the tree is expanded programmatically. */
+		boolean prefetch = true;
 
 		@Override
 		public Object[] getChildren(Object parent) {
@@ -149,13 +246,17 @@ public class ContributionTreePage extends FormPage {
 				return null;
 			if (tree == null)
 				return null;
-			return tree.childs(node).toArray();
+			var childs = tree.childsOf(node);
+			if (prefetch) {
+				tree.prefetch(childs);
+			}
+			return childs.toArray();
 		}
 
 		@Override
 		public Object[] getElements(Object input) {
-			return input instanceof UpstreamTree t
-					? new Object[]{t.root}
+			return input instanceof CachedUpstreamTree t
+					? new Object[]{t.root()}
 					: null;
 		}
 
@@ -166,18 +267,16 @@ public class ContributionTreePage extends FormPage {
 
 		@Override
 		public boolean hasChildren(Object elem) {
-			if (!(elem instanceof UpstreamNode node))
+			if (!(elem instanceof UpstreamNode node) || tree == null)
 				return false;
-			return !tree.childs(node).isEmpty();
+			return !tree.childsOf(node).isEmpty();
 		}
 
 		@Override
 		public void inputChanged(Viewer viewer, Object old, Object input) {
-			if (!(input instanceof UpstreamTree)) {
-				tree = null;
-				return;
-			}
-			tree = (UpstreamTree) input;
+			tree = input instanceof CachedUpstreamTree model
+					? model
+					: null;
 		}
 
 		@Override
@@ -236,7 +335,7 @@ public class ContributionTreePage extends FormPage {
 		private double getContribution(UpstreamNode node) {
 			if (node.result() == 0)
 				return 0;
-			double total = ((UpstreamTree) tree.getInput()).root.result();
+			double total = ((CachedUpstreamTree) tree.getInput()).root().result();
 			if (total == 0)
 				return 0;
 			return total < 0 && node.result() > 0
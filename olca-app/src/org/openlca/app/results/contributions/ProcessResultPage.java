@@ -166,7 +166,7 @@ public class ProcessResultPage extends FormPage {
 				M.UpstreamInclDirect,
 				M.Direct,
 				M.Unit};
-		var table = Tables.createViewer(parent, headers, label);
+		var table = Tables.createLazyViewer(parent, headers, label);
 		Tables.bindColumnWidths(table, 0.1, 0.3, 0.2, 0.15, 0.15, 0.1);
 		decorateResultViewer(table);
 		Viewers.sortByLabels(table, label, 1, 2, 5);
@@ -219,7 +219,7 @@ public class ProcessResultPage extends FormPage {
 				M.UpstreamInclDirect,
 				M.Direct,
 				M.Unit};
-		var table = Tables.createViewer(composite, headers, label);
+		var table = Tables.createLazyViewer(composite, headers, label);
 		Tables.bindColumnWidths(table, 0.20, 0.30, 0.20, 0.20, 0.10);
 		decorateResultViewer(table);
 		Viewers.sortByLabels(table, label, 1, 4);
@@ -0,0 +1,249 @@
+package org.openlca.app.results.contributions.locations;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.openlca.app.util.CostResultDescriptor;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.database.LocationDao;
+import org.openlca.core.matrix.index.EnviFlow;
+import org.openlca.core.matrix.index.TechFlow;
+import org.openlca.core.model.Location;
+import org.openlca.core.model.descriptors.FlowDescriptor;
+import org.openlca.core.model.descriptors.ImpactDescriptor;
+import org.openlca.core.model.descriptors.ProcessDescriptor;
+import org.openlca.core.results.Contribution;
+import org.openlca.core.results.LcaResult;
+
+import gnu.trove.map.hash.TLongIntHashMap;
+
+/**
+ * Maps the locations of a result to the technosphere flows of the processes
+ * in these locations and, for regionalized results, to the intervention flows
+ * in these locations. The index is built once per result. The location
+ * contributions of a selected indicator are then aggregated in a single pass
+ * over the flows instead of scanning the result indices for each location.
+ * <p>
+ * The locations are stored in slots where slot 0 is reserved for flows
+ * without location (or with a location that could not be loaded).
+ */
+class LocationIndex {
+
+	private final LcaResult result;
+	private final boolean regionalized;
+
+	/** The locations of the slots; {@code null} at slot 0. */
+	private final Location[] locations;
+	private final TLongIntHashMap slots;
+
+	private final TechFlow[] techFlows;
+	private final int[] techSlots;
+	private final EnviFlow[] enviFlows;
+	private final int[] enviSlots;
+
+	/** The positions of the flows, grouped by their location slots. */
+	private final Groups techGroups;
+	private final Groups enviGroups;
+
+	private LocationIndex(LcaResult result, List<Location> locations) {
+		this.result = result;
+		this.regionalized = result.enviIndex().isRegionalized();
+		this.locations = new Location[locations.size() + 1];
+		this.slots = new TLongIntHashMap(
+				locations.size() + 1, 0.5f, -1L, 0);
+		for (int i = 0; i < locations.size(); i++) {
+			var loc = locations.get(i);
+			this.locations[i + 1] = loc;
+			slots.put(loc.id, i + 1);
+		}
+
+		var techIndex = result.techIndex();
+		techFlows = new TechFlow[techIndex.size()];
+		techSlots = new int[techFlows.length];
+		techIndex.each((i, techFlow) -> {
+			techFlows[i] = techFlow;
+			techSlots[i] = techFlow.provider() instanceof ProcessDescriptor p
+					&& p.location != null
+					? slots.get(p.location)
+					: 0;
+		});
+
+		var enviIndex = result.enviIndex();
+		enviFlows = new EnviFlow[enviIndex.size()];
+		enviSlots = new int[enviFlows.length];
+		int i = 0;
+		for (var enviFlow : enviIndex) {
+			enviFlows[i] = enviFlow;
+			enviSlots[i] = enviFlow.location() != null
+					? slots.get(enviFlow.location().id)
+					: 0;
+			i++;
+		}
+
+		techGroups = Groups.of(techSlots, this.locations.length);
+		enviGroups = Groups.of(enviSlots, this.locations.length);
+	}
+
+	/**
+	 * Creates the index for the given result. This loads the locations of the
+	 * result from the database and should be called outside of the UI thread.
+	 */
+	static LocationIndex of(LcaResult result, IDatabase db) {
+		var ids = new HashSet<Long>();
+		result.techIndex().each((i, techFlow) -> {
+			if (techFlow.provider() instanceof ProcessDescriptor p
+					&& p.location != null) {
+				ids.add(p.location);
+			}
+		});
+		if (result.enviIndex().isRegionalized()) {
+			for (var enviFlow : result.enviIndex()) {
+				if (enviFlow.location() != null) {
+					ids.add(enviFlow.location().id);
+				}
+			}
+		}
+		var locations = ids.isEmpty()
+				? new ArrayList<Location>()
+				: new LocationDao(db).getForIds(ids);
+		return new LocationIndex(result, locations);
+	}
+
+	boolean isRegionalized() {
+		return regionalized;
+	}
+
+	/**
+	 * Returns the technosphere flows of the processes in the given location.
+	 * The location is {@code null} for processes without location.
+	 */
+	List<TechFlow> techFlowsOf(Location loc) {
+		return techGroups.select(techFlows, slotOf(loc));
+	}
+
+	/**
+	 * Returns the intervention flows in the given location of a regionalized
+	 * result.
+	 */
+	List<EnviFlow> enviFlowsOf(Location loc) {
+		return enviGroups.select(enviFlows, slotOf(loc));
+	}
+
+	private int slotOf(Location loc) {
+		return loc == null ? 0 : slots.get(loc.id);
+	}
+
+	/**
+	 * Stores the positions of the items of each slot in a compressed form: the
+	 * positions of the items of slot {@code s} are stored in
+	 * {@code positions[starts[s]]} until {@code positions[starts[s + 1]]}.
+	 */
+	private record Groups(int[] starts, int[] positions) {
+
+		static Groups of(int[] slots, int slotCount) {
+			var starts = new int[slotCount + 1];
+			for (int slot : slots) {
+				starts[slot + 1]++;
+			}
+			for (int s = 0; s < slotCount; s++) {
+				starts[s + 1] += starts[s];
+			}
+			var next = starts.clone();
+			var positions = new int[slots.length];
+			for (int i = 0; i < slots.length; i++) {
+				positions[next[slots[i]]++] = i;
+			}
+			return new Groups(starts, positions);
+		}
+
+		<T> List<T> select(T[] items, int slot) {
+			int start = starts[slot];
+			int end = starts[slot + 1];
+			var list = new ArrayList<T>(end - start);
+			for (int i = start; i < end; i++) {
+				list.add(items[positions[i]]);
+			}
+			return list;
+		}
+	}
+
+	/**
+	 * Returns the contributions of the locations to the given selection: a
+	 * flow, impact category, or cost result.
+	 */
+	List<Contribution<Location>> contributionsOf(Object selection) {
+		if (selection instanceof FlowDescriptor flow)
+			return contributionsOf(flow);
+		if (selection instanceof ImpactDescriptor impact)
+			return contributionsOf(impact);
+		if (selection instanceof CostResultDescriptor costs)
+			return contributionsOf(costs);
+		return new ArrayList<>();
+	}
+
+	private List<Contribution<Location>> contributionsOf(FlowDescriptor flow) {
+		var values = new double[locations.length];
+
+		// in a regionalized result, the flow occurs in different locations
+		if (regionalized) {
+			double total = 0;
+			for (int i = 0; i < enviFlows.length; i++) {
+				var enviFlow = enviFlows[i];
+				if (enviFlow.flow() == null || enviFlow.flow().id != flow.id)
+					continue;
+				double v = result.getTotalFlowValueOf(enviFlow);
+				total += v;
+				values[enviSlots[i]] += v;
+			}
+			return toContributions(values, total);
+		}
+
+		int idx = result.enviIndex().of(flow.id);
+		if (idx < 0)
+			return new ArrayList<>();
+		var enviFlow = result.enviIndex().at(idx);
+		for (int i = 0; i < techFlows.length; i++) {
+			values[techSlots[i]] += result.getDirectFlowOf(enviFlow, techFlows[i]);
+		}
+		return toContributions(values, result.getTotalFlowValueOf(enviFlow));
+	}
+
+	private List<Contribution<Location>> contributionsOf(ImpactDescriptor impact) {
+		var values = new double[locations.length];
+		if (regionalized) {
+			for (int i = 0; i < enviFlows.length; i++) {
+				values[enviSlots[i]] += result.getFlowImpactOf(impact, enviFlows[i]);
+			}
+		} else {
+			for (int i = 0; i < techFlows.length; i++) {
+				values[techSlots[i]] += result.getDirectImpactOf(impact, techFlows[i]);
+			}
+		}
+		return toContributions(values, result.getTotalImpactValueOf(impact));
+	}
+
+	private List<Contribution<Location>> contributionsOf(CostResultDescriptor c) {
+		var values = new double[locations.length];
+		for (int i = 0; i < techFlows.length; i++) {
+			double v = result.getDirectCostsOf(techFlows[i]);
+			values[techSlots[i]] += c.forAddedValue ? -v : v;
+		}
+		double total = c.forAddedValue
+				? -result.getTotalCosts()
+				: result.getTotalCosts();
+		return toContributions(values, total);
+	}
+
+	private List<Contribution<Location>> toContributions(
+			double[] values, double total) {
+		var list = new ArrayList<Contribution<Location>>();
+		for (int slot = 0; slot < values.length; slot++) {
+			var c = Contribution.of(locations[slot]);
+			c.amount = values[slot];
+			c.computeShare(total);
+			list.add(c);
+		}
+		return list;
+	}
+}
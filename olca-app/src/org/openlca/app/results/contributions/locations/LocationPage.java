@@ -1,6 +1,7 @@
 package org.openlca.app.results.contributions.locations;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import org.eclipse.jface.action.Action;
@@ -14,15 +15,16 @@ import org.eclipse.swt.widgets.Spinner;
 import org.eclipse.ui.forms.IManagedForm;
 import org.eclipse.ui.forms.editor.FormPage;
 import org.eclipse.ui.forms.widgets.FormToolkit;
+import org.eclipse.ui.forms.widgets.ScrolledForm;
 import org.eclipse.ui.forms.widgets.Section;
 import org.openlca.app.App;
 import org.openlca.app.M;
 import org.openlca.app.db.Database;
 import org.openlca.app.rcp.images.Icon;
+import org.openlca.app.results.ResultCache;
 import org.openlca.app.results.ResultEditor;
 import org.openlca.app.util.Actions;
 import org.openlca.app.util.Controls;
-import org.openlca.app.util.CostResultDescriptor;
 import org.openlca.app.util.Labels;
 import org.openlca.app.util.UI;
 import org.openlca.app.viewers.Viewers;
@@ -30,11 +32,8 @@ import org.openlca.app.viewers.trees.TreeClipboard;
 import org.openlca.app.viewers.trees.Trees;
 import org.openlca.core.model.Location;
 import org.openlca.core.model.RootEntity;
-import org.openlca.core.model.descriptors.FlowDescriptor;
-import org.openlca.core.model.descriptors.ImpactDescriptor;
 import org.openlca.core.model.descriptors.RootDescriptor;
 import org.openlca.core.results.Contribution;
-import org.openlca.core.results.LocationResult;
 
 /**
  * Shows the contributions of the locations in the product system to an analysis
@@ -43,8 +42,9 @@ import org.openlca.core.results.LocationResult;
 public class LocationPage extends FormPage {
 
 	final ResultEditor editor;
-	private final LocationResult locations;
+	private LocationIndex index;
 
+	private ScrolledForm form;
 	private Combo combos;
 	private TreeViewer tree;
 	private TreeLabel label;
@@ -57,7 +57,6 @@ public class LocationPage extends FormPage {
 	public LocationPage(ResultEditor editor) {
 		super(editor, "analysis.MapPage", M.Locations);
 		this.editor = editor;
-		this.locations = new LocationResult(editor.result, Database.get());
 	}
 
 	public Object getSelection() {
@@ -66,7 +65,7 @@ public class LocationPage extends FormPage {
 
 	@Override
 	protected void createFormContent(IManagedForm mform) {
-		var form = UI.formHeader(mform,
+		form = UI.formHeader(mform,
 				Labels.name(editor.setup.target()),
 				Icon.ANALYSIS_RESULT.get());
 		var tk = mform.getToolkit();
@@ -159,21 +158,35 @@ public class LocationPage extends FormPage {
 
 	private void onSelected(Object obj) {
 		label.update(obj);
-		if (obj instanceof FlowDescriptor f) {
-			update(locations.getContributions(f));
+		if (obj == null)
 			return;
+		// the contributions are computed in the background and cached; when
+		// the selection changed in the meantime, the result is just cached
+		var key = ResultCache.Key.of("locations", obj);
+		boolean cached = editor.cache.get(
+				key, () -> index().contributionsOf(obj), items -> {
+					if (tree == null || tree.getControl().isDisposed())
+						return;
+					if (!Objects.equals(obj, getSelection()))
+						return;
+					form.setBusy(false);
+					update(items != null ? items : List.of());
+				});
+		if (!cached && form != null) {
+			form.setBusy(true);
 		}
-		if (obj instanceof ImpactDescriptor i) {
-			update(locations.getContributions(i));
-			return;
-		}
-		if (obj instanceof CostResultDescriptor c) {
-			if (c.forAddedValue) {
-				update(locations.getAddedValueContributions());
-			} else {
-				update(locations.getNetCostsContributions());
-			}
+	}
+
+	/**
+	 * The location index loads the locations from the database; we create it
+	 * on first use, in the background job of the first selection, so that
+	 * opening the result editor is not delayed by this.
+	 */
+	synchronized LocationIndex index() {
+		if (index == null) {
+			index = LocationIndex.of(editor.result, Database.get());
 		}
+		return index;
 	}
 
 	private void update(List<Contribution<Location>> items) {
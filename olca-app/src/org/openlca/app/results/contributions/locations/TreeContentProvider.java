@@ -1,6 +1,5 @@
 package org.openlca.app.results.contributions.locations;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -9,12 +8,10 @@ import java.util.stream.Stream;
 import org.eclipse.jface.viewers.ITreeContentProvider;
 import org.eclipse.jface.viewers.Viewer;
 import org.openlca.app.util.CostResultDescriptor;
-import org.openlca.core.matrix.index.EnviFlow;
 import org.openlca.core.matrix.index.TechFlow;
 import org.openlca.core.model.Location;
 import org.openlca.core.model.descriptors.FlowDescriptor;
 import org.openlca.core.model.descriptors.ImpactDescriptor;
-import org.openlca.core.model.descriptors.ProcessDescriptor;
 import org.openlca.core.results.Contribution;
 import org.openlca.core.results.LcaResult;
 
@@ -163,21 +160,7 @@ class TreeContentProvider implements ITreeContentProvider {
 			});
 		}
 
-		// first collect all flows in that location
-		var flows = new ArrayList<EnviFlow>();
-		for (var enviFlow : result.enviIndex()) {
-			if (loc == null && enviFlow.location() == null) {
-				flows.add(enviFlow);
-				continue;
-			}
-			if (loc == null || enviFlow.location() == null)
-				continue;
-			if (loc.id == enviFlow.location().id) {
-				flows.add(enviFlow);
-			}
-		}
-
-		return flows.stream().map(enviFlow -> {
+		return page.index().enviFlowsOf(loc).stream().map(enviFlow -> {
 			var c = Contribution.of(enviFlow);
 			c.amount = result.getFlowImpactOf(impact, enviFlow);
 			c.computeShare(total);
@@ -186,21 +169,6 @@ class TreeContentProvider implements ITreeContentProvider {
 	}
 
 	private List<TechFlow> techFlows(Location loc) {
-		List<TechFlow> list = new ArrayList<>();
-		result.techIndex().each((i, techFlow) -> {
-			if (!(techFlow.provider() instanceof ProcessDescriptor process))
-				return;
-			if (loc == null && process.location == null) {
-				list.add(techFlow);
-				return;
-			}
-			if (loc == null || process.location == null)
-				return;
-			if (loc.id == process.location) {
-				list.add(techFlow);
-			}
-		});
-		return list;
+		return page.index().techFlowsOf(loc);
 	}
-
 }
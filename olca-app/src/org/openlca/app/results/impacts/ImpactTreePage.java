@@ -10,6 +10,7 @@ import org.openlca.app.App;
 import org.openlca.app.M;
 import org.openlca.app.rcp.images.Icon;
 import org.openlca.app.results.ContributionCutoff;
+import org.openlca.app.results.ResultCache;
 import org.openlca.app.results.ResultEditor;
 import org.openlca.app.util.Actions;
 import org.openlca.app.util.Controls;
@@ -37,6 +38,7 @@ public class ImpactTreePage extends FormPage {
 	private ContributionCutoff cutoff;
 
 	final ResultItemOrder items;
+	final ResultCache cache;
 	boolean flowsFirst = true;
 
 	public ImpactTreePage(ResultEditor editor) {
@@ -46,6 +48,7 @@ public class ImpactTreePage extends FormPage {
 		this.setup = editor.setup;
 		this.dqResult = editor.dqResult;
 		this.items = editor.items;
+		this.cache = editor.cache;
 	}
 
 	@Override
@@ -83,6 +86,17 @@ public class ImpactTreePage extends FormPage {
 		cutoff = ContributionCutoff.create(comp, tk);
 	}
 
+	/**
+	 * Called when the child nodes of the given item were computed in the
+	 * background; the item is then refreshed and expanded.
+	 */
+	void childsLoaded(TreeItem item) {
+		if (viewer == null || viewer.getTree().isDisposed())
+			return;
+		viewer.refresh(item);
+		viewer.setExpandedState(item, true);
+	}
+
 	private void setInput() {
 		viewer.setInput(TreeItem.rootsOf(result, items.impacts()));
 	}
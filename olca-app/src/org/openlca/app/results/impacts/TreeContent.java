@@ -1,8 +1,11 @@
 package org.openlca.app.results.impacts;
 
+import java.util.List;
+
 import org.eclipse.jface.viewers.ArrayContentProvider;
 import org.eclipse.jface.viewers.ITreeContentProvider;
 import org.openlca.app.results.ContributionCutoff;
+import org.openlca.app.results.ResultCache;
 
 class TreeContent extends ArrayContentProvider
 		implements ITreeContentProvider, ContributionCutoff.CutoffContentProvider {
@@ -25,16 +28,43 @@ class TreeContent extends ArrayContentProvider
 			return null;
 		if (item.isLeaf())
 			return null;
-		if (item.isRoot()) {
-			var childs = page.flowsFirst
+		// the child nodes are cached, so that they are not computed again
+		// when the tree is refreshed or a node is expanded again; if they are
+		// not cached yet, they are computed in the background and the node is
+		// refreshed when they are available
+		boolean flowsFirst = page.flowsFirst;
+		double c = cutoff;
+		var key = new ResultCache.Key(
+				flowsFirst ? "ImpactTree/flows" : "ImpactTree/processes",
+				item, c, null);
+		var ref = new Object() {
+			List<TreeItem> childs;
+			boolean pending;
+		};
+		ref.pending = !page.cache.get(
+				key, () -> childsOf(item, flowsFirst, c), childs -> {
+					if (!ref.pending) {
+						ref.childs = childs;
+					} else if (childs != null
+							&& flowsFirst == page.flowsFirst
+							&& c == cutoff) {
+						page.childsLoaded(item);
+					}
+				});
+		return ref.childs != null
+				? ref.childs.toArray()
+				: new Object[0];
+	}
+
+	private List<TreeItem> childsOf(
+			TreeItem item, boolean flowsFirst, double cutoff) {
+		if (item.isRoot())
+			return flowsFirst
 					? item.enviNodesOf(page.items.enviFlows(), cutoff)
 					: item.techNodesOf(page.items.techFlows(), cutoff);
-			return childs.toArray();
-		}
-		var childs = item.isTechItem()
+		return item.isTechItem()
 				? item.enviLeafsOf(page.items.enviFlows(), cutoff)
 				: item.techLeafsOf(page.items.techFlows(), cutoff);
-		return childs.toArray();
 	}
 
 	@Override
@@ -6,39 +6,64 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 import org.openlca.app.db.Database;
 import org.openlca.core.model.Category;
 import org.openlca.util.Strings;
 
+import gnu.trove.map.hash.TLongObjectHashMap;
+
 class CategoryItem implements Item {
 
 	final Category category;
 	final List<CategoryItem> childs = new ArrayList<>();
 
+	/** The providers that are directly in this category. */
+	final List<ProviderItem> providers = new ArrayList<>();
+
+	/** The aggregated costs of the providers in this category tree. */
+	double costValue;
+	double costShare;
+
 	private CategoryItem(Category category) {
 		this.category = category;
 	}
 
 	/**
-	 * Builds a list of category trees over the given provider items.
+	 * Builds a list of category trees over the given provider items. The
+	 * providers are directly assigned to their categories, keeping their
+	 * order, and the costs are aggregated over the category trees.
 	 */
 	static List<CategoryItem> allOf(List<ProviderItem> providers) {
 		var db = Database.get();
 		if (db == null)
 			return Collections.emptyList();
 
+		// bucket the providers by category
+		var buckets = new TLongObjectHashMap<List<ProviderItem>>();
+		for (var provider : providers) {
+			var catID = provider.categoryID();
+			if (catID == null)
+				continue;
+			var bucket = buckets.get(catID);
+			if (bucket == null) {
+				bucket = new ArrayList<>();
+				buckets.put(catID, bucket);
+			}
+			bucket.add(provider);
+		}
+
 		// collect the set of level-0 categories
-		var queue = providers.stream()
-			.map(ProviderItem::categoryID)
-			.filter(Objects::nonNull)
-			.collect(Collectors.toSet())
-			.stream()
-			.map(id -> db.get(Category.class, id))
-			.filter(Objects::nonNull)
-			.map(CategoryItem::new)
-			.collect(Collectors.toCollection(ArrayDeque::new));
+		var queue = new ArrayDeque<CategoryItem>();
+		buckets.forEachEntry((catID, bucket) -> {
+			var category = db.get(Category.class, catID);
+			if (category == null)
+				return true;
+			var item = new CategoryItem(category);
+			item.providers.addAll(bucket);
+			queue.add(item);
+			return true;
+		});
 
 		// with the parent map, we also know when we need
 		// to insert a new element into the queue
@@ -68,9 +93,47 @@ class CategoryItem implements Item {
 		}
 
 		sort(items);
+		calculateCosts(items);
 		return items;
 	}
 
+	/**
+	 * Aggregates the costs of the providers over the given category trees and
+	 * calculates the cost shares of the categories relative to the largest
+	 * absolute value.
+	 */
+	private static void calculateCosts(List<CategoryItem> roots) {
+		var all = new ArrayList<CategoryItem>();
+		var queue = new ArrayDeque<>(roots);
+		while (!queue.isEmpty()) {
+			var item = queue.poll();
+			all.add(item);
+			queue.addAll(item.childs);
+		}
+		roots.forEach(CategoryItem::sumCosts);
+		double max = 0;
+		for (var item : all) {
+			max = Math.max(max, Math.abs(item.costValue));
+		}
+		if (max == 0)
+			return;
+		for (var item : all) {
+			item.costShare = item.costValue / max;
+		}
+	}
+
+	private double sumCosts() {
+		double sum = 0;
+		for (var provider : providers) {
+			sum += provider.costValue;
+		}
+		for (var child : childs) {
+			sum += child.sumCosts();
+		}
+		costValue = sum;
+		return sum;
+	}
+
 	/**
 	 * Recursively sorts the given category trees.
 	 */
@@ -81,8 +81,10 @@ class LabelProvider extends DQLabelProvider {
 
 			// costs share
 			case 4:
-				return costs == Costs.NONE || !item.isProvider()
-					? null
+				if (costs == Costs.NONE || item.isChild())
+					return null;
+				return item.isCategory()
+					? cimg.get(item.asCategory().costShare)
 					: cimg.get(item.asProvider().costShare);
 
 			default:
@@ -125,9 +127,11 @@ class LabelProvider extends DQLabelProvider {
 
 			// cost values
 			case 4:
-				if (!item.isProvider())
+				if (item.isChild())
 					return null;
-				var val = item.asProvider().costValue;
+				var val = item.isCategory()
+					? item.asCategory().costValue
+					: item.asProvider().costValue;
 				return Numbers.decimalFormat(val, 2) + " " + currency;
 
 			default:
@@ -18,6 +18,9 @@ class ProviderItem implements Item {
 	double costValue;
 	double costShare;
 
+	/** The child items; computed when the item is expanded first. */
+	private List<ChildItem> childs;
+
 	private ProviderItem(int index, TechFlow product) {
 		this.index = index;
 		this.product = product;
@@ -78,6 +81,13 @@ class ProviderItem implements Item {
 		return Labels.name(product);
 	}
 
+	List<ChildItem> childs(LcaResult result) {
+		if (childs == null) {
+			childs = ChildItem.allOf(this, result);
+		}
+		return childs;
+	}
+
 	Long categoryID() {
 		return product == null || product.provider() == null
 			? null
@@ -132,10 +132,13 @@ public class TotalRequirementsSection {
 			return 0.0;
 		}, 2);
 		if (costs != Costs.NONE) {
-			Viewers.sortByDouble(tree, (Item i) -> i.isProvider()
-					? i.asProvider().costValue
-					: 0.0,
-				4);
+			Viewers.sortByDouble(tree, (Item i) -> {
+				if (i.isProvider())
+					return i.asProvider().costValue;
+				if (i.isCategory())
+					return i.asCategory().costValue;
+				return 0.0;
+			}, 4);
 		}
 		if (DQUI.displayProcessQuality(dqResult)) {
 			int startCol = costs == Costs.NONE ? 4 : 5;
@@ -1,9 +1,11 @@
 package org.openlca.app.results.requirements;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Stream;
 
 import org.eclipse.jface.viewers.ITreeContentProvider;
+import org.eclipse.jface.viewers.Viewer;
 import org.openlca.core.results.LcaResult;
 
 class TreeModel implements ITreeContentProvider {
@@ -11,6 +13,9 @@ class TreeModel implements ITreeContentProvider {
 	List<ProviderItem> providers;
 	List<CategoryItem> categories;
 
+	/** The root elements of the tree; built once for an input. */
+	private Object[] roots;
+
 	private final LcaResult result;
 	private final Costs costs;
 	private final Object[] empty = new Object[0];
@@ -20,18 +25,36 @@ class TreeModel implements ITreeContentProvider {
 		this.costs = costs;
 	}
 
+	@Override
+	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+		if (oldInput != newInput) {
+			roots = null;
+			providers = null;
+			categories = null;
+		}
+	}
+
 	@Override
 	public Object[] getElements(Object input) {
 		if (!(input instanceof LcaResult))
 			return empty;
+		if (roots != null)
+			return roots;
 		providers = ProviderItem.allOf(result, costs);
 		if (providers.size() < 20) {
-			return providers.toArray();
+			roots = providers.toArray();
+			return roots;
 		}
 		categories = CategoryItem.allOf(providers);
-		var uncat = providers.stream().filter(
-			p -> p.categoryID() == null);
-		return Stream.concat(categories.stream(), uncat).toArray();
+		var uncategorized = new ArrayList<ProviderItem>();
+		for (var p : providers) {
+			if (p.categoryID() == null) {
+				uncategorized.add(p);
+			}
+		}
+		roots = Stream.concat(categories.stream(), uncategorized.stream())
+			.toArray();
+		return roots;
 	}
 
 	@Override
@@ -39,16 +62,14 @@ class TreeModel implements ITreeContentProvider {
 		if (!(elem instanceof Item item))
 			return empty;
 		if (item.isProvider())
-			return ChildItem
-				.allOf(item.asProvider(), result)
+			return item.asProvider()
+				.childs(result)
 				.toArray();
 		if (!item.isCategory() || providers == null)
 			return empty;
 		var catItem = item.asCategory();
-		var providers = this.providers.stream()
-			.filter(p -> p.categoryID() != null
-				&& p.categoryID() == catItem.category.id);
-		return Stream.concat(catItem.childs.stream(), providers).toArray();
+		return Stream.concat(catItem.childs.stream(), catItem.providers.stream())
+			.toArray();
 	}
 
 	@Override
@@ -0,0 +1,126 @@
+package org.openlca.app.results.simulation;
+
+/**
+ * A histogram with a fixed number of equally sized intervals that is updated
+ * incrementally. It only stores the frequencies of the intervals and not the
+ * values itself. When a value is added that is outside of the current range,
+ * the interval width is doubled and the frequencies of neighbouring intervals
+ * are merged until the value fits into the range. Thus, the number of
+ * intervals should be even.
+ */
+class Histogram {
+
+	final int intervalCount;
+	private final int[] frequencies;
+	private double start;
+	private double width;
+	private int count;
+
+	Histogram(int intervalCount) {
+		this.intervalCount = intervalCount;
+		this.frequencies = new int[intervalCount];
+	}
+
+	void add(double value) {
+		if (!Double.isFinite(value))
+			return;
+		count++;
+		if (count == 1) {
+			start = value;
+			frequencies[0]++;
+			return;
+		}
+
+		// as long as all values are equal, they are all in the first interval
+		if (width == 0) {
+			if (value == start) {
+				frequencies[0]++;
+				return;
+			}
+			double first = start;
+			int n = frequencies[0];
+			frequencies[0] = 0;
+			start = Math.min(first, value);
+			width = Math.abs(value - first) / intervalCount;
+			frequencies[getInterval(first)] = n;
+			frequencies[getInterval(value)]++;
+			return;
+		}
+
+		while (value < start) {
+			growLeft();
+		}
+		while (value > start + width * intervalCount) {
+			growRight();
+		}
+		frequencies[getInterval(value)]++;
+	}
+
+	/**
+	 * Doubles the interval width and keeps the start of the range.
+	 */
+	private void growRight() {
+		int half = intervalCount / 2;
+		for (int i = 0; i < half; i++) {
+			frequencies[i] = frequencies[2 * i] + frequencies[2 * i + 1];
+		}
+		for (int i = half; i < intervalCount; i++) {
+			frequencies[i] = 0;
+		}
+		width *= 2;
+	}
+
+	/**
+	 * Doubles the interval width and keeps the end of the range.
+	 */
+	private void growLeft() {
+		int half = intervalCount / 2;
+		for (int i = intervalCount - 1; i >= half; i--) {
+			int j = 2 * (i - half);
+			frequencies[i] = frequencies[j] + frequencies[j + 1];
+		}
+		for (int i = 0; i < half; i++) {
+			frequencies[i] = 0;
+		}
+		start -= width * intervalCount;
+		width *= 2;
+	}
+
+	/**
+	 * Returns the lower bound of the histogram range. Note that the range
+	 * grows by doubling, so this is not necessarily the minimum value.
+	 */
+	double start() {
+		return start;
+	}
+
+	/**
+	 * Returns the upper bound of the histogram range.
+	 */
+	double end() {
+		return start + width * intervalCount;
+	}
+
+	int getInterval(double value) {
+		if (width <= 0)
+			return 0;
+		int i = (int) ((value - start) / width);
+		if (i < 0)
+			return 0;
+		return Math.min(i, intervalCount - 1);
+	}
+
+	int getAbsoluteFrequency(int interval) {
+		if (interval < 0 || interval >= intervalCount)
+			return 0;
+		return frequencies[interval];
+	}
+
+	int getMaxAbsoluteFrequency() {
+		int max = 0;
+		for (int f : frequencies) {
+			max = Math.max(max, f);
+		}
+		return max;
+	}
+}
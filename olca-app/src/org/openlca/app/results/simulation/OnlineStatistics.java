@@ -0,0 +1,175 @@
+package org.openlca.app.results.simulation;
+
+import java.util.Arrays;
+
+/**
+ * Summary statistics of a stream of simulation values that are calculated in
+ * a single pass with constant memory: the mean and variance are updated with
+ * Welford's algorithm and the percentiles are estimated with the P-square
+ * algorithm of Jain and Chlamtac, so that the values never need to be sorted
+ * or kept.
+ */
+class OnlineStatistics {
+
+	private int count;
+	private double mean;
+	private double m2;
+	private double min;
+	private double max;
+
+	private final Quantile p5 = new Quantile(0.05);
+	private final Quantile p50 = new Quantile(0.5);
+	private final Quantile p95 = new Quantile(0.95);
+
+	void add(double value) {
+		count++;
+		if (count == 1) {
+			min = value;
+			max = value;
+		} else {
+			min = Math.min(min, value);
+			max = Math.max(max, value);
+		}
+		double delta = value - mean;
+		mean += delta / count;
+		m2 += delta * (value - mean);
+		p5.add(value);
+		p50.add(value);
+		p95.add(value);
+	}
+
+	int count() {
+		return count;
+	}
+
+	double mean() {
+		return mean;
+	}
+
+	double min() {
+		return min;
+	}
+
+	double max() {
+		return max;
+	}
+
+	double standardDeviation() {
+		return count < 2
+				? 0
+				: Math.sqrt(m2 / (count - 1));
+	}
+
+	double median() {
+		return p50.get();
+	}
+
+	double percentile5() {
+		return p5.get();
+	}
+
+	double percentile95() {
+		return p95.get();
+	}
+
+	/**
+	 * A P-square estimator of a single quantile. It uses five markers which
+	 * heights are adjusted with a piecewise-parabolic prediction for each new
+	 * value.
+	 */
+	private static class Quantile {
+
+		private final double p;
+		private final double[] q = new double[5];
+		private final double[] n = new double[5];
+		private final double[] np = new double[5];
+		private final double[] dn = new double[5];
+		private int count;
+
+		Quantile(double p) {
+			this.p = p;
+			dn[0] = 0;
+			dn[1] = p / 2;
+			dn[2] = p;
+			dn[3] = (1 + p) / 2;
+			dn[4] = 1;
+		}
+
+		void add(double x) {
+			if (count < 5) {
+				q[count] = x;
+				count++;
+				if (count == 5) {
+					Arrays.sort(q);
+					for (int i = 0; i < 5; i++) {
+						n[i] = i + 1;
+					}
+					np[0] = 1;
+					np[1] = 1 + 2 * p;
+					np[2] = 1 + 4 * p;
+					np[3] = 3 + 2 * p;
+					np[4] = 5;
+				}
+				return;
+			}
+			count++;
+
+			// find the cell k of the new value and update the extreme markers
+			int k;
+			if (x < q[0]) {
+				q[0] = x;
+				k = 0;
+			} else if (x >= q[4]) {
+				q[4] = x;
+				k = 3;
+			} else {
+				k = 0;
+				while (k < 3 && x >= q[k + 1]) {
+					k++;
+				}
+			}
+			for (int i = k + 1; i < 5; i++) {
+				n[i] += 1;
+			}
+			for (int i = 0; i < 5; i++) {
+				np[i] += dn[i];
+			}
+
+			// adjust the heights of the middle markers
+			for (int i = 1; i < 4; i++) {
+				double d = np[i] - n[i];
+				if ((d >= 1 && n[i + 1] - n[i] > 1)
+						|| (d <= -1 && n[i - 1] - n[i] < -1)) {
+					int sign = d > 0 ? 1 : -1;
+					double qp = parabolic(i, sign);
+					q[i] = q[i - 1] < qp && qp < q[i + 1]
+							? qp
+							: linear(i, sign);
+					n[i] += sign;
+				}
+			}
+		}
+
+		private double parabolic(int i, int d) {
+			return q[i] + d / (n[i + 1] - n[i - 1])
+					* ((n[i] - n[i - 1] + d) * (q[i + 1] - q[i]) / (n[i + 1] - n[i])
+					+ (n[i + 1] - n[i] - d) * (q[i] - q[i - 1]) / (n[i] - n[i - 1]));
+		}
+
+		private double linear(int i, int d) {
+			return q[i] + d * (q[i + d] - q[i]) / (n[i + d] - n[i]);
+		}
+
+		double get() {
+			if (count == 0)
+				return 0;
+			if (count >= 5)
+				return q[2];
+			// for less than 5 values we take the nearest rank
+			var sorted = Arrays.copyOf(q, count);
+			Arrays.sort(sorted);
+			int idx = (int) Math.round(p * (count - 1));
+			return sorted[idx];
+		}
+	}
+}
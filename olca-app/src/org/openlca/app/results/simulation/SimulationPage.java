@@ -165,6 +165,16 @@ class SimulationPage extends FormPage {
 	}
 
 	private void updateSelection() {
+		updateChart(false);
+	}
+
+	/**
+	 * Updates the chart with the values of the selected indicator. In the
+	 * incremental mode only the values of the new simulation runs are added
+	 * to the statistics, so that the update costs do not grow with the number
+	 * of runs.
+	 */
+	private void updateChart(boolean incremental) {
 		if (result == null || statisticsCanvas == null)
 			return;
 		if (resultType == FLOW) {
@@ -174,7 +184,7 @@ class SimulationPage extends FormPage {
 			double[] vals = resultPin != null
 				? result.getAllUpstream(resultPin, flow)
 				: result.getAll(flow);
-			statisticsCanvas.setValues(vals);
+			setChartValues(vals, incremental);
 		} else {
 			ImpactDescriptor cat = impactViewer.getSelected();
 			if (cat == null)
@@ -182,18 +192,30 @@ class SimulationPage extends FormPage {
 			double[] vals = resultPin != null
 				? result.getAllUpstream(resultPin, cat)
 				: result.getAll(cat);
+			setChartValues(vals, incremental);
+		}
+	}
+
+	private void setChartValues(double[] vals, boolean incremental) {
+		if (incremental) {
+			statisticsCanvas.appendValues(vals);
+		} else {
 			statisticsCanvas.setValues(vals);
 		}
 	}
 
-	void updateProgress() {
-		if (result == null)
+	void updateProgress(int runs) {
+		if (result == null || form.isDisposed())
 			return;
-		updateSelection();
-		progressBar.setSelection(progressBar.getSelection() + 1);
+		updateChart(true);
+		progressBar.setSelection(runs);
 	}
 
 	void progressDone() {
+		if (progressSection.isDisposed())
+			return;
+		// calculate the exact percentiles of the finished simulation
+		updateChart(false);
 		progressSection.dispose();
 		form.reflow(true);
 	}
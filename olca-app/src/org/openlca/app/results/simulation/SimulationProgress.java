@@ -10,10 +10,16 @@ import org.openlca.core.math.Simulator;
 
 /**
  * The progress that runs the simulations. This should not be executed in the
- * UI-thread.
+ * UI-thread. The simulation runs are executed without a pause and the UI is
+ * only updated with a fixed frame rate and not after each run.
  */
 class SimulationProgress implements IRunnableWithProgress {
 
+	/**
+	 * The minimum time in milliseconds between two UI updates.
+	 */
+	private static final long FRAME_TIME = 100;
+
 	private final Display display;
 	private final int numberOfRuns;
 	private final Simulator solver;
@@ -31,16 +37,27 @@ class SimulationProgress implements IRunnableWithProgress {
 	public void run(IProgressMonitor monitor) throws InvocationTargetException,
 			InterruptedException {
 		monitor.beginTask(M.MonteCarloSimulation + "...", numberOfRuns);
+		long lastUpdate = 0;
+		int runs = 0;
 		for (int i = 0; i < numberOfRuns; i++) {
-			if (monitor.isCanceled()) {
-				display.asyncExec(page::progressDone);
+			if (monitor.isCanceled())
 				break;
-			}
 			solver.nextRun();
-			display.asyncExec(page::updateProgress);
-			Thread.sleep(10);
+			runs++;
+			long time = System.currentTimeMillis();
+			if (time - lastUpdate >= FRAME_TIME) {
+				lastUpdate = time;
+				update(runs);
+			}
 		}
+		update(runs);
 		monitor.done();
 		display.asyncExec(page::progressDone);
 	}
+
+	private void update(int runs) {
+		// the UI update is executed synchronously so that the simulation
+		// cannot flood the event queue; the next runs wait for the rendering
+		display.syncExec(() -> page.updateProgress(runs));
+	}
 }
@@ -1,5 +1,7 @@
 package org.openlca.app.results.simulation;
 
+import java.util.Arrays;
+
 import org.eclipse.draw2d.ColorConstants;
 import org.eclipse.draw2d.Figure;
 import org.eclipse.draw2d.Graphics;
@@ -8,16 +10,20 @@ import org.eclipse.draw2d.Label;
 import org.eclipse.draw2d.LineBorder;
 import org.eclipse.draw2d.geometry.Point;
 import org.openlca.app.util.Numbers;
-import org.openlca.core.results.Statistics;
-import org.openlca.core.results.Statistics.Histogram;
 
 /**
  * Draws a chart with a frequency distribution and statistic parameters.
  */
 public class StatisticFigure extends Figure {
 
-	private Histogram hist = Statistics.hist(
-			new double[0], 100);
+	private OnlineStatistics stats = new OnlineStatistics();
+	private Histogram hist = new Histogram(100);
+	/**
+	 * The exact percentiles of the values; {@code null} while new values are
+	 * added during a simulation, the estimates of the statistics are shown
+	 * then.
+	 */
+	private Percentiles exact;
 
 	private int marginLeft = 35;
 	private int marginBottom = 35;
@@ -57,11 +63,81 @@ public class StatisticFigure extends Figure {
 		return valueLabel;
 	}
 
+	/**
+	 * Sets the complete values of a selection. The percentiles are then
+	 * calculated exactly.
+	 */
 	void setData(double[] values) {
-		hist = Statistics.hist(values, 100);
+		stats = new OnlineStatistics();
+		hist = new Histogram(100);
+		add(values);
+		exact = values != null
+				? Percentiles.of(values, stats.count())
+				: null;
+		repaint();
+	}
+
+	/**
+	 * Adds the values to the statistics and histogram that are not yet
+	 * contained. It is assumed that the given array starts with the values
+	 * that were added before, so that only the values after the current count
+	 * are added. The costs of this only depend on the number of new values;
+	 * the percentiles are estimated until {@link #setData} is called again.
+	 */
+	void addData(double[] values) {
+		if (values == null)
+			return;
+		if (values.length > stats.count()) {
+			add(values);
+			exact = null;
+		}
 		repaint();
 	}
 
+	private void add(double[] values) {
+		if (values == null)
+			return;
+		for (int i = stats.count(); i < values.length; i++) {
+			double v = values[i];
+			stats.add(v);
+			hist.add(v);
+		}
+	}
+
+	private double percentile5() {
+		return exact != null ? exact.p5() : stats.percentile5();
+	}
+
+	private double median() {
+		return exact != null ? exact.p50() : stats.median();
+	}
+
+	private double percentile95() {
+		return exact != null ? exact.p95() : stats.percentile95();
+	}
+
+	/**
+	 * The exact 5%, 50%, and 95% percentiles of the values. They are
+	 * calculated from a sorted copy of the values, thus, only when the values
+	 * of a selection are set and not on each update of a running simulation.
+	 */
+	private record Percentiles(double p5, double p50, double p95) {
+
+		static Percentiles of(double[] values, int count) {
+			if (count == 0)
+				return new Percentiles(0, 0, 0);
+			var sorted = Arrays.copyOf(values, count);
+			Arrays.sort(sorted);
+			return new Percentiles(
+					at(sorted, 0.05), at(sorted, 0.5), at(sorted, 0.95));
+		}
+
+		private static double at(double[] sorted, double p) {
+			int idx = (int) Math.round(p * (sorted.length - 1));
+			return sorted[idx];
+		}
+	}
+
 	@Override
 	public void paint(Graphics graphics) {
 		super.paint(graphics);
@@ -96,12 +172,12 @@ public class StatisticFigure extends Figure {
 	}
 
 	private void paintParameterLabels() {
-		numberLabel.setText(Integer.toString(hist.statistics.count));
-		setLabelValue(perc5Label, hist.statistics.getPercentileValue(5));
-		setLabelValue(perc95Label, hist.statistics.getPercentileValue(95));
-		setLabelValue(medianLabel, hist.statistics.median);
-		setLabelValue(meanLabel, hist.statistics.mean);
-		setLabelValue(standardDevLabel, hist.statistics.standardDeviation);
+		numberLabel.setText(Integer.toString(stats.count()));
+		setLabelValue(perc5Label, percentile5());
+		setLabelValue(perc95Label, percentile95());
+		setLabelValue(medianLabel, median());
+		setLabelValue(meanLabel, stats.mean());
+		setLabelValue(standardDevLabel, stats.standardDeviation());
 	}
 
 	private void paintChartFrame(Graphics graphics) {
@@ -109,9 +185,11 @@ public class StatisticFigure extends Figure {
 				getSize().width - marginRight, getSize().height - marginBottom);
 		graphics.drawLine(marginLeft, marginTop, marginLeft, getSize().height
 				- marginBottom);
-		graphics.drawText(Numbers.format(hist.statistics.min, 3),
+		// the bars are drawn over the range of the histogram which can be
+		// larger than the range of the values
+		graphics.drawText(Numbers.format(hist.start(), 3),
 				marginLeft, getSize().height - marginBottom + 10);
-		graphics.drawText(Numbers.format(hist.statistics.max, 3),
+		graphics.drawText(Numbers.format(hist.end(), 3),
 				getSize().width - marginRight - 40, getSize().height
 						- marginBottom + 10);
 		graphics.drawText(
@@ -147,10 +225,10 @@ public class StatisticFigure extends Figure {
 
 	private void paintLines(Graphics g, Point box) {
 		g.setForegroundColor(ColorConstants.red);
-		drawLine(g, hist.statistics.getPercentileValue(5), box);
-		drawLine(g, hist.statistics.median, box);
-		drawLine(g, hist.statistics.getPercentileValue(95), box);
-		drawLine(g, hist.statistics.mean, box);
+		drawLine(g, percentile5(), box);
+		drawLine(g, median(), box);
+		drawLine(g, percentile95(), box);
+		drawLine(g, stats.mean(), box);
 		g.setForegroundColor(ColorConstants.black);
 	}
 
@@ -16,7 +16,19 @@ public class StatisticsCanvas extends FigureCanvas {
 		setContents(plot);
 	}
 
+	/**
+	 * Sets the complete values of a selection or of a finished simulation;
+	 * the percentiles are then calculated exactly.
+	 */
 	public void setValues(double[] values) {
 		plot.setData(values);
 	}
+
+	/**
+	 * Updates the statistics with the new values of a growing value array,
+	 * i.e. with the values after the ones that were set before.
+	 */
+	public void appendValues(double[] values) {
+		plot.addData(values);
+	}
 }
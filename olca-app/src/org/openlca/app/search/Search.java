@@ -1,15 +1,12 @@
 package org.openlca.app.search;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
 import org.openlca.app.navigation.ModelTypeOrder;
-import org.openlca.app.util.Labels;
-import org.openlca.core.database.Daos;
+import org.openlca.app.search.SearchIndex.Entry;
 import org.openlca.core.database.IDatabase;
-import org.openlca.core.database.ParameterDao;
 import org.openlca.core.model.ModelType;
 import org.openlca.core.model.descriptors.Descriptor;
 import org.slf4j.Logger;
@@ -46,62 +43,34 @@ class Search implements Runnable {
 		ModelType[] types = typeFilter == null
 				? ModelTypeOrder.getOrderedTypes()
 				: new ModelType[] { typeFilter };
-		for (ModelType type : types) {
-			List<?> descriptors = getDescriptors(type);
-			fetchResults(descriptors);
+		var entries = SearchIndex.of(database).find(types, terms);
+		entries.sort(new ResultComparator());
+		for (var e : entries) {
+			result.add(e.descriptor);
 		}
-		Collections.sort(result, new ResultComparator());
 		log.trace("{} results fetched and ranked", result.size());
 	}
 
-	private List<?> getDescriptors(ModelType type) {
-		if (type == ModelType.PARAMETER)
-			return new ParameterDao(database).getGlobalDescriptors();
-		return Daos.root(database, type).getDescriptors();
-	}
-
-	private void fetchResults(List<?> descriptors) {
-		for (Object obj : descriptors) {
-			if (!(obj instanceof Descriptor))
-				continue;
-			Descriptor descriptor = (Descriptor) obj;
-			if (match(descriptor))
-				result.add(descriptor);
-		}
-	}
-
-	private boolean match(Descriptor d) {
-		if (terms == null)
-			return false;
-		if (terms.length == 1
-				&& d.refId != null
-				&& d.refId.equalsIgnoreCase(terms[0])) {
-			return true;
-		}
-		String label = Labels.name(d);
-		if (label == null)
-			return false;
-		String feed = label.toLowerCase();
-		for (String term : terms) {
-			if (!feed.contains(term))
-				return false;
-		}
-		return true;
-	}
-
-	private class ResultComparator implements Comparator<Descriptor> {
+	/**
+	 * Ranks the results by the positions of the search terms in the labels,
+	 * then by the labels, and finally by the order of the model types. The
+	 * labels of the index entries are already in lower case.
+	 */
+	private class ResultComparator implements Comparator<Entry> {
 		@Override
-		public int compare(Descriptor o1, Descriptor o2) {
-			String label1 = Labels.name(o1).toLowerCase();
-			String label2 = Labels.name(o2).toLowerCase();
+		public int compare(Entry e1, Entry e2) {
 			for (String term : terms) {
-				int idx1 = label1.indexOf(term);
-				int idx2 = label2.indexOf(term);
+				int idx1 = e1.label.indexOf(term);
+				int idx2 = e2.label.indexOf(term);
 				int diff = idx1 - idx2;
 				if (diff != 0)
 					return diff;
 			}
-			return label1.compareToIgnoreCase(label2);
+			int c = e1.label.compareTo(e2.label);
+			if (c != 0)
+				return c;
+			return ModelTypeOrder.compare(
+					e1.descriptor.type, e2.descriptor.type);
 		}
 	}
 }
@@ -0,0 +1,247 @@
+package org.openlca.app.search;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.openlca.app.navigation.DescriptorCache;
+import org.openlca.app.util.Labels;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.database.IDatabaseListener;
+import org.openlca.core.model.ModelType;
+import org.openlca.core.model.descriptors.Descriptor;
+import org.openlca.core.model.descriptors.RootDescriptor;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+/**
+ * An inverted index of the descriptor labels of a database that is used in
+ * the navigation search. The labels are split into tokens by spaces so that
+ * a search term (which never contains a space) is contained in a label if
+ * and only if it is contained in one of its tokens. The suffixes of the
+ * tokens are kept in a sorted map, so that the tokens that contain a term
+ * are found with a range query over the suffixes that start with that term
+ * instead of checking all labels or tokens.
+ * <p>
+ * The descriptors of a model type are taken from the {@link DescriptorCache}
+ * when the type is searched the first time. After this, the index is updated with the insert, update,
+ * and delete events of the database.
+ */
+class SearchIndex implements IDatabaseListener {
+
+	private static SearchIndex instance;
+
+	private final IDatabase db;
+	private final EnumMap<ModelType, TLongObjectHashMap<Entry>> entries;
+	private final Map<String, Set<Entry>> tokens = new HashMap<>();
+	private final NavigableMap<String, Set<String>> suffixes = new TreeMap<>();
+	private final Map<String, Entry> refIds = new HashMap<>();
+
+	private SearchIndex(IDatabase db) {
+		this.db = db;
+		this.entries = new EnumMap<>(ModelType.class);
+	}
+
+	/**
+	 * Returns the search index of the given database. There is only one index
+	 * instance for the currently active database.
+	 */
+	static synchronized SearchIndex of(IDatabase db) {
+		if (instance != null && instance.db == db)
+			return instance;
+		if (instance != null) {
+			instance.db.removeListener(instance);
+		}
+		instance = new SearchIndex(db);
+		db.addListener(instance);
+		return instance;
+	}
+
+	/**
+	 * Returns the entries of the given types that contain all the given terms
+	 * in their labels or, if there is only one term, which reference ID is
+	 * equal to that term. The terms need to be in lower case.
+	 */
+	synchronized List<Entry> find(ModelType[] types, String[] terms) {
+		var result = new ArrayList<Entry>();
+		if (types == null || terms == null || terms.length == 0)
+			return result;
+		var typeSet = EnumSet.noneOf(ModelType.class);
+		for (var type : types) {
+			load(type);
+			typeSet.add(type);
+		}
+
+		Entry refMatch = null;
+		if (terms.length == 1) {
+			refMatch = refIds.get(terms[0]);
+			if (refMatch != null && typeSet.contains(refMatch.descriptor.type)) {
+				result.add(refMatch);
+			}
+		}
+
+		Set<Entry> candidates = null;
+		for (var term : terms) {
+			var matches = new HashSet<Entry>();
+			var visited = new HashSet<String>();
+			var range = suffixes.subMap(
+					term, true, term + Character.MAX_VALUE, false);
+			for (var tokenSet : range.values()) {
+				for (var token : tokenSet) {
+					if (!visited.add(token))
+						continue;
+					for (var e : tokens.get(token)) {
+						if (typeSet.contains(e.descriptor.type)) {
+							matches.add(e);
+						}
+					}
+				}
+			}
+			if (candidates == null) {
+				candidates = matches;
+			} else {
+				candidates.retainAll(matches);
+			}
+			if (candidates.isEmpty())
+				break;
+		}
+
+		if (candidates != null) {
+			for (var e : candidates) {
+				if (e != refMatch) {
+					result.add(e);
+				}
+			}
+		}
+		return result;
+	}
+
+	private void load(ModelType type) {
+		if (entries.containsKey(type))
+			return;
+		var map = new TLongObjectHashMap<Entry>();
+		entries.put(type, map);
+		for (var d : DescriptorCache.getAll(type)) {
+			add(map, d);
+		}
+	}
+
+	private void add(TLongObjectHashMap<Entry> map, Descriptor d) {
+		var e = new Entry(d);
+		map.put(d.id, e);
+		for (var token : e.tokens) {
+			var set = tokens.get(token);
+			if (set == null) {
+				set = new HashSet<>();
+				tokens.put(token, set);
+				for (int i = 0; i < token.length(); i++) {
+					suffixes.computeIfAbsent(token.substring(i), s -> new HashSet<>())
+							.add(token);
+				}
+			}
+			set.add(e);
+		}
+		if (d.refId != null) {
+			refIds.put(d.refId.toLowerCase(), e);
+		}
+	}
+
+	private void remove(TLongObjectHashMap<Entry> map, Descriptor d) {
+		var e = map.remove(d.id);
+		if (e == null)
+			return;
+		for (var token : e.tokens) {
+			var set = tokens.get(token);
+			if (set == null)
+				continue;
+			set.remove(e);
+			if (set.isEmpty()) {
+				tokens.remove(token);
+				removeSuffixes(token);
+			}
+		}
+		if (e.descriptor.refId != null) {
+			refIds.remove(e.descriptor.refId.toLowerCase(), e);
+		}
+	}
+
+	private void removeSuffixes(String token) {
+		for (int i = 0; i < token.length(); i++) {
+			var suffix = token.substring(i);
+			var set = suffixes.get(suffix);
+			if (set == null)
+				continue;
+			set.remove(token);
+			if (set.isEmpty()) {
+				suffixes.remove(suffix);
+			}
+		}
+	}
+
+	@Override
+	public synchronized void modelInserted(Descriptor d) {
+		var map = mapOf(d);
+		if (map != null) {
+			add(map, d);
+		}
+	}
+
+	@Override
+	public synchronized void modelUpdated(Descriptor d) {
+		var map = mapOf(d);
+		if (map == null)
+			return;
+		remove(map, d);
+		add(map, d);
+	}
+
+	@Override
+	public synchronized void modelDeleted(Descriptor d) {
+		var map = mapOf(d);
+		if (map != null) {
+			remove(map, d);
+		}
+	}
+
+	/**
+	 * Returns the entry map of the type of the given descriptor if that type
+	 * is already loaded. For parameters, the loaded map is dropped as only
+	 * global parameters are indexed, and it is loaded again when the next
+	 * search is executed.
+	 */
+	private TLongObjectHashMap<Entry> mapOf(Descriptor d) {
+		if (!(d instanceof RootDescriptor) || d.type == null)
+			return null;
+		var map = entries.get(d.type);
+		if (map == null)
+			return null;
+		if (d.type == ModelType.PARAMETER) {
+			for (var e : new ArrayList<>(map.valueCollection())) {
+				remove(map, e.descriptor);
+			}
+			entries.remove(d.type);
+			return null;
+		}
+		return map;
+	}
+
+	static class Entry {
+
+		final Descriptor descriptor;
+		final String label;
+		final String[] tokens;
+
+		Entry(Descriptor descriptor) {
+			this.descriptor = descriptor;
+			this.label = Labels.name(descriptor).toLowerCase();
+			this.tokens = label.split(" ");
+		}
+	}
+}
@@ -5,6 +5,13 @@ import org.openlca.app.tools.graphics.model.Component;
 
 public class ComponentFigure extends Figure {
 
+	/**
+	 * The zoom level below which the figures of a graph are painted with less
+	 * details, regardless of the graph size: nodes are painted as plain boxes
+	 * without their content and links as straight lines.
+	 */
+	public static final double DETAIL_ZOOM = 0.5;
+
 	private final Component component;
 
 	public ComponentFigure(Component component) {
@@ -48,6 +48,14 @@ public class Connection extends SelectableConnection {
 
 	@Override
 	protected void outlineShape(Graphics g) {
+		// When zoomed out, links are drawn as straight lines without creating
+		// a path for each link.
+		if (g.getAbsoluteScale() < ComponentFigure.DETAIL_ZOOM) {
+			var points = getControlPoints(-getLineWidth() / 2);
+			g.drawLine(points.getLeft(), points.getRight());
+			return;
+		}
+
 		g.setInterpolation(HIGH);
 		// When the graphical interface is too packed, ROUTER_NULL is used.
 		var accelerate = base.getChildren().size() > CHILDREN_LIMIT;
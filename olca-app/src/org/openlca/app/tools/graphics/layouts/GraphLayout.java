@@ -12,8 +12,7 @@ import org.openlca.app.tools.graphics.figures.ComponentFigure;
 import org.openlca.app.tools.graphics.model.Component;
 
 import java.util.*;
-
-import static org.eclipse.draw2d.PositionConstants.*;
+import java.util.function.Consumer;
 
 public abstract class GraphLayout extends FreeformLayout implements
 		LayoutInterface {
@@ -59,7 +58,8 @@ public abstract class GraphLayout extends FreeformLayout implements
 		for (var child : parent.getChildren())
 			if (child instanceof ComponentFigure figure)
 				childrenSet.add(figure);
-		if (!childrenSet.equals(mapFigureToLocation.keySet())) {
+		if (!childrenSet.equals(mapFigureToLocation.keySet())
+				&& !layoutIncrementally(childrenSet)) {
 			clear();
 		}
 
@@ -120,60 +120,70 @@ public abstract class GraphLayout extends FreeformLayout implements
 
 	private Point calculatePreferredLocation(Figure figure) {
 		if (mapFigureToLocation == null || mapFigureToLocation.isEmpty()) {
-			layoutAsTree();
-			layoutRestAsStack();
-			if (mapFigureToLocation == null)
-				mapFigureToLocation = new HashMap<>();
-			mapFigureToLocation.clear();
-			mapFigureToLocation = getLocationMap();
+			var snapshot = LayoutSnapshot.of(this, parentFigure);
+			var engine = new LayoutEngine(snapshot, mapNodeToVertex, null);
+			mapFigureToLocation = getLocationMap(snapshot, engine.run());
 		}
 		return mapFigureToLocation.get(figure);
 	}
 
-	private void layoutAsTree() {
-		var inputLayout =
-				new TreeLayout(this, orientation, getReferenceNode(), true);
-		if (inputLayout.apexVertex == null)
-			return;
-		inputLayout.run();
-		var outputLayout =
-				new TreeLayout(this, orientation, getReferenceNode(), false);
-		if (outputLayout.apexVertex == null)
-			return;
-		outputLayout.run();
+	/**
+	 * Lays out only the figures that were added since the last layout, e.g.
+	 * after a node was expanded, as subtrees of the nodes they are linked to.
+	 * The figures that were already laid out keep their locations and removed
+	 * figures are just dropped. Returns {@code false} if this is not possible
+	 * and the graph should be laid out from scratch.
+	 */
+	private boolean layoutIncrementally(Set<ComponentFigure> figures) {
+		if (mapFigureToLocation.isEmpty())
+			return false;
+		var added = new ArrayList<Component>();
+		for (var figure : figures) {
+			if (!mapFigureToLocation.containsKey(figure))
+				added.add(figure.getComponent());
+		}
+		mapFigureToLocation.keySet().retainAll(figures);
+		mapNodeToVertex.values().removeIf(v -> !figures.contains(v.figure));
+		if (added.isEmpty())
+			return true;
+
+		var snapshot = LayoutSnapshot.of(this, parentFigure, mapFigureToLocation);
+		var locations = new LayoutEngine(snapshot).runIncremental(added);
+		if (locations == null)
+			return false;
+		mapFigureToLocation.putAll(getLocationMap(snapshot, locations));
+		return true;
 	}
 
 	/**
 	 * Return the location of top left corner of the nodes.
 	 */
-	private Map<Figure, Point> getLocationMap() {
+	private Map<Figure, Point> getLocationMap(
+			LayoutSnapshot snapshot, Map<Component, Point> locations) {
 		var nodeFigureToLocationMap = new HashMap<Figure, Point>();
-		for (var vertex : mapNodeToVertex.values()) {
-			nodeFigureToLocationMap.put(vertex.figure, vertex.getLocation());
+		for (var e : locations.entrySet()) {
+			var entry = snapshot.get(e.getKey());
+			if (entry != null)
+				nodeFigureToLocationMap.put(entry.figure(), e.getValue());
 		}
 		return nodeFigureToLocationMap;
 	}
 
-	private void layoutRestAsStack() {
-		var stackFigures = getStackFigures();
-		if (!stackFigures.isEmpty()) {
-			var dir = (orientation & (EAST | WEST)) != 0 ? SOUTH : EAST;
-			new StackLayout(this, stackFigures, getReferenceFigure(), dir).run();
-		}
-	}
-
-	private List<ComponentFigure> getStackFigures() {
-		var stackFigures = new ArrayList<ComponentFigure>();
-		for (var child : parentFigure.getChildren()) {
-			if (child instanceof ComponentFigure figure) {
-				if (!mapNodeToVertex.containsKey(figure.getComponent())
-						|| mapNodeToVertex.get(figure.getComponent()).getLocation() == null)
-					stackFigures.add(figure);
-			}
+	/**
+	 * Computes the locations of all nodes from scratch in a background job, as
+	 * if no node was moved by the user. The snapshot of the figures is taken
+	 * directly, thus, this method has to be called in the UI thread. When the
+	 * layout was not cancelled, the given function is called with the top left
+	 * corners of the nodes in the UI thread; nodes without a location are then
+	 * laid out in the UI thread, as before.
+	 */
+	public void layoutInBackground(Consumer<Map<Component, Point>> fn) {
+		if (parentFigure == null) {
+			fn.accept(Collections.emptyMap());
+			return;
 		}
-
-		stackFigures.sort(Comparator.comparing(ComponentFigure::getComponent));
-		return stackFigures;
+		var snapshot = LayoutSnapshot.reset(this, parentFigure);
+		new LayoutJob(snapshot, fn).schedule();
 	}
 
 	public void clear() {
@@ -181,6 +191,10 @@ public abstract class GraphLayout extends FreeformLayout implements
 		mapNodeToVertex.clear();
 	}
 
+	public int getOrientation() {
+		return orientation;
+	}
+
 	protected IFigure getParentFigure() {
 		return parentFigure;
 	}
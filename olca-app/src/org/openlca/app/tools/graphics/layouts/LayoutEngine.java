@@ -0,0 +1,229 @@
+package org.openlca.app.tools.graphics.layouts;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.Rectangle;
+import org.openlca.app.tools.graphics.model.Component;
+
+import static org.eclipse.draw2d.PositionConstants.*;
+
+/**
+ * Runs the tree and stack layouts on a {@link LayoutSnapshot}. The engine
+ * only works on the snapshot and its own vertices, thus, it can run in a
+ * background thread. The result is a map with the top left corners of the
+ * laid out nodes which can then be applied to the figures in the UI thread.
+ */
+class LayoutEngine {
+
+	final LayoutSnapshot snapshot;
+
+	/**
+	 * The vertices of the nodes that were laid out, or that are fixed in an
+	 * incremental layout.
+	 */
+	final Map<Component, Vertex> vertices;
+	private final IProgressMonitor monitor;
+
+	LayoutEngine(LayoutSnapshot snapshot, Map<Component, Vertex> vertices,
+			IProgressMonitor monitor) {
+		this.snapshot = snapshot;
+		this.vertices = vertices;
+		this.monitor = monitor != null
+				? monitor
+				: new NullProgressMonitor();
+	}
+
+	LayoutEngine(LayoutSnapshot snapshot) {
+		this(snapshot, new HashMap<>(), null);
+	}
+
+	/**
+	 * Lays out the whole graph: the input and output trees of the reference
+	 * node first and then the nodes that are not connected to these trees as a
+	 * stack.
+	 */
+	Map<Component, Point> run() {
+		layoutAsTree();
+		layoutRestAsStack();
+		var locations = new HashMap<Component, Point>();
+		for (var vertex : vertices.values()) {
+			var location = vertex.getLocation();
+			if (location != null)
+				locations.put(vertex.node, location);
+		}
+		return locations;
+	}
+
+	/**
+	 * Only lays out the given nodes that were added to an already laid out
+	 * graph, e.g. after expanding a node. The other nodes keep their locations
+	 * and the added nodes are laid out as subtrees of the nodes they are linked
+	 * to. Subtrees that would overlap other nodes are moved into a free band.
+	 * Returns {@code null} if not all added nodes could be placed that way; a
+	 * full layout is then required.
+	 */
+	Map<Component, Point> runIncremental(Collection<Component> nodes) {
+		var added = new HashSet<>(nodes);
+		for (var node : snapshot.nodes()) {
+			if (added.contains(node))
+				continue;
+			var entry = snapshot.get(node);
+			if (entry.location() == null)
+				return null;
+			var vertex = new Vertex(node, entry.figure(), entry.size(), 0);
+			var center = entry.location()
+					.getTranslated(entry.size().getScaled(0.5));
+			vertex.setStartLocation(center);
+			vertex.setLocation(center, null);
+			vertices.put(node, vertex);
+		}
+
+		// the subtrees hang on the placed nodes that are linked to added nodes
+		record Apex(Component node, boolean forInputs) {}
+		Set<Apex> apexes = new LinkedHashSet<>();
+		for (var node : snapshot.nodes()) {
+			if (!added.contains(node))
+				continue;
+			var entry = snapshot.get(node);
+			for (var recipient : entry.outputs()) {
+				if (vertices.containsKey(recipient))
+					apexes.add(new Apex(recipient, true));
+			}
+			for (var provider : entry.inputs()) {
+				if (vertices.containsKey(provider))
+					apexes.add(new Apex(provider, false));
+			}
+		}
+
+		// the bounds of the placed nodes and of the subtrees laid out so far
+		var occupied = new ArrayList<Rectangle>();
+		var placed = new HashSet<Component>();
+		for (var vertex : vertices.values()) {
+			occupied.add(boundsOf(vertex));
+		}
+
+		for (var apex : apexes) {
+			var layout = new TreeLayout(this, apex.node(), apex.forInputs());
+			if (layout.apexVertex == null)
+				continue;
+			layout.run();
+			var subtree = new ArrayList<Vertex>();
+			for (var node : added) {
+				var vertex = vertices.get(node);
+				if (vertex != null && vertex.getLocation() != null
+						&& placed.add(node)) {
+					subtree.add(vertex);
+				}
+			}
+			moveToFreeBand(subtree, occupied);
+			for (var vertex : subtree) {
+				occupied.add(boundsOf(vertex));
+			}
+		}
+
+		var locations = new HashMap<Component, Point>();
+		for (var node : added) {
+			var vertex = vertices.get(node);
+			var location = vertex != null ? vertex.getLocation() : null;
+			if (location == null)
+				return null;
+			locations.put(node, location);
+		}
+		return locations;
+	}
+
+	/**
+	 * The tree layout of a subtree only knows the nodes of that subtree, thus,
+	 * it can overlap nodes that were already placed. In this case, the subtree
+	 * is moved along the sibling axis into the nearest band that is free over
+	 * the level range of the subtree.
+	 */
+	private void moveToFreeBand(List<Vertex> subtree, List<Rectangle> occupied) {
+		if (subtree.isEmpty())
+			return;
+		var bounds = boundsOf(subtree.get(0));
+		for (var vertex : subtree) {
+			bounds.union(boundsOf(vertex));
+		}
+		boolean horizontal = (snapshot.orientation & (EAST | WEST)) != 0;
+		int gap = (int) snapshot.distanceSubtree;
+
+		// the obstacles are the occupied bounds in the level range of the
+		// subtree, the free band is above or below all of them
+		boolean overlaps = false;
+		int min = Integer.MAX_VALUE;
+		int max = Integer.MIN_VALUE;
+		for (var r : occupied) {
+			boolean inRange = horizontal
+					? r.x < bounds.right() && bounds.x < r.right()
+					: r.y < bounds.bottom() && bounds.y < r.bottom();
+			if (!inRange)
+				continue;
+			overlaps |= r.intersects(bounds);
+			min = Math.min(min, horizontal ? r.y : r.x);
+			max = Math.max(max, horizontal ? r.bottom() : r.right());
+		}
+		if (!overlaps)
+			return;
+
+		int start = horizontal ? bounds.y : bounds.x;
+		int end = horizontal ? bounds.bottom() : bounds.right();
+		int after = max + gap - start;
+		int before = min - gap - end;
+		int shift = Math.abs(after) <= Math.abs(before) ? after : before;
+		var delta = horizontal ? new Point(0, shift) : new Point(shift, 0);
+		for (var vertex : subtree) {
+			vertex.setLocation(vertex.getEndLocation().getTranslated(delta), null);
+		}
+	}
+
+	private static Rectangle boundsOf(Vertex vertex) {
+		return new Rectangle(vertex.getLocation(), vertex.size);
+	}
+
+	private void layoutAsTree() {
+		var inputLayout = new TreeLayout(this, snapshot.reference, true);
+		if (inputLayout.apexVertex == null)
+			return;
+		inputLayout.run();
+		var outputLayout = new TreeLayout(this, snapshot.reference, false);
+		if (outputLayout.apexVertex == null)
+			return;
+		outputLayout.run();
+	}
+
+	private void layoutRestAsStack() {
+		var stackNodes = new ArrayList<Component>();
+		for (var node : snapshot.nodes()) {
+			var vertex = vertices.get(node);
+			if (vertex == null || vertex.getLocation() == null)
+				stackNodes.add(node);
+		}
+		if (!stackNodes.isEmpty()) {
+			var dir = (snapshot.orientation & (EAST | WEST)) != 0 ? SOUTH : EAST;
+			new StackLayout(this, stackNodes, snapshot.reference, dir).run();
+		}
+	}
+
+	/**
+	 * Reports the layout of a vertex to the progress monitor and stops the
+	 * layout if it was cancelled.
+	 */
+	void worked() {
+		if (monitor.isCanceled())
+			throw new OperationCanceledException();
+		monitor.worked(1);
+	}
+
+}
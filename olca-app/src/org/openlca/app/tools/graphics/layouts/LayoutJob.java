@@ -0,0 +1,62 @@
+package org.openlca.app.tools.graphics.layouts;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.swt.widgets.Display;
+import org.openlca.app.M;
+import org.openlca.app.tools.graphics.model.Component;
+import org.openlca.app.util.ErrorReporter;
+
+/**
+ * Lays out a snapshot of a graph in a background job. The progress of the
+ * job is shown to the user who can also cancel it. The resulting locations
+ * are passed to the callback of the job in the UI thread, so that they can be
+ * applied to the model in one batch.
+ */
+class LayoutJob extends Job {
+
+	private final LayoutSnapshot snapshot;
+	private final Consumer<Map<Component, Point>> callback;
+	private final Display display;
+
+	LayoutJob(LayoutSnapshot snapshot,
+			Consumer<Map<Component, Point>> callback) {
+		super(M.Layout);
+		this.snapshot = snapshot;
+		this.callback = callback;
+		this.display = Display.getCurrent();
+		setUser(true);
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		// the vertices of the mistletoes are counted too, so that the number
+		// of nodes is just an estimate of the work
+		monitor.beginTask(M.Layout, snapshot.size());
+		try {
+			var engine = new LayoutEngine(snapshot, new HashMap<>(), monitor);
+			var locations = engine.run();
+			monitor.done();
+			if (monitor.isCanceled())
+				return Status.CANCEL_STATUS;
+			if (display != null && !display.isDisposed()) {
+				display.asyncExec(() -> callback.accept(locations));
+			}
+			return Status.OK_STATUS;
+		} catch (OperationCanceledException e) {
+			return Status.CANCEL_STATUS;
+		} catch (Exception e) {
+			ErrorReporter.on("Failed to compute the layout", e);
+			return Status.CANCEL_STATUS;
+		}
+	}
+
+}
@@ -0,0 +1,171 @@
+package org.openlca.app.tools.graphics.layouts;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.draw2d.Figure;
+import org.eclipse.draw2d.IFigure;
+import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.draw2d.geometry.Point;
+import org.eclipse.draw2d.geometry.Rectangle;
+import org.openlca.app.tools.graphics.figures.ComponentFigure;
+import org.openlca.app.tools.graphics.model.Component;
+
+/**
+ * An immutable copy of everything the tree layout needs to know about the
+ * figures of a graph: their sizes, their current locations, and the nodes
+ * they are linked to. A snapshot has to be created in the UI thread but it can
+ * then be laid out in a background thread without touching the figures or the
+ * model.
+ */
+class LayoutSnapshot {
+
+	/**
+	 * The entries of the snapshot, sorted by their components.
+	 */
+	private final Map<Component, Entry> entries;
+	final Component reference;
+	final int orientation;
+	final double distanceSibling;
+	final double distanceSubtree;
+	final double distanceLevel;
+
+	/**
+	 * The layout data of a node.
+	 *
+	 * @param figure   the figure of the node; it is only used as a key and is not
+	 *                 touched during the layout
+	 * @param inTree   true if the node can be laid out in a tree, otherwise it
+	 *                 can only be laid out in the stack (e.g. a sticky note)
+	 * @param size     the constrained size of the figure
+	 * @param location the top left corner of the figure or {@code null} if the
+	 *                 figure should be laid out
+	 * @param inputs   the providers of the node, sorted
+	 * @param outputs  the recipients of the node, sorted
+	 */
+	record Entry(
+			Figure figure,
+			boolean inTree,
+			Dimension size,
+			Point location,
+			List<Component> inputs,
+			List<Component> outputs) {
+	}
+
+	private LayoutSnapshot(GraphLayout manager, Map<Component, Entry> entries) {
+		this.entries = entries;
+		this.reference = manager.getReferenceNode();
+		this.orientation = manager.getOrientation();
+		this.distanceSibling = manager.distanceSibling;
+		this.distanceSubtree = manager.distanceSubtree;
+		this.distanceLevel = manager.distanceLevel;
+	}
+
+	/**
+	 * Creates a snapshot in which the figures that were moved by the user keep
+	 * their locations.
+	 */
+	static LayoutSnapshot of(GraphLayout manager, IFigure parent) {
+		return of(manager, parent, true, null);
+	}
+
+	/**
+	 * Creates a snapshot in which the figures that were moved by the user keep
+	 * their locations and the figures of the given map are placed at the
+	 * respective locations.
+	 */
+	static LayoutSnapshot of(GraphLayout manager, IFigure parent,
+			Map<Figure, Point> placed) {
+		return of(manager, parent, true, placed);
+	}
+
+	/**
+	 * Creates a snapshot in which all figures are laid out from scratch.
+	 */
+	static LayoutSnapshot reset(GraphLayout manager, IFigure parent) {
+		return of(manager, parent, false, null);
+	}
+
+	private static LayoutSnapshot of(GraphLayout manager, IFigure parent,
+			boolean keepMoved, Map<Figure, Point> placed) {
+		var figures = new ArrayList<ComponentFigure>();
+		for (var child : parent.getChildren()) {
+			if (child instanceof ComponentFigure figure
+					&& figure.getComponent() != null
+					&& manager.getConstraint(figure) != null)  // see layout()
+				figures.add(figure);
+		}
+		figures.sort((f1, f2) -> f1.getComponent().compareTo(f2.getComponent()));
+
+		var entries = new LinkedHashMap<Component, Entry>();
+		for (var figure : figures) {
+			var node = figure.getComponent();
+			var size = manager.getConstrainedSize(figure).getCopy();
+			var inTree = manager.figureOf(node) == figure;
+			var entry = new Entry(figure, inTree, size,
+					locationOf(manager, figure, keepMoved, placed),
+					linkedNodes(node, true),
+					linkedNodes(node, false));
+			entries.put(node, entry);
+		}
+		return new LayoutSnapshot(manager, Collections.unmodifiableMap(entries));
+	}
+
+	private static Point locationOf(GraphLayout manager, Figure figure,
+			boolean keepMoved, Map<Figure, Point> placed) {
+		if (!keepMoved)
+			return null;
+		var constraint = (Rectangle) manager.getConstraint(figure);
+		var location = constraint.getLocation();
+		if (location.x != Integer.MAX_VALUE && location.y != Integer.MAX_VALUE)
+			return location.getCopy();
+		var p = placed != null ? placed.get(figure) : null;
+		return p != null ? p.getCopy() : null;
+	}
+
+	private static List<Component> linkedNodes(Component node, boolean inputs) {
+		var links = inputs
+				? node.getAllTargetConnections()
+				: node.getAllSourceConnections();
+		var nodes = new ArrayList<Component>(links.size());
+		for (var link : links) {
+			if (link.isCloseLoop())
+				continue;
+			var other = inputs
+					? link.getSourceNode()
+					: link.getTargetNode();
+			if (other != null && !nodes.contains(other))
+				nodes.add(other);
+		}
+		nodes.sort(Component::compareTo);
+		return Collections.unmodifiableList(nodes);
+	}
+
+	Entry get(Component node) {
+		return node != null ? entries.get(node) : null;
+	}
+
+	/**
+	 * Returns true if the given node is contained in this snapshot and can be
+	 * laid out in a tree.
+	 */
+	boolean isTreeNode(Component node) {
+		var entry = get(node);
+		return entry != null && entry.inTree();
+	}
+
+	/**
+	 * Returns the nodes of the snapshot, sorted.
+	 */
+	Iterable<Component> nodes() {
+		return entries.keySet();
+	}
+
+	int size() {
+		return entries.size();
+	}
+
+}
@@ -5,7 +5,7 @@ import java.util.Collections;
 import java.util.List;
 
 import org.eclipse.draw2d.geometry.Point;
-import org.openlca.app.tools.graphics.figures.ComponentFigure;
+import org.openlca.app.tools.graphics.model.Component;
 
 import static org.eclipse.draw2d.PositionConstants.*;
 
@@ -13,37 +13,38 @@ public class StackLayout {
 
 	private final double DISTANCE_LEVEL = 48;
 
-	private final List<ComponentFigure> figures = new ArrayList<>();
-	private final ComponentFigure rootFigure;
-	private final GraphLayout manager;
+	private final List<Component> nodes = new ArrayList<>();
+	private final Component root;
+	private final LayoutEngine engine;
 	private final int direction;
 
-	StackLayout(GraphLayout manager, List<ComponentFigure> stackFigures,
-		ComponentFigure rootFigure, int direction) {
-		this.manager = manager;
-		this.rootFigure = rootFigure;
+	StackLayout(LayoutEngine engine, List<Component> stackNodes,
+		Component root, int direction) {
+		this.engine = engine;
+		this.root = root;
 		this.direction = direction;
-		figures.add(rootFigure);
-		figures.addAll(stackFigures);
+		nodes.add(root);
+		nodes.addAll(stackNodes);
 	}
 
 	public void run() {
 
-		var maxDepth = figures.size();
+		var maxDepth = nodes.size();
 
 		var levels = new ArrayList<>(Collections.nCopies(maxDepth, 0.0));
-		var rootLocation = manager.mapNodeToVertex
-				.get(rootFigure.getComponent())
-				.endLocation;
+		var rootVertex = engine.vertices.get(root);
+		if (rootVertex == null || rootVertex.endLocation == null)
+			return;
+		var rootLocation = rootVertex.endLocation;
 
 		for (int i = 1; i < maxDepth; ++i) {
 			levels.set(i, levels.get(i - 1)
 					+ ((lengthOfFigure(i - 1) + lengthOfFigure(i)) / 2
 					+ DISTANCE_LEVEL)
 					* (((direction & SOUTH_EAST) != 0 ) ? 1 : -1));
-			var size = manager.getConstrainedSize(figures.get(i));
-			var node = figures.get(i).getComponent();
-			var vertex = new Vertex(node, figures.get(i), size, i);
+			var node = nodes.get(i);
+			var entry = engine.snapshot.get(node);
+			var vertex = new Vertex(node, entry.figure(), entry.size(), i);
 
 			var x = (direction & (NORTH | SOUTH)) != 0
 					? rootLocation.x
@@ -51,15 +52,15 @@ public class StackLayout {
 			var y = (direction & (NORTH | SOUTH)) != 0
 					? (int) Math.round(rootLocation.y + levels.get(i))
 					: rootLocation.y;
-			vertex.setLocation(new Point(x, y),
-					manager.mapNodeToVertex.get(manager.getReferenceNode()));
+			vertex.setLocation(new Point(x, y), rootVertex);
 
-			manager.mapNodeToVertex.put(figures.get(i).getComponent(), vertex);
+			engine.vertices.put(node, vertex);
+			engine.worked();
 		}
 	}
 
 	private int lengthOfFigure(int index) {
-		var size = manager.getConstrainedSize(figures.get(index));
+		var size = engine.snapshot.get(nodes.get(index)).size();
 		return (direction & (NORTH | SOUTH)) != 0
 				? size.height()
 				: size.width();
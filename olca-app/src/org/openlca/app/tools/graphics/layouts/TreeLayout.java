@@ -1,7 +1,6 @@
 package org.openlca.app.tools.graphics.layouts;
 
 import org.eclipse.draw2d.geometry.Point;
-import org.eclipse.draw2d.geometry.Rectangle;
 import org.openlca.app.tools.graphics.model.Component;
 
 import java.util.ArrayDeque;
@@ -47,6 +46,10 @@ import static org.eclipse.draw2d.PositionConstants.*;
  * of the main tree are determined, the final positions of the apex are thus
  * fixed such that the final positions of the mistletoes can be computed
  * (second walks of the mistletoe).
+ * <p>
+ * The layout does not access the figures or the model directly but reads the
+ * sizes and links of the nodes from the {@link LayoutSnapshot} of its
+ * {@link LayoutEngine}, so that it can run in a background thread.
  */
 public class TreeLayout {
 
@@ -68,7 +71,8 @@ public class TreeLayout {
 	 */
 	private final List<Double> levelSizes;
 	private final List<Double> mistletoeSizes;
-	private final GraphLayout manager;
+	private final LayoutEngine engine;
+	private final LayoutSnapshot snapshot;
 	private final boolean forInputs;
 	/**
 	 * The maximum depth of the tree (set to zero if there is only an apex
@@ -77,10 +81,10 @@ public class TreeLayout {
 	private int maxDepth = -1;
 	private List<Double> levels;
 
-	TreeLayout(GraphLayout manager, int orientation, Component apex,
-						 boolean forInputs) {
-		this.manager = manager;
-		this.orientation = orientation;
+	TreeLayout(LayoutEngine engine, Component apex, boolean forInputs) {
+		this.engine = engine;
+		this.snapshot = engine.snapshot;
+		this.orientation = snapshot.orientation;
 		this.forInputs = forInputs;
 		apexVertex = createApexVertex(apex);
 		createTree(apexVertex);
@@ -90,15 +94,13 @@ public class TreeLayout {
 	}
 
 	private Vertex createApexVertex(Component apex) {
-		var figure = manager.figureOf(apex);
-		var size = manager.getConstrainedSize(figure);
-		var vertex = new Vertex(apex, figure, size, 0);
-		if (vertex.figure == null
-				|| manager.getConstraint(vertex.figure) == null)  // see layout()
+		var entry = snapshot.get(apex);
+		if (entry == null || !entry.inTree())  // see layout()
 			return null;
+		var vertex = new Vertex(apex, entry.figure(), entry.size(), 0);
 
 		// Only the first Vertex of node is added to the map.
-		manager.mapNodeToVertex.putIfAbsent(apex, vertex);
+		engine.vertices.putIfAbsent(apex, vertex);
 		return vertex;
 	}
 
@@ -106,25 +108,24 @@ public class TreeLayout {
 	 * Calculate the center location of the vertex.
 	 */
 	private Point calculateStartLocation(Vertex vertex) {
-		var previousVertex = manager.mapNodeToVertex.get(vertex.node);
+		var previousVertex = engine.vertices.get(vertex.node);
 		if (previousVertex != null)
 			return previousVertex.startLocation;
 
-		var constraint = (Rectangle) manager.getConstraint(vertex.figure);
-		if (constraint == null) {
+		var entry = snapshot.get(vertex.node);
+		if (entry == null) {
 			return null;
 		}
 
 		// TODO Keep location from last layout
 		// If the node has not been moved by the user. Its startLocation is null.
-		return (constraint.getLocation().x == Integer.MAX_VALUE
-				|| constraint.getLocation().y == Integer.MAX_VALUE)
+		return entry.location() == null
 				? null
-				: constraint.getLocation().getTranslated(vertex.size.getScaled(0.5));
+				: entry.location().getTranslated(vertex.size.getScaled(0.5));
 	}
 
 	private Point calculateEndLocation(Vertex vertex) {
-		var previousVertex = manager.mapNodeToVertex.get(vertex.node);
+		var previousVertex = engine.vertices.get(vertex.node);
 		return (previousVertex == null || previousVertex.endLocation == null)
 				? vertex.startLocation
 				: previousVertex.endLocation;
@@ -184,7 +185,7 @@ public class TreeLayout {
 		for (int i = 1; i <= maxDepth; ++i)
 			levels.set(i, levels.get(i - 1)
 					+ (levelSizes.get(i + 1) + levelSizes.get(i)) / 2
-					+ manager.distanceLevel
+					+ snapshot.distanceLevel
 					+ mistletoeSizes.get(i + 1));
 		return levels.get(levels.size() - 1);
 	}
@@ -223,43 +224,39 @@ public class TreeLayout {
 			while (levelSize-- != 0) {
 				var parent = queue.poll();
 				if (parent != null) {
-					var links = forInputs
-							? parent.node.getAllTargetConnections()
-							: parent.node.getAllSourceConnections();
+					var entry = snapshot.get(parent.node);
+					var linked = forInputs
+							? entry.inputs()
+							: entry.outputs();
 					var children = new ArrayList<Component>();
 
-					// Create the list of children of parent.
-					for (var link : links) {
-						var child = forInputs
-								? link.getSourceNode()
-								: link.getTargetNode();
+					// Create the list of children of parent. The linked nodes are
+					// already sorted in the snapshot.
+					for (var child : linked) {
 						// Check if this child has not been already added by a neighbor, an
-						// ancestor or the root of the subtree itself.
-						if (!manager.mapNodeToVertex.containsKey(child)
-								&& !children.contains(child))
+						// ancestor or the root of the subtree itself, and that it has a
+						// figure (see layout()).
+						if (!engine.vertices.containsKey(child)
+								&& snapshot.isTreeNode(child))
 							children.add(child);
 					}
 
-					children.sort(Component::compareTo);
-
 					// Create the vertices of the filtered children.
-					for (var child : children) {
-						var index = children.indexOf(child);
-						var figure = manager.figureOf(child);
-						var size = manager.getConstrainedSize(figure);
-						var childVertex = new Vertex(child, figure, size, index);
+					for (int index = 0; index < children.size(); index++) {
+						var child = children.get(index);
+						var childEntry = snapshot.get(child);
+						var childVertex = new Vertex(
+								child, childEntry.figure(), childEntry.size(), index);
 						childVertex.setParent(parent);
-						if (childVertex.figure == null
-								|| manager.getConstraint(childVertex.figure) == null)  // see layout()
-							continue;
 						childVertex.setStartLocation(calculateStartLocation(childVertex));
-						if (children.indexOf(child) != 0)
+						if (index != 0)
 							childVertex.setPreviousSibling(
-									manager.mapNodeToVertex.get(children.get(index - 1)));
+									engine.vertices.get(children.get(index - 1)));
 
-						manager.mapNodeToVertex.put(child, childVertex);
+						engine.vertices.put(child, childVertex);
 						parent.addChild(childVertex);
 						queue.add(childVertex);
+						engine.worked();
 					}
 				}
 			}
@@ -280,7 +277,7 @@ public class TreeLayout {
 				// Check if this vertex is a mistletoe.
 				if (isMistletoe(child) && child.mistletoe == null)
 					child.mistletoe =
-							new TreeLayout(manager, orientation, child.node, !forInputs);
+							new TreeLayout(engine, child.node, !forInputs);
 				queue.add(child);
 			}
 		}
@@ -440,8 +437,8 @@ public class TreeLayout {
 
 	private double spacingOf(Vertex left, Vertex right, boolean areSiblings) {
 		var neighborSeparation = areSiblings
-				? manager.distanceSibling :
-				manager.distanceSubtree;
+				? snapshot.distanceSibling
+				: snapshot.distanceSubtree;
 		var lengthsMean = (orientation & (NORTH | SOUTH)) != 0
 				? (left.size.width + right.size.width) / 2
 				: (left.size.height + right.size.height) / 2;
@@ -456,17 +453,13 @@ public class TreeLayout {
 	}
 
 	private boolean isMistletoe(Vertex vertex) {
-		var links = forInputs
-				? vertex.node.getAllSourceConnections()
-				: vertex.node.getAllTargetConnections();
-		for (var link : links) {
-			if (link.isCloseLoop())
-				continue;
-
-			var otherNode = forInputs
-					? link.getTargetNode()
-					: link.getSourceNode();
-			if (!manager.mapNodeToVertex.containsKey(otherNode))
+		var entry = snapshot.get(vertex.node);
+		// close loops are not contained in the linked nodes of the snapshot
+		var otherNodes = forInputs
+				? entry.outputs()
+				: entry.inputs();
+		for (var otherNode : otherNodes) {
+			if (!engine.vertices.containsKey(otherNode))
 				return true;
 		}
 		return false;
@@ -19,6 +19,8 @@ public class LayoutCommand extends Command {
 	private final Component parent;
 	/** Stores the old size and location. */
 	public final Map<Component, Point> oldLocations = new HashMap<>();
+	/** The locations computed by the background layout, if any. */
+	private Map<Component, Point> newLocations;
 
 	/**
 	 * Create a command that can reset the location of all the nodes to force a
@@ -30,6 +32,20 @@ public class LayoutCommand extends Command {
 		setLabel(M.Layout);
 	}
 
+	/**
+	 * Computes the new locations of the nodes in a background job and calls
+	 * the given function in the UI thread when they are ready. The command
+	 * should then be executed so that the locations are applied in one batch.
+	 * If this method is not called, executing the command resets the
+	 * locations of the nodes so that they are laid out in the UI thread.
+	 */
+	public void prepare(Runnable onReady) {
+		layoutManager.layoutInBackground(locations -> {
+			newLocations = locations;
+			onReady.run();
+		});
+	}
+
 	@Override
 	public boolean canExecute() {
 		return true;
@@ -46,8 +62,12 @@ public class LayoutCommand extends Command {
 	@Override
 	public void redo() {
 		layoutManager.clear();
-		for (var child : parent.getChildren())
-			child.setLocation(DEFAULT_LOCATION);
+		for (var child : parent.getChildren()) {
+			var location = newLocations != null
+					? newLocations.get(child)
+					: null;
+			child.setLocation(location != null ? location : DEFAULT_LOCATION);
+		}
 	}
 
 	@Override
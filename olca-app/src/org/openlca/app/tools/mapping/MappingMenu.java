@@ -1,9 +1,11 @@
 package org.openlca.app.tools.mapping;
 
+import java.lang.reflect.InvocationTargetException;
 import java.util.Optional;
 
 import org.eclipse.jface.action.IMenuManager;
 import org.eclipse.jface.action.MenuManager;
+import org.eclipse.ui.PlatformUI;
 import org.eclipse.ui.part.EditorActionBarContributor;
 import org.openlca.app.App;
 import org.openlca.app.M;
@@ -16,6 +18,7 @@ import org.openlca.app.tools.mapping.model.IProvider;
 import org.openlca.app.tools.mapping.replacer.Replacer;
 import org.openlca.app.tools.mapping.replacer.ReplacerConfig;
 import org.openlca.app.util.Actions;
+import org.openlca.app.util.ErrorReporter;
 import org.openlca.app.util.MsgBox;
 import org.openlca.app.util.Question;
 import org.openlca.core.io.maps.FlowMap;
@@ -118,9 +121,14 @@ public class MappingMenu extends EditorActionBarContributor {
 		if (!opt.isPresent())
 			return;
 		Replacer replacer = new Replacer(opt.get());
-		App.runWithProgress("Replace flows ...", replacer, () -> {
-			tool.refresh();
-			Navigator.refresh();
-		});
+		try {
+			// the replacement can be cancelled; committed batches are kept
+			PlatformUI.getWorkbench().getProgressService()
+					.run(true, true, replacer::run);
+		} catch (InvocationTargetException | InterruptedException e) {
+			ErrorReporter.on("Flow replacement failed", e);
+		}
+		tool.refresh();
+		Navigator.refresh();
 	}
 }
@@ -3,7 +3,10 @@ package org.openlca.app.tools.mapping.generator;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
+import org.openlca.app.tools.mapping.model.DBProvider;
 import org.openlca.app.tools.mapping.model.IProvider;
 import org.openlca.core.io.maps.FlowMap;
 import org.openlca.core.io.maps.FlowMapEntry;
@@ -43,18 +46,45 @@ public class Generator implements Runnable {
 				return;
 			}
 
-			log.info("match unmapped flows");
-			var matcher = new Matcher(targetSystem);
-			for (var sourceFlow : sourceFlows) {
-				var source = sourceFlow.copy();
-				source.status = MappingStatus.ok();
-				FlowRef matched = matcher.find(source);
-				FlowRef target = null;
-				if (matched != null) {
-					target = matched.copy();
-					target.status = getStatus(source, target);
-				}
-				mapping.entries.add(new FlowMapEntry(source, target, 1.0));
+			log.info("index target flows");
+			var index = TargetIndex.of(targetSystem);
+			var providers = new Matcher.ProviderInfo(
+				targetSystem instanceof DBProvider p ? p.db() : null);
+
+			// the source flows are matched in parallel; each worker has its
+			// own matcher and the entries are collected in the order of
+			// the source flows; flows that could not be matched because of
+			// an error get an unmapped entry, so that the mapping stays
+			// complete
+			log.info("match {} unmapped flows", sourceFlows.size());
+			var entries = new FlowMapEntry[sourceFlows.size()];
+			int workers = Math.max(1, Math.min(
+				Runtime.getRuntime().availableProcessors(), entries.length));
+			var pool = Executors.newFixedThreadPool(workers);
+			for (int w = 0; w < workers; w++) {
+				int offset = w;
+				pool.execute(() -> {
+					try {
+						var matcher = new Matcher(index, providers);
+						for (int i = offset; i < entries.length; i += workers) {
+							try {
+								entries[i] = match(matcher, sourceFlows.get(i));
+							} catch (Exception e) {
+								log.error("Matching of source flow failed", e);
+							}
+						}
+					} catch (Exception e) {
+						log.error("Matching of source flows failed", e);
+					}
+				});
+			}
+			pool.shutdown();
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+			for (int i = 0; i < entries.length; i++) {
+				var entry = entries[i];
+				mapping.entries.add(entry != null
+					? entry
+					: unmatched(sourceFlows.get(i)));
 			}
 
 		} catch (Exception e) {
@@ -62,6 +92,22 @@ public class Generator implements Runnable {
 		}
 	}
 
+	private FlowMapEntry match(Matcher matcher, FlowRef sourceFlow) {
+		var source = sourceFlow.copy();
+		source.status = MappingStatus.ok();
+		FlowRef target = matcher.find(source);
+		if (target != null) {
+			target.status = getStatus(source, target);
+		}
+		return new FlowMapEntry(source, target, 1.0);
+	}
+
+	private FlowMapEntry unmatched(FlowRef sourceFlow) {
+		var source = sourceFlow.copy();
+		source.status = MappingStatus.error("matching failed");
+		return new FlowMapEntry(source, null, 1.0);
+	}
+
 	private MappingStatus getStatus(FlowRef source, FlowRef target) {
 		if (differentUnits(source, target))
 			return MappingStatus.warn("different units");
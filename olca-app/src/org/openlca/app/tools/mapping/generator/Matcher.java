@@ -1,10 +1,8 @@
 package org.openlca.app.tools.mapping.generator;
 
+import java.util.HashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
 
-import org.openlca.app.tools.mapping.model.DBProvider;
-import org.openlca.app.tools.mapping.model.IProvider;
 import org.openlca.app.util.Labels;
 import org.openlca.core.database.FlowDao;
 import org.openlca.core.database.IDatabase;
@@ -19,36 +17,41 @@ import org.openlca.text.PhraseSimilarity;
 import org.openlca.text.WordBuffer;
 import org.openlca.util.Categories;
 
+/**
+ * Finds the best matching target flow for a source flow. A matcher is not
+ * thread-safe as it reuses its phrase buffers; when flows are matched in
+ * parallel, each thread needs its own matcher. The target index and the
+ * provider information are shared between the matchers.
+ */
 class Matcher {
 
-	private final IDatabase db;
-	private final Map<String, FlowRef> targetFlows;
+	private final TargetIndex index;
+	private final ProviderInfo providers;
 
-	final CompartmentStemmer compartmentStemmer;
+	private final CompartmentStemmer compartmentStemmer;
+	private final Map<String, String[]> stemmedCategories;
 
 	private final PhraseSimilarity similarity;
 	private final PhraseParser parser;
 	private final WordBuffer phrase1;
 	private final WordBuffer phrase2;
 
+	/**
+	 * The parsed names of the target flows; they are parsed when a target
+	 * flow is scored the first time.
+	 */
+	private final WordBuffer[] targetPhrases;
 
-	// helper structures for collecting provider information
-	private Categories.PathBuilder categories;
-	private Map<Long, String> locations;
-
-	Matcher(IProvider targetSystem) {
-		db = targetSystem instanceof DBProvider
-			? ((DBProvider) targetSystem).db()
-			: null;
-		this.targetFlows = targetSystem.getFlowRefs().stream()
-			.filter(f -> f.flow != null && f.flow.refId != null)
-			.collect(Collectors.toMap(f -> f.flow.refId, f -> f));
-
+	Matcher(TargetIndex index, ProviderInfo providers) {
+		this.index = index;
+		this.providers = providers;
 		this.compartmentStemmer = new CompartmentStemmer();
+		this.stemmedCategories = new HashMap<>();
 		this.similarity = new PhraseSimilarity();
 		this.parser = new PhraseParser();
 		this.phrase1 = new WordBuffer();
 		this.phrase2 = new WordBuffer();
+		this.targetPhrases = new WordBuffer[index.flows.size()];
 	}
 
 	double similarityOf(String s1, String s2) {
@@ -59,6 +62,32 @@ class Matcher {
 		return similarity.get(phrase1, phrase2);
 	}
 
+	/**
+	 * Returns the similarity of the given source phrase with the name of the
+	 * target flow at the given position in the index.
+	 */
+	private double nameSimilarityOf(WordBuffer source, int target) {
+		var phrase = targetPhrases[target];
+		if (phrase == null) {
+			var name = index.flows.get(target).flow.name;
+			if (name == null)
+				return 0;
+			phrase = new WordBuffer();
+			parser.parseInto(phrase, name);
+			targetPhrases[target] = phrase;
+		}
+		return similarity.get(source, phrase);
+	}
+
+	String[] stemCategory(String category) {
+		return stemmedCategories.computeIfAbsent(
+				category, compartmentStemmer::stem);
+	}
+
+	/**
+	 * Returns a copy of the best matching target flow for the given source
+	 * flow or {@code null} if no matching flow was found.
+	 */
 	FlowRef find(FlowRef s) {
 		if (s == null
 			|| s.flow == null
@@ -66,47 +95,44 @@ class Matcher {
 			return null;
 
 		// test whether there is a direct match based on the reference IDs
-		var t = targetFlows.get(s.flow.refId);
-		if (t != null) {
-			checkAddProvider(s, t);
-			return t;
-		}
+		var t = index.refIds.get(s.flow.refId);
+		if (t != null)
+			return withProvider(s, t);
 
+		if (s.flow.name == null)
+			return null;
+		var source = new WordBuffer();
+		parser.parseInto(source, s.flow.name);
 		var score = Score.noMatch();
-		for (var candidate : targetFlows.values()) {
-			var nextScore = Score.compute(this, s, candidate);
+		for (int pos : index.candidatesOf(s.flow.name)) {
+			var candidate = index.flows.get(pos);
+			double nameScore = nameSimilarityOf(source, pos);
+			var nextScore = Score.compute(this, s, candidate, nameScore);
 			if (nextScore.betterThan(score)) {
 				score = nextScore;
 				t = candidate;
 			}
 		}
 
-		if (t == null)
-			return null;
-
-		checkAddProvider(s, t);
-		return t;
+		return t != null
+			? withProvider(s, t)
+			: null;
 	}
 
-	private void checkAddProvider(FlowRef s, FlowRef t) {
-		if (db == null || t == null || t.flow == null)
-			return;
-		if (t.flow.flowType == FlowType.ELEMENTARY_FLOW)
-			return;
-		ProcessDescriptor prov = findProvider(db, s, t);
+	private FlowRef withProvider(FlowRef s, FlowRef t) {
+		var copy = t.copy();
+		var db = providers.db;
+		if (db == null || copy.flow == null)
+			return copy;
+		if (copy.flow.flowType == FlowType.ELEMENTARY_FLOW)
+			return copy;
+		ProcessDescriptor prov = findProvider(db, s, copy);
 		if (prov == null)
-			return;
-		t.provider = prov;
-		if (categories == null) {
-			categories = Categories.pathsOf(db);
-		}
-		t.providerCategory = categories.pathOf(prov.category);
-		if (locations == null) {
-			locations = new LocationDao(db).getCodes();
-		}
-		if (prov.location != null) {
-			t.providerLocation = locations.get(prov.location);
-		}
+			return copy;
+		copy.provider = prov;
+		copy.providerCategory = providers.categoryOf(prov);
+		copy.providerLocation = providers.locationOf(prov);
+		return copy;
 	}
 
 	private ProcessDescriptor findProvider(IDatabase db, FlowRef s,	FlowRef t) {
@@ -140,4 +166,35 @@ class Matcher {
 		}
 		return cand;
 	}
+
+	/**
+	 * Helper structures for collecting provider information that are shared
+	 * between matchers.
+	 */
+	static class ProviderInfo {
+
+		private final IDatabase db;
+		private Categories.PathBuilder categories;
+		private Map<Long, String> locations;
+
+		ProviderInfo(IDatabase db) {
+			this.db = db;
+		}
+
+		synchronized String categoryOf(ProcessDescriptor d) {
+			if (categories == null) {
+				categories = Categories.pathsOf(db);
+			}
+			return categories.pathOf(d.category);
+		}
+
+		synchronized String locationOf(ProcessDescriptor d) {
+			if (d.location == null)
+				return null;
+			if (locations == null) {
+				locations = new LocationDao(db).getCodes();
+			}
+			return locations.get(d.location);
+		}
+	}
 }
@@ -21,16 +21,19 @@ record Score(
 		return this == noMatch || nameScore == 0;
 	}
 
-	static Score compute(Matcher matcher, FlowRef s, FlowRef t) {
+	/**
+	 * Computes the score of the given source and target flow. The name
+	 * similarity of the flows is passed into this function as the matcher
+	 * calculates it from pre-parsed phrases.
+	 */
+	static Score compute(
+		Matcher matcher, FlowRef s, FlowRef t, double nameScore) {
 		if (s == null
 			|| s.flow == null
 			|| t == null
 			|| t.flow == null)
 			return noMatch;
 
-		double nameScore = s.flow.name != null && t.flow.name != null
-			? matcher.similarityOf(s.flow.name, t.flow.name)
-			: 0;
 		if (nameScore == 0)
 			return noMatch;
 
@@ -53,8 +56,8 @@ record Score(
 			|| s.flowCategory == null
 			|| t.flowCategory == null)
 			return 0;
-		var stemmed1 = matcher.compartmentStemmer.stem(s.flowCategory);
-		var stemmed2 = matcher.compartmentStemmer.stem(t.flowCategory);
+		var stemmed1 = matcher.stemCategory(s.flowCategory);
+		var stemmed2 = matcher.stemCategory(t.flowCategory);
 		int minLen = Math.min(stemmed1.length, stemmed2.length);
 		if (minLen == 0)
 			return 0;
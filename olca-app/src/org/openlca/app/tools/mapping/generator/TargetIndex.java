@@ -0,0 +1,128 @@
+package org.openlca.app.tools.mapping.generator;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openlca.app.tools.mapping.model.IProvider;
+import org.openlca.core.io.maps.FlowRef;
+import org.slf4j.LoggerFactory;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.set.hash.TIntHashSet;
+
+/**
+ * An index of the flows of a target system that is built once for a mapping
+ * generation. It contains an inverted index of the stemmed words of the flow
+ * names so that only the target flows that share at least one word with a
+ * source flow need to be scored. The index is not modified after it was
+ * created and can be shared between multiple matchers.
+ */
+class TargetIndex {
+
+	private static Set<String> stopwords;
+
+	final List<FlowRef> flows;
+	final Map<String, FlowRef> refIds;
+	private final Map<String, TIntArrayList> words;
+
+	private TargetIndex(int size) {
+		flows = new ArrayList<>(size);
+		refIds = new HashMap<>(size);
+		words = new HashMap<>();
+	}
+
+	static TargetIndex of(IProvider targetSystem) {
+		var refs = targetSystem.getFlowRefs();
+		var index = new TargetIndex(refs.size());
+		for (var ref : refs) {
+			if (ref.flow == null || ref.flow.refId == null)
+				continue;
+			if (index.refIds.put(ref.flow.refId, ref) != null)
+				continue;
+			int pos = index.flows.size();
+			index.flows.add(ref);
+			for (var word : wordsOf(ref.flow.name)) {
+				index.words.computeIfAbsent(word, w -> new TIntArrayList())
+						.add(pos);
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the positions of the target flows that share at least one
+	 * stemmed word with the given name. If there is no such flow, all flows
+	 * are returned as candidates.
+	 */
+	int[] candidatesOf(String name) {
+		var positions = new TIntHashSet();
+		for (var word : wordsOf(name)) {
+			var list = words.get(word);
+			if (list != null) {
+				positions.addAll(list);
+			}
+		}
+		if (!positions.isEmpty()) {
+			var array = positions.toArray();
+			// keep the order of the target flows so that the results do not
+			// depend on the hash order when two candidates have equal scores
+			Arrays.sort(array);
+			return array;
+		}
+		var all = new int[flows.size()];
+		for (int i = 0; i < all.length; i++) {
+			all[i] = i;
+		}
+		return all;
+	}
+
+	private static Set<String> wordsOf(String name) {
+		var set = new HashSet<String>();
+		if (name == null)
+			return set;
+		var stops = stopwords();
+		for (var part : name.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+			if (part.length() < 2 || stops.contains(part))
+				continue;
+			var stem = Stemmer.stem(part);
+			if (!stem.isEmpty()) {
+				set.add(stem);
+			}
+		}
+		return set;
+	}
+
+	private static synchronized Set<String> stopwords() {
+		if (stopwords != null)
+			return stopwords;
+		var set = new HashSet<String>();
+		var stream = TargetIndex.class.getResourceAsStream("stopwords.txt");
+		if (stream == null) {
+			stopwords = set;
+			return set;
+		}
+		try (var reader = new BufferedReader(
+				new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				var word = line.trim().toLowerCase();
+				if (word.isEmpty() || word.startsWith("#"))
+					continue;
+				set.add(word);
+			}
+		} catch (Exception e) {
+			LoggerFactory.getLogger(TargetIndex.class)
+					.error("failed to read stopwords", e);
+		}
+		stopwords = set;
+		return set;
+	}
+}
@@ -3,15 +3,17 @@ package org.openlca.app.tools.mapping.replacer;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.openlca.core.io.maps.FlowMapEntry;
 import org.openlca.core.model.ModelType;
 
-class AllocationCursor extends UpdatableCursor {
+class AllocationUpdate extends BatchUpdate {
 
 	private final Replacer replacer;
 
-	public AllocationCursor(Replacer replacer) {
-		super(replacer.db, ModelType.PROCESS);
+	AllocationUpdate(Replacer replacer, long[] flowIds,
+			IProgressMonitor monitor) {
+		super(replacer.db, ModelType.PROCESS, flowIds, monitor);
 		this.replacer = replacer;
 	}
 
@@ -32,28 +34,28 @@ class AllocationCursor extends UpdatableCursor {
 				return;
 
 			update.setLong(1, entry.targetFlow().flow.id);
-
-			update.executeUpdate();
-			stats.inc(flowID, Stats.REPLACEMENT);
-			updatedModels.add(processID);
+			update.setLong(2, cursor.getLong("id"));
+			add(update, flowID, processID);
 		} catch (Exception e) {
 			stats.inc(flowID, Stats.FAILURE);
 		}
 	}
 
 	@Override
-	String querySQL() {
+	String querySQL(String flowIds) {
 		return "SELECT "
+				+ " id,"
 				+ " f_process,"
 				+ " f_product"
 				+ " FROM tbl_allocation_factors"
-				+ " FOR UPDATE OF f_product";
+				+ " WHERE f_product IN (" + flowIds + ")";
 	}
 
 	@Override
 	String updateSQL() {
 		return "UPDATE tbl_allocation_factors"
-				+ " SET f_product = ? ";
+				+ " SET f_product = ? "
+				+ " WHERE id = ?";
 	}
 
 }
@@ -6,6 +6,7 @@ import java.sql.SQLException;
 import java.sql.Types;
 import java.util.Set;
 
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.openlca.core.io.maps.FlowMapEntry;
 import org.openlca.core.io.maps.FlowRef;
 import org.openlca.core.model.Flow;
@@ -19,16 +20,17 @@ import org.openlca.util.Strings;
  * Replaces flows and updates the amounts in exchanges and characterization
  * factors.
  */
-class AmountCursor extends UpdatableCursor {
+class AmountUpdate extends BatchUpdate {
 
 	private final Replacer replacer;
 
 	/**
-	 * Creates a new amount cursor. For the type, PROCESS or IMPACT_CATEGORY is
+	 * Creates a new amount update. For the type, PROCESS or IMPACT_CATEGORY is
 	 * allowed.
 	 */
-	AmountCursor(ModelType type, Replacer replacer) {
-		super(replacer.db, type);
+	AmountUpdate(ModelType type, Replacer replacer, long[] flowIds,
+			IProgressMonitor monitor) {
+		super(replacer.db, type, flowIds, monitor);
 		this.replacer = replacer;
 	}
 
@@ -99,16 +101,18 @@ class AmountCursor extends UpdatableCursor {
 				}
 			}
 
-			update.executeUpdate();
-			stats.inc(flowID, Stats.REPLACEMENT);
-			updatedModels.add(ownerID);
+			// id
+			int idParam = type == ModelType.PROCESS ? 11 : 10;
+			update.setLong(idParam, cursor.getLong("id"));
+
+			add(update, flowID, ownerID);
 		} catch (Exception e) {
 			stats.inc(flowID, Stats.FAILURE);
 		}
 	}
 
 	@Override
-	String querySQL() {
+	String querySQL(String flowIds) {
 		String table;
 		String owner;
 		String value;
@@ -141,22 +145,9 @@ class AmountCursor extends UpdatableCursor {
 			query += ", f_default_provider ";
 		}
 
-		query += "FROM " + table + " "
-				+ "FOR UPDATE OF "
-				+ "f_flow, "
-				+ "f_unit, "
-				+ "f_flow_property_factor, "
-				+ value + " , "
-				+ formula + ", "
-				+ "distribution_type, "
-				+ "parameter1_value, "
-				+ "parameter2_value, "
-				+ "parameter3_value";
-
-		if (type == ModelType.PROCESS) {
-			query += ", f_default_provider ";
-		}
-
+		query += ", id "
+				+ "FROM " + table + " "
+				+ "WHERE f_flow IN (" + flowIds + ")";
 		return query;
 	}
 
@@ -189,6 +180,7 @@ class AmountCursor extends UpdatableCursor {
 		if (type == ModelType.PROCESS) {
 			/* 10 */ sql += " , f_default_provider = ?";
 		}
+		/* 10 | 11 */ sql += " WHERE id = ?";
 		return sql;
 	}
 
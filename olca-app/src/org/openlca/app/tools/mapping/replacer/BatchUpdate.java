@@ -0,0 +1,148 @@
+package org.openlca.app.tools.mapping.replacer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.openlca.core.database.IDatabase;
+import org.openlca.core.model.ModelType;
+import org.slf4j.LoggerFactory;
+
+import gnu.trove.list.array.TLongArrayList;
+
+/**
+ * A method template for implementing batched updates of the rows that
+ * reference a set of mapped flows. An instance is created for a chunk of
+ * source flow IDs; it selects only the rows of these flows, adds the updates
+ * of these rows to a batch, and executes and commits the batch every
+ * {@link #BATCH_SIZE} rows. Thus, the locks of a transaction stay below the
+ * lock escalation threshold of Derby and multiple instances can run in
+ * parallel on different connections.
+ * <p>
+ * As the rows of already replaced flows do not reference the source flows
+ * anymore, a cancelled replacement can be resumed by just running it again.
+ */
+abstract class BatchUpdate implements Runnable {
+
+	static final int BATCH_SIZE = 1000;
+
+	final IDatabase db;
+	final Stats stats = new Stats();
+	/**
+	 * Contains the IDs of the updated models (processes, LCIA
+	 * methods/categories, product systems => see the type below).
+	 */
+	final Set<Long> updatedModels = new HashSet<>();
+
+	/** The type of the updated models. */
+	final ModelType type;
+
+	/** The IDs of the source flows of this update. */
+	final long[] flowIds;
+
+	private final IProgressMonitor monitor;
+	private final TLongArrayList pendingFlows = new TLongArrayList();
+	private final TLongArrayList pendingModels = new TLongArrayList();
+
+	BatchUpdate(IDatabase db, ModelType type, long[] flowIds,
+			IProgressMonitor monitor) {
+		this.db = db;
+		this.type = type;
+		this.flowIds = flowIds;
+		this.monitor = monitor;
+	}
+
+	/**
+	 * The SQL query for selecting the records of the flows with the given IDs;
+	 * the IDs are passed as comma separated list.
+	 */
+	abstract String querySQL(String flowIds);
+
+	/** The SQL statement for updating a record. */
+	abstract String updateSQL();
+
+	/**
+	 * This method is called for each selected row. It should set the
+	 * parameters of the update statement and call {@link #add} when the row
+	 * should be updated. Possible errors should be handled and logged there.
+	 */
+	abstract void next(ResultSet row, PreparedStatement update);
+
+	/**
+	 * Adds the update with the current parameters to the batch. The given
+	 * flow and model IDs are recorded in the statistics when the batch was
+	 * committed.
+	 */
+	final void add(PreparedStatement update, long flowId, long modelId)
+			throws SQLException {
+		update.addBatch();
+		pendingFlows.add(flowId);
+		pendingModels.add(modelId);
+	}
+
+	@Override
+	public final void run() {
+		if (flowIds.length == 0 || monitor.isCanceled())
+			return;
+		var ids = new StringBuilder();
+		for (int i = 0; i < flowIds.length; i++) {
+			if (i > 0) {
+				ids.append(',');
+			}
+			ids.append(flowIds[i]);
+		}
+
+		try (var con = db.createConnection()) {
+			con.setAutoCommit(false);
+			try (var query = con.createStatement();
+				 var rows = query.executeQuery(querySQL(ids.toString()));
+				 var update = con.prepareStatement(updateSQL())) {
+				while (rows.next()) {
+					next(rows, update);
+					if (pendingFlows.size() < BATCH_SIZE)
+						continue;
+					commit(con, update);
+					if (monitor.isCanceled())
+						break;
+				}
+				commit(con, update);
+			}
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private void commit(Connection con, PreparedStatement update)
+			throws SQLException {
+		if (pendingFlows.isEmpty())
+			return;
+		boolean success;
+		try {
+			update.executeBatch();
+			con.commit();
+			success = true;
+		} catch (SQLException e) {
+			LoggerFactory.getLogger(getClass())
+					.error("failed to execute batch update", e);
+			update.clearBatch();
+			con.rollback();
+			success = false;
+		}
+		for (int i = 0; i < pendingFlows.size(); i++) {
+			long flowId = pendingFlows.get(i);
+			if (success) {
+				stats.inc(flowId, Stats.REPLACEMENT);
+				updatedModels.add(pendingModels.get(i));
+			} else {
+				stats.inc(flowId, Stats.FAILURE);
+			}
+		}
+		pendingFlows.resetQuick();
+		pendingModels.resetQuick();
+	}
+
+}
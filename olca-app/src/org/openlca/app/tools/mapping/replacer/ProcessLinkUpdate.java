@@ -3,15 +3,17 @@ package org.openlca.app.tools.mapping.replacer;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.openlca.core.io.maps.FlowMapEntry;
 import org.openlca.core.model.ModelType;
 
-class ProcessLinkCursor extends UpdatableCursor {
+class ProcessLinkUpdate extends BatchUpdate {
 
 	private final Replacer replacer;
 
-	ProcessLinkCursor(Replacer replacer) {
-		super(replacer.db, ModelType.PRODUCT_SYSTEM);
+	ProcessLinkUpdate(Replacer replacer, long[] flowIds,
+			IProgressMonitor monitor) {
+		super(replacer.db, ModelType.PRODUCT_SYSTEM, flowIds, monitor);
 		this.replacer = replacer;
 	}
 
@@ -41,34 +43,39 @@ class ProcessLinkCursor extends UpdatableCursor {
 
 			update.setLong(1, provider);
 			update.setLong(2, entry.targetFlow().flow.id);
-			long systemID = cursor.getLong("f_product_system");
 
-			update.executeUpdate();
-			stats.inc(flowID, Stats.REPLACEMENT);
-			updatedModels.add(systemID);
+			// the links have no ID; a link is identified by the product
+			// system and the linked exchange
+			long systemID = cursor.getLong("f_product_system");
+			update.setLong(3, systemID);
+			update.setLong(4, cursor.getLong("f_exchange"));
+			update.setLong(5, flowID);
+			add(update, flowID, systemID);
 		} catch (Exception e) {
 			stats.inc(flowID, Stats.FAILURE);
 		}
 	}
 
 	@Override
-	String querySQL() {
+	String querySQL(String flowIds) {
 		return "SELECT "
 				+ " f_product_system,"
 				+ " f_provider,"
 				+ " f_flow,"
-				+ " f_process"
+				+ " f_process,"
+				+ " f_exchange"
 				+ " FROM tbl_process_links"
-				+ " FOR UPDATE OF "
-				+ " f_provider, "
-				+ " f_flow";
+				+ " WHERE f_flow IN (" + flowIds + ")";
 	}
 
 	@Override
 	String updateSQL() {
 		return "UPDATE tbl_process_links"
 				+ " SET f_provider = ? , "
-				+ " f_flow = ? ";
+				+ " f_flow = ? "
+				+ " WHERE f_product_system = ?"
+				+ " AND f_exchange = ?"
+				+ " AND f_flow = ?";
 	}
 
 }
@@ -1,8 +1,10 @@
 package org.openlca.app.tools.mapping.replacer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
@@ -10,7 +12,12 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.openlca.app.collaboration.navigation.actions.ModelReferences;
+import org.openlca.app.db.Cache;
 import org.openlca.app.db.Database;
+import org.openlca.app.navigation.DescriptorCache;
 import org.openlca.app.tools.mapping.model.DBProvider;
 import org.openlca.app.util.Labels;
 import org.openlca.core.database.FlowDao;
@@ -19,13 +26,19 @@ import org.openlca.core.database.ImpactMethodDao;
 import org.openlca.core.io.maps.FlowMapEntry;
 import org.openlca.core.io.maps.FlowRef;
 import org.openlca.core.io.maps.MappingStatus;
+import org.openlca.core.model.AllocationFactor;
+import org.openlca.core.model.Exchange;
 import org.openlca.core.model.Flow;
+import org.openlca.core.model.ImpactFactor;
 import org.openlca.core.model.ModelType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class Replacer implements Runnable {
 
+	/** The number of source flows that are updated in one batch update. */
+	private static final int FLOW_CHUNK_SIZE = 500;
+
 	private final ReplacerConfig conf;
 	private final Logger log = LoggerFactory.getLogger(getClass());
 
@@ -49,6 +62,16 @@ public class Replacer implements Runnable {
 
 	@Override
 	public void run() {
+		run(new NullProgressMonitor());
+	}
+
+	/**
+	 * Runs the replacement with the given progress monitor. The replacement is
+	 * executed in batches that are committed separately. When it is cancelled,
+	 * the already committed batches are kept and the mapping entries are not
+	 * updated.
+	 */
+	public void run(IProgressMonitor monitor) {
 		if (conf == null || (conf.models.isEmpty())) {
 			log.info("no configuration; nothing to replace");
 			return;
@@ -77,21 +100,37 @@ public class Replacer implements Runnable {
 
 		try {
 
-			// start and wait for the cursors to finish
-			log.info("start updatable cursors");
-			List<UpdatableCursor> cursors = createCursors();
-			ExecutorService pool = Executors.newFixedThreadPool(4);
-			for (UpdatableCursor c : cursors) {
-				pool.execute(c);
+			// start and wait for the batch updates to finish
+			log.info("start batch updates");
+			var updates = createUpdates(monitor);
+			monitor.beginTask("Replace flows", updates.size());
+			int workers = Math.max(1, Math.min(4,
+					Runtime.getRuntime().availableProcessors()));
+			ExecutorService pool = Executors.newFixedThreadPool(workers);
+			for (var update : updates) {
+				pool.execute(() -> {
+					try {
+						update.run();
+					} catch (Exception e) {
+						log.error("batch update failed", e);
+						for (long flowId : update.flowIds) {
+							update.stats.inc(flowId, Stats.FAILURE);
+						}
+					}
+					monitor.worked(1);
+				});
 			}
 			pool.shutdown();
 			int i = 0;
 			while (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
 				i++;
-				log.info("waiting for cursors to finish; {} seconds", i * 10);
+				log.info("waiting for updates to finish; {} seconds", i * 10);
 			}
-			log.info("cursors finished");
-			db.getEntityFactory().getCache().evictAll();
+			monitor.done();
+			log.info("updates finished");
+			evictUpdated(updates);
+			DescriptorCache.clear();
+			ModelReferences.invalidate(db);
 
 			// TODO when products were replaced we also need to check
 			// whether these products are used in the quant. ref. of
@@ -103,9 +142,23 @@ public class Replacer implements Runnable {
 
 			// collect and log statistics
 			Stats stats = new Stats();
-			for (UpdatableCursor c : cursors) {
-				stats.add(c.stats);
-				c.stats.log(c.getClass().getName(), flows);
+			var typeStats = new LinkedHashMap<String, Stats>();
+			for (var update : updates) {
+				stats.add(update.stats);
+				typeStats.computeIfAbsent(
+						update.getClass().getName() + "/" + update.type,
+						k -> new Stats())
+						.add(update.stats);
+			}
+			typeStats.forEach((context, s) -> s.log(context, flows));
+
+			if (monitor.isCanceled()) {
+				log.info("flow replacement was cancelled; it can be resumed"
+						+ " by applying the mapping again");
+				for (var e : entries.values()) {
+					e.sourceFlow().status = MappingStatus.warn("Cancelled");
+				}
+				return;
 			}
 
 			// TODO: update the version and last-update fields
@@ -150,17 +203,57 @@ public class Replacer implements Runnable {
 		}
 	}
 
-	private List<UpdatableCursor> createCursors() {
-		List<UpdatableCursor> cursors = new ArrayList<>();
-		if (!processes.isEmpty()) {
-			cursors.add(new AmountCursor(ModelType.PROCESS, this));
-			cursors.add(new ProcessLinkCursor(this));
-			cursors.add(new AllocationCursor(this));
+	/**
+	 * Creates the batch updates for chunks of the mapped source flows. For
+	 * each chunk, an update is created for each table that needs to be
+	 * updated.
+	 */
+	private List<BatchUpdate> createUpdates(IProgressMonitor monitor) {
+		var ids = new long[entries.size()];
+		int k = 0;
+		for (long id : entries.keySet()) {
+			ids[k++] = id;
 		}
-		if (!impacts.isEmpty()) {
-			cursors.add(new AmountCursor(ModelType.IMPACT_CATEGORY, this));
+		Arrays.sort(ids);
+		var updates = new ArrayList<BatchUpdate>();
+		for (int start = 0; start < ids.length; start += FLOW_CHUNK_SIZE) {
+			int end = Math.min(start + FLOW_CHUNK_SIZE, ids.length);
+			var chunk = Arrays.copyOfRange(ids, start, end);
+			if (!processes.isEmpty()) {
+				updates.add(new AmountUpdate(
+						ModelType.PROCESS, this, chunk, monitor));
+				updates.add(new ProcessLinkUpdate(this, chunk, monitor));
+				updates.add(new AllocationUpdate(this, chunk, monitor));
+			}
+			if (!impacts.isEmpty()) {
+				updates.add(new AmountUpdate(
+						ModelType.IMPACT_CATEGORY, this, chunk, monitor));
+			}
+		}
+		return updates;
+	}
+
+	/**
+	 * Removes the updated models from the JPA and application caches instead
+	 * of clearing the complete caches. The exchanges and factors are separate
+	 * entities in the JPA cache that still point to the replaced flows; we
+	 * evict them by type as we do not know their IDs here.
+	 */
+	private void evictUpdated(List<BatchUpdate> updates) {
+		var jpaCache = db.getEntityFactory().getCache();
+		jpaCache.evict(Exchange.class);
+		jpaCache.evict(ImpactFactor.class);
+		jpaCache.evict(AllocationFactor.class);
+		var appCache = Cache.getEntityCache();
+		for (var update : updates) {
+			var clazz = update.type.getModelClass();
+			for (long id : update.updatedModels) {
+				jpaCache.evict(clazz, id);
+				if (appCache != null) {
+					appCache.invalidate(clazz, id);
+				}
+			}
 		}
-		return cursors;
 	}
 
 	private void buildIndices() {
@@ -1,5 +1,7 @@
 package org.openlca.app.viewers;
 
+import java.util.Arrays;
+
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.jface.viewers.ViewerComparator;
 
@@ -23,6 +25,22 @@ public abstract class Comparator<T> extends ViewerComparator {
 
 	protected abstract int compare(T e1, T e2);
 
+	/**
+	 * Returns the key by which the given element is sorted. When sorting is
+	 * expensive because labels are formatted or parsed in each comparison,
+	 * a comparator should return such a precomputed key here and compare
+	 * these keys in {@link #compareKeys}. By default, the element itself is
+	 * the key.
+	 */
+	protected Object keyOf(T element) {
+		return element;
+	}
+
+	@SuppressWarnings("unchecked")
+	protected int compareKeys(Object key1, Object key2) {
+		return compare((T) key1, (T) key2);
+	}
+
 	@Override
 	@SuppressWarnings("unchecked")
 	public final int compare(Viewer viewer, Object e1, Object e2) {
@@ -33,5 +51,70 @@ public abstract class Comparator<T> extends ViewerComparator {
 		int c = compare((T) e1, (T) e2);
 		return ascending ? c : -c;
 	}
-	
+
+	/**
+	 * Sorts the elements by their keys which are computed only once for each
+	 * element.
+	 */
+	@Override
+	public void sort(Viewer viewer, Object[] elements) {
+		var order = sortedPositions(elements);
+		var sorted = new Object[elements.length];
+		for (int i = 0; i < order.length; i++) {
+			sorted[i] = elements[order[i]];
+		}
+		System.arraycopy(sorted, 0, elements, 0, sorted.length);
+	}
+
+	/**
+	 * Returns the positions of the given elements in sorted order.
+	 */
+	public int[] sortedPositions(Object[] elements) {
+		return sortedPositions(elements, keysOf(elements));
+	}
+
+	/**
+	 * Computes the sort keys of the given elements. The keys are often
+	 * computed from the labels of the viewer, thus, this should be called in
+	 * the UI thread.
+	 */
+	@SuppressWarnings("unchecked")
+	public Object[] keysOf(Object[] elements) {
+		var keys = new Object[elements.length];
+		for (int i = 0; i < elements.length; i++) {
+			if (elements[i] != null) {
+				keys[i] = keyOf((T) elements[i]);
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Returns the positions of the given elements in the sorted order of
+	 * their keys, see {@link #keysOf(Object[])}. This only compares the keys
+	 * and can be called outside of the UI thread.
+	 */
+	public int[] sortedPositions(Object[] elements, Object[] keys) {
+		boolean asc = ascending;
+		var positions = new Integer[elements.length];
+		for (int i = 0; i < elements.length; i++) {
+			positions[i] = i;
+		}
+		Arrays.sort(positions, (i, j) -> {
+			var e1 = elements[i];
+			var e2 = elements[j];
+			if (e1 == null && e2 == null)
+				return 0;
+			if (e1 == null || e2 == null)
+				return e1 == null ? -1 : 1;
+			int c = compareKeys(keys[i], keys[j]);
+			return asc ? c : -c;
+		});
+		var order = new int[positions.length];
+		for (int i = 0; i < positions.length; i++) {
+			order[i] = positions[i];
+		}
+		return order;
+	}
+
 }
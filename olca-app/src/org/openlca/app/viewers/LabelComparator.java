@@ -15,17 +15,32 @@ class LabelComparator<T> extends Comparator<T> {
 
 	@Override
 	protected int compare(T e1, T e2) {
-		String text1 = provider.getColumnText(e1, column);
-		String text2 = provider.getColumnText(e2, column);
+		return compareKeys(keyOf(e1), keyOf(e2));
+	}
+
+	/**
+	 * The key of an element is the text of its column or the parsed number
+	 * of that text when the column is sorted by numbers.
+	 */
+	@Override
+	protected Object keyOf(T element) {
+		var text = provider.getColumnText(element, column);
+		return asNumbers
+				? safeParse(text)
+				: text;
+	}
+
+	@Override
+	protected int compareKeys(Object key1, Object key2) {
 		if (!asNumbers)
-			return Strings.compare(text1, text2);
-		Double d1 = safeParse(text1);
-		Double d2 = safeParse(text2);
+			return Strings.compare((String) key1, (String) key2);
+		var d1 = (Double) key1;
+		var d2 = (Double) key2;
 		if (d1 == null && d2 == null)
 			return 0;
 		if (d1 == null || d2 == null)
 			return d1 == null ? -1 : 1;
-		return Double.compare(Double.parseDouble(text1), Double.parseDouble(text2));
+		return Double.compare(d1, d2);
 	}
 
 	private Double safeParse(String text) {
@@ -30,11 +30,24 @@ public class Viewers {
 
 	public static <T> void sortByDouble(
 			ColumnViewer viewer, Function<T, Double> fn, int col) {
- 		addComparator(viewer, Comparator.on(col, (T e1, T e2) -> {
-			double d1 = fn.apply(e1);
-			double d2 = fn.apply(e2);
-			return Double.compare(d1, d2);
-		}));
+		addComparator(viewer, new Comparator<T>(col) {
+			@Override
+			protected int compare(T e1, T e2) {
+				return compareKeys(fn.apply(e1), fn.apply(e2));
+			}
+
+			@Override
+			protected Object keyOf(T element) {
+				return fn.apply(element);
+			}
+
+			@Override
+			protected int compareKeys(Object key1, Object key2) {
+				double d1 = (Double) key1;
+				double d2 = (Double) key2;
+				return Double.compare(d1, d2);
+			}
+		});
 	}
 
 	public static void sortByDouble(
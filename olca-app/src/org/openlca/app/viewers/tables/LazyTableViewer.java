@@ -0,0 +1,228 @@
+package org.openlca.app.viewers.tables;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jface.viewers.ILazyContentProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.jface.viewers.ViewerComparator;
+import org.eclipse.jface.viewers.ViewerFilter;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Composite;
+import org.openlca.app.viewers.Comparator;
+
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * A table viewer for tables with many rows. It has a lazy content provider, so
+ * that only the visible rows are created and labeled. The viewer does not
+ * filter and sort the elements itself but keeps an index permutation of its
+ * input (a collection or an array): the filters are applied when the viewer
+ * is refreshed and the rows are sorted by the keys of the comparator. These
+ * keys are computed in the UI thread as they are often derived from the
+ * labels, but for large tables only the keys are then sorted in a background
+ * job. Until this is done, the filtered rows are shown unsorted.
+ */
+public class LazyTableViewer extends TableViewer {
+
+	/** Tables with more rows are sorted in a background job. */
+	private static final int SYNC_SORT_LIMIT = 2000;
+
+	private final List<ViewerFilter> filters = new ArrayList<>();
+	private ViewerComparator comparator;
+	private Rows rows = new Rows(new Object[0], new int[0]);
+	private int generation;
+
+	/**
+	 * The elements of the input and the positions of the elements that are
+	 * shown in the table, in the order of the table rows.
+	 */
+	private record Rows(Object[] elements, int[] order) {
+	}
+
+	LazyTableViewer(Composite parent, int style) {
+		super(parent, style | SWT.VIRTUAL);
+		setUseHashlookup(true);
+		setContentProvider(new Content());
+	}
+
+	@Override
+	public void refresh() {
+		updateRows(getInput());
+		super.refresh();
+	}
+
+	@Override
+	public void refresh(boolean updateLabels) {
+		updateRows(getInput());
+		super.refresh(updateLabels);
+	}
+
+	@Override
+	public ViewerComparator getComparator() {
+		return comparator;
+	}
+
+	@Override
+	public void setComparator(ViewerComparator comparator) {
+		if (this.comparator == comparator)
+			return;
+		this.comparator = comparator;
+		refresh();
+	}
+
+	@Override
+	public ViewerFilter[] getFilters() {
+		return filters.toArray(new ViewerFilter[0]);
+	}
+
+	@Override
+	public void addFilter(ViewerFilter filter) {
+		filters.add(filter);
+		refresh();
+	}
+
+	@Override
+	public void removeFilter(ViewerFilter filter) {
+		if (filters.remove(filter)) {
+			refresh();
+		}
+	}
+
+	@Override
+	public void setFilters(ViewerFilter... filters) {
+		this.filters.clear();
+		if (filters != null) {
+			this.filters.addAll(Arrays.asList(filters));
+		}
+		refresh();
+	}
+
+	@Override
+	public void resetFilters() {
+		filters.clear();
+		refresh();
+	}
+
+	/**
+	 * Filters the elements of the given input and sorts them. The rows are
+	 * directly updated; for large tables, they are updated again with the
+	 * sorted order when the sorting job is finished.
+	 */
+	private void updateRows(Object input) {
+		var elements = elementsOf(input);
+		var positions = new TIntArrayList(elements.length);
+		for (int i = 0; i < elements.length; i++) {
+			if (accepts(input, elements[i])) {
+				positions.add(i);
+			}
+		}
+		var filtered = positions.toArray();
+		int gen = ++generation;
+		if (!(comparator instanceof Comparator<?> sorter)
+				|| filtered.length <= SYNC_SORT_LIMIT) {
+			setRows(new Rows(elements, sort(comparator, elements, filtered)));
+			return;
+		}
+
+		// compute the keys here and sort them in the background; show the
+		// current rows unsorted until then, so that no removed rows are shown
+		var subset = subsetOf(elements, filtered);
+		var keys = sorter.keysOf(subset);
+		setRows(new Rows(elements, filtered));
+		var display = getControl().getDisplay();
+		Job.createSystem("Sort table", monitor -> {
+			var order = reorder(filtered, sorter.sortedPositions(subset, keys));
+			display.asyncExec(() -> {
+				if (gen != generation || getControl().isDisposed())
+					return;
+				setRows(new Rows(elements, order));
+				super.refresh();
+			});
+		}).schedule();
+	}
+
+	private boolean accepts(Object input, Object element) {
+		for (var filter : filters) {
+			if (!filter.select(this, input, element))
+				return false;
+		}
+		return true;
+	}
+
+	private void setRows(Rows rows) {
+		this.rows = rows;
+		setItemCount(rows.order.length);
+	}
+
+	private Object[] elementsOf(Object input) {
+		if (input instanceof Collection<?> c)
+			return c.toArray();
+		if (input instanceof Object[] array)
+			return array.clone();
+		return new Object[0];
+	}
+
+	/**
+	 * Sorts the given positions of the elements in the UI thread.
+	 */
+	private int[] sort(ViewerComparator sorter, Object[] elements, int[] positions) {
+		if (sorter == null)
+			return positions;
+		var subset = subsetOf(elements, positions);
+		int[] sorted;
+		if (sorter instanceof Comparator<?> c) {
+			sorted = c.sortedPositions(subset);
+		} else {
+			var boxed = new Integer[subset.length];
+			for (int i = 0; i < boxed.length; i++) {
+				boxed[i] = i;
+			}
+			Arrays.sort(boxed, (i, j) -> sorter.compare(this, subset[i], subset[j]));
+			sorted = Arrays.stream(boxed).mapToInt(Integer::intValue).toArray();
+		}
+		return reorder(positions, sorted);
+	}
+
+	private static Object[] subsetOf(Object[] elements, int[] positions) {
+		var subset = new Object[positions.length];
+		for (int i = 0; i < positions.length; i++) {
+			subset[i] = elements[positions[i]];
+		}
+		return subset;
+	}
+
+	/**
+	 * Maps the sorted positions of a subset back to the positions of the
+	 * elements.
+	 */
+	private static int[] reorder(int[] positions, int[] sorted) {
+		var order = new int[sorted.length];
+		for (int i = 0; i < sorted.length; i++) {
+			order[i] = positions[sorted[i]];
+		}
+		return order;
+	}
+
+	private class Content implements ILazyContentProvider {
+
+		@Override
+		public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+			if (getControl() == null || getControl().isDisposed())
+				return;
+			updateRows(newInput);
+		}
+
+		@Override
+		public void updateElement(int index) {
+			var current = rows;
+			if (index < 0 || index >= current.order.length)
+				return;
+			replace(current.elements[current.order[index]], index);
+		}
+	}
+}
@@ -34,6 +34,8 @@ import org.openlca.util.Strings;
  */
 public class Tables {
 
+	private static final int STYLE = SWT.BORDER | SWT.FULL_SELECTION | SWT.VIRTUAL | SWT.MULTI;
+
 	public static TableViewer createViewer(Composite parent, String... properties) {
 		return createViewer(parent, properties, (IBaseLabelProvider) null);
 	}
@@ -68,10 +70,38 @@ public class Tables {
 		return viewer;
 	}
 
+	/**
+	 * Creates a table viewer like {@link #createViewer(Composite, String[],
+	 * IBaseLabelProvider)} but for tables with many rows: only the visible rows
+	 * are labeled and the rows are filtered and sorted on an index permutation
+	 * of the input, see {@link LazyTableViewer}.
+	 */
+	public static LazyTableViewer createLazyViewer(Composite parent, String[] properties,
+			IBaseLabelProvider labelProvider) {
+		boolean hasColumns = properties != null && properties.length > 0;
+		var viewer = new LazyTableViewer(parent, STYLE);
+		configure(viewer, parent, hasColumns);
+		if (hasColumns) {
+			createColumns(viewer, properties, i -> labelProvider);
+		}
+		if (labelProvider != null) {
+			viewer.setLabelProvider(labelProvider);
+		}
+		return viewer;
+	}
+
+	public static LazyTableViewer createLazyViewer(Composite parent, String... properties) {
+		return createLazyViewer(parent, properties, null);
+	}
+
 	private static TableViewer createViewer(Composite parent, boolean hasColumns) {
-		var viewer = new TableViewer(parent,
-				SWT.BORDER | SWT.FULL_SELECTION | SWT.VIRTUAL | SWT.MULTI);
+		var viewer = new TableViewer(parent, STYLE);
 		viewer.setContentProvider(ArrayContentProvider.getInstance());
+		configure(viewer, parent, hasColumns);
+		return viewer;
+	}
+
+	private static void configure(TableViewer viewer, Composite parent, boolean hasColumns) {
 		Table table = viewer.getTable();
 		table.setLinesVisible(hasColumns);
 		table.setHeaderVisible(hasColumns);
@@ -81,7 +111,6 @@ public class Tables {
 		// https://bugs.eclipse.org/bugs/show_bug.cgi?id=215997
 		Point p = parent.computeSize(SWT.DEFAULT, SWT.DEFAULT);
 		data.heightHint = Math.max(p.y, 120);
-		return viewer;
 	}
 
 	private static void createColumns(TableViewer viewer, String[] labels,
@@ -183,8 +212,12 @@ public class Tables {
 				int direction = comparator.ascending ? SWT.UP : SWT.DOWN;
 				table.setSortDirection(direction);
 				table.setSortColumn(column);
-				viewer.setComparator(comparator);
-				viewer.refresh();
+				// setting a new comparator refreshes the viewer
+				if (viewer.getComparator() == comparator) {
+					viewer.refresh();
+				} else {
+					viewer.setComparator(comparator);
+				}
 			}
 		});
 	}